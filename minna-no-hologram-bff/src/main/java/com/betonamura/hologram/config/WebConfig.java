@@ -1,9 +1,15 @@
 package com.betonamura.hologram.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -21,8 +27,26 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true);
     }
 
+    /**
+     * Shared HTTP client for calls to backend services.
+     * Keeps HTTP/1.1 connections alive in its pool, bounds connection set-up
+     * and runs async responses on a small dedicated pool instead of servlet
+     * threads.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient httpClient(
+            @Value("${api.client.connect-timeout-ms:500}") final long connectTimeoutMillis,
+            @Value("${api.client.threads:4}") final int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            final Thread thread = new Thread(runnable, "backend-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(executor)
+                .build();
     }
 }
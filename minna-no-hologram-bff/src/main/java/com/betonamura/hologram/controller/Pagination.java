@@ -1,5 +1,7 @@
 package com.betonamura.hologram.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,4 +16,6 @@ public class Pagination {
     private int pageSize;
     private int totalItems;
     private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor; // opaque cursor for the next page, null on the last page
 }
@@ -1,7 +1,5 @@
 package com.betonamura.hologram.controller.diy;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +13,7 @@ import com.betonamura.hologram.controller.ErrorResponse;
 import com.betonamura.hologram.controller.Pagination;
 import com.betonamura.hologram.domain.diy.DiyCard;
 import com.betonamura.hologram.domain.diy.DiyDetail;
+import com.betonamura.hologram.repository.page.PageResult;
 import com.betonamura.hologram.repository.diy.DiyRepository;
 
 import jakarta.validation.Valid;
@@ -48,10 +47,25 @@ public class DIYController {
         }
 
         // Search for DIYs using the repository
-        final List<DiyCard> diys = diyRepository.search(request.getOffset(), request.getLimit());
-        final Pagination pagination = new Pagination(request.getOffset(), request.getLimit(),
-                diys.size(), 1);
-        final DIYsResponse response = new DIYsResponse(diys, pagination);
+        final PageResult<DiyCard> page;
+        try {
+            page = diyRepository.searchPage(request.getOffset(), request.getLimit(), request.getCursor(),
+                    null, null);
+        } catch (IllegalArgumentException e) {
+            ErrorResponse errorResponse = new ErrorResponse(String.valueOf(HttpStatus.BAD_REQUEST.value()),
+                    e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        final int pageSize = request.getLimit();
+        final Pagination pagination = Pagination.builder()
+                .page(page.getStartIndex() / pageSize + 1)
+                .pageSize(pageSize)
+                .totalItems(page.getTotalItems())
+                .totalPages((int) Math.ceil((double) page.getTotalItems() / pageSize))
+                .nextCursor(page.getNextCursor())
+                .build();
+        final DIYsResponse response = new DIYsResponse(page.getItems(), pagination);
 
         return ResponseEntity.ok(response);
     }
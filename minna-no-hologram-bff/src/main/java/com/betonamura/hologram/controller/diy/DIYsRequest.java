@@ -15,4 +15,6 @@ public class DIYsRequest {
 
     @Range(min = 1, max = 50, message = ERR_MSG_LIMIT)
     private Integer limit = 10;
+
+    private String cursor; // opaque cursor from the previous page, optional
 }
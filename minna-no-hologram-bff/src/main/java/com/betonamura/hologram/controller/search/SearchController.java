@@ -1,7 +1,5 @@
 package com.betonamura.hologram.controller.search;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +14,7 @@ import com.betonamura.hologram.controller.ErrorResponse;
 import com.betonamura.hologram.domain.diy.DiyCard;
 import com.betonamura.hologram.domain.video.VideoCard;
 import com.betonamura.hologram.repository.diy.DiyRepository;
+import com.betonamura.hologram.repository.page.PageResult;
 import com.betonamura.hologram.repository.video.VideoRepository;
 
 import jakarta.validation.Valid;
@@ -53,8 +52,10 @@ public class SearchController {
         }
 
         // Search videos and DIYs
-        final List<VideoCard> videos = videoRepository.search(request.getOffset(), request.getLimit(), request.getP());
-        final List<DiyCard> diys = diyRepository.search(request.getOffset(), request.getLimit(), request.getP());
+        final PageResult<VideoCard> videos = videoRepository.searchPage(request.getOffset(), request.getLimit(),
+                null, request.getP(), null);
+        final PageResult<DiyCard> diys = diyRepository.searchPage(request.getOffset(), request.getLimit(),
+                null, request.getP(), null);
 
         final SearchResponse response = SearchResponseFactory.toSearchResponse(
                 request.getOffset(), request.getLimit(), request.getP(),
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 import com.betonamura.hologram.controller.Pagination;
 import com.betonamura.hologram.domain.diy.DiyCard;
 import com.betonamura.hologram.domain.video.VideoCard;
+import com.betonamura.hologram.repository.page.PageResult;
 
 @Component
 public class SearchResponseFactory {
@@ -17,10 +18,14 @@ public class SearchResponseFactory {
 
     /*
      * This method constructs a list of ContentItem objects,
-     * each representing either a Video or a Diy
+     * each representing either a Video or a Diy.
+     * Videos and DIYs are paged side by side, so the number of pages is set by
+     * the larger of the two totals.
      */
     public static SearchResponse toSearchResponse(final int offset, final int limit, final String query,
-            final List<VideoCard> videos, final List<DiyCard> diys) {
+            final PageResult<VideoCard> videoPage, final PageResult<DiyCard> diyPage) {
+        final List<VideoCard> videos = videoPage.getItems();
+        final List<DiyCard> diys = diyPage.getItems();
         final List<SearchResponse.ContentItem> results = new ArrayList<>();
         for (VideoCard v : videos) {
             results.add(SearchResponse.ContentItem.builder().type(TYPE_VIDEO).content(v).build());
@@ -29,10 +34,11 @@ public class SearchResponseFactory {
             results.add(SearchResponse.ContentItem.builder().type(TYPE_DIY).content(d).build());
         }
 
-        final int totalItems = videos.size() + diys.size();
+        final int totalItems = videoPage.getTotalItems() + diyPage.getTotalItems();
         final int pageSize = limit;
         final int page = (offset / pageSize) + 1;
-        final int totalPages = (int) Math.ceil((double) totalItems / pageSize);
+        final int totalPages = (int) Math.ceil(
+                (double) Math.max(videoPage.getTotalItems(), diyPage.getTotalItems()) / pageSize);
         return SearchResponse.builder()
                 .query(query)
                 .results(results)
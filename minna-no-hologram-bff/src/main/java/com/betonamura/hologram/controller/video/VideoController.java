@@ -1,7 +1,5 @@
 package com.betonamura.hologram.controller.video;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +12,7 @@ import com.betonamura.hologram.config.ApiConfig;
 import com.betonamura.hologram.controller.ErrorResponse;
 import com.betonamura.hologram.domain.video.VideoCard;
 import com.betonamura.hologram.domain.video.VideoDetail;
+import com.betonamura.hologram.repository.page.PageResult;
 import com.betonamura.hologram.repository.video.VideoRepository;
 
 import jakarta.validation.Valid;
@@ -49,13 +48,19 @@ public class VideoController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
 
-        // Search for videos
-        final List<VideoCard> videos = videoRepository.search(request.getOffset(), request.getLimit(),
-                request.getCategoryIds());
+        // Search for one page of videos
+        final PageResult<VideoCard> page;
+        try {
+            page = videoRepository.searchPage(request.getOffset(), request.getLimit(), request.getCursor(),
+                    null, request.getCategoryIds());
+        } catch (IllegalArgumentException e) {
+            ErrorResponse errorResponse = new ErrorResponse(String.valueOf(HttpStatus.BAD_REQUEST.value()),
+                    e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
 
         // Refactor the response creation
-        final VideosResponse response = videoResponseFactory.toVideosResponse(
-                request.getOffset(), request.getLimit(), 9999, videos);
+        final VideosResponse response = videoResponseFactory.toVideosResponse(request.getLimit(), page);
 
         return ResponseEntity.ok(response);
     }
@@ -1,38 +1,33 @@
 package com.betonamura.hologram.controller.video;
 
-import java.util.List;
-
 import org.springframework.stereotype.Component;
 
 import com.betonamura.hologram.controller.Pagination;
 import com.betonamura.hologram.domain.video.VideoCard;
+import com.betonamura.hologram.repository.page.PageResult;
 
 @Component
 public class VideoResponseFactory {
 
     /**
-     * Converts the provided parameters into a VideosResponse object.
+     * Converts one page of search results into a VideosResponse object.
      *
-     * @param offset     The offset for pagination.
-     * @param limit      The limit for pagination.
-     * @param totalCount The total count of items.
-     * @param videoCards The list of VideoCard objects to include in the response.
+     * @param limit The limit for pagination.
+     * @param page  The page of video cards with its total count and next cursor.
      * @return A VideosResponse object containing the video cards and pagination
      *         information.
      */
-    public VideosResponse toVideosResponse(final int offset, final int limit,
-            final int totalCount, final List<VideoCard> videoCards) {
-
-        final int totalItems = 9999;
+    public VideosResponse toVideosResponse(final int limit, final PageResult<VideoCard> page) {
         final int pageSize = limit;
-        final int page = (offset / pageSize) + 1;
-        final int totalPages = (int) Math.ceil((double) totalItems / pageSize);
+        final int totalCount = page.getTotalItems();
+        final int totalPages = (int) Math.ceil((double) totalCount / pageSize);
         final Pagination pagination = Pagination.builder()
-                .page(page)
+                .page((page.getStartIndex() / pageSize) + 1)
                 .pageSize(pageSize)
-                .totalItems(totalItems)
+                .totalItems(totalCount)
                 .totalPages(totalPages)
+                .nextCursor(page.getNextCursor())
                 .build();
-        return new VideosResponse(videoCards, pagination);
+        return new VideosResponse(page.getItems(), pagination);
     }
 }
@@ -24,6 +24,8 @@ public class VideosRequest {
     @Range(min = 1, max = 50, message = ERR_MSG_LIMIT)
     private Integer limit = 10;
 
+    private String cursor; // opaque cursor from the previous page, optional
+
     public List<String> getCategoryIds() {
         if (!StringUtils.hasText(categoryId))
             return Collections.emptyList();
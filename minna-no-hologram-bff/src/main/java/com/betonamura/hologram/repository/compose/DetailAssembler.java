@@ -0,0 +1,124 @@
+package com.betonamura.hologram.repository.compose;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Waits for the asynchronous lookups of a detail page under one deadline.
+ *
+ * Each lookup is a part with a fallback. All parts share one deadline, so a
+ * page waits about as long as its slowest lookup, never longer than the
+ * deadline. A part that fails, misses the deadline or comes back empty
+ * resolves to its fallback, and the page is served with partial results.
+ */
+@Slf4j
+@Component
+public class DetailAssembler {
+
+    private final long deadlineMillis;
+
+    public DetailAssembler(@Value("${api.detail.deadline-ms:800}") final long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Start assembling a detail page; the deadline starts now.
+     *
+     * @return A new assembly
+     */
+    public Assembly start() {
+        return new Assembly(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+    }
+
+    /**
+     * The lookups of one detail page.
+     */
+    public final class Assembly {
+        private final long deadlineNanos;
+        private final List<Part<?>> parts = new ArrayList<>();
+
+        private Assembly(final long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Add a lookup that is already running asynchronously.
+         *
+         * @param future   The running lookup
+         * @param fallback Value used if the lookup fails, is late or is empty
+         * @return The part holding the lookup's result
+         */
+        public <T> Part<T> attach(final CompletableFuture<T> future, final Supplier<T> fallback) {
+            final Part<T> part = new Part<>(future, fallback);
+            parts.add(part);
+            return part;
+        }
+
+        /**
+         * Wait for all parts, up to the deadline. Parts still running afterwards
+         * are cancelled and resolve to their fallback.
+         */
+        public void await() {
+            final CompletableFuture<?>[] futures = parts.stream()
+                    .map(part -> part.future)
+                    .toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.allOf(futures).get(Math.max(0, deadlineNanos - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Detail lookups missed the {} ms deadline, serving partial results", deadlineMillis);
+            } catch (ExecutionException e) {
+                // Failed parts resolve to their fallback
+                log.debug("Detail lookup failed: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Part<?> part : parts) {
+                if (!part.future.isDone()) {
+                    part.future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Result of one lookup.
+     */
+    public static final class Part<T> {
+        private final CompletableFuture<T> future;
+        private final Supplier<T> fallback;
+
+        private Part(final CompletableFuture<T> future, final Supplier<T> fallback) {
+            this.future = future;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Get the lookup's result, or its fallback if the lookup failed, was
+         * cancelled or returned an empty value. Never blocks once the assembly
+         * has been awaited.
+         *
+         * @return The result or fallback value
+         */
+        public T get() {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                final T value = future.getNow(null);
+                if (!ObjectUtils.isEmpty(value)) {
+                    return value;
+                }
+            }
+            return fallback.get();
+        }
+    }
+}
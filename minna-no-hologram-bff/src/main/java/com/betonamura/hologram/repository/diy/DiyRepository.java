@@ -1,18 +1,28 @@
 package com.betonamura.hologram.repository.diy;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
+import com.betonamura.hologram.domain.diy.DIYStep;
 import com.betonamura.hologram.domain.diy.DiyCard;
 import com.betonamura.hologram.domain.diy.DiyDetail;
+import com.betonamura.hologram.repository.compose.DetailAssembler;
+import com.betonamura.hologram.repository.diy.data.DiyCatalog;
 import com.betonamura.hologram.repository.diy.data.DiyData;
+import com.betonamura.hologram.repository.page.PageCursor;
+import com.betonamura.hologram.repository.page.PageResult;
+import com.betonamura.hologram.repository.page.Pages;
 import com.betonamura.hologram.repository.recommend.RecommendationRepository;
+import com.betonamura.hologram.repository.search.SearchDocument;
+import com.betonamura.hologram.repository.search.SearchIndex;
 
 /**
  * Repository for accessing DIY project data
@@ -21,11 +31,18 @@ import com.betonamura.hologram.repository.recommend.RecommendationRepository;
 public class DiyRepository {
 
         private final RecommendationRepository recommendationRepository;
+        private final DetailAssembler detailAssembler;
         private static final int DEFAULT_RELATED_DIYS = 2; // Default number of related DIYs
 
+        // Full-text index over the catalog, synced whenever the catalog snapshot changes
+        private final SearchIndex searchIndex = new SearchIndex();
+        private volatile DiyCatalog indexedCatalog;
+
         @Autowired
-        public DiyRepository(RecommendationRepository recommendationRepository) {
+        public DiyRepository(RecommendationRepository recommendationRepository,
+                        DetailAssembler detailAssembler) {
                 this.recommendationRepository = recommendationRepository;
+                this.detailAssembler = detailAssembler;
         }
 
         /**
@@ -74,40 +91,46 @@ public class DiyRepository {
          */
         public List<DiyCard> search(final int offset, final int limit,
                         final String query, final List<String> categoryIds) {
+                return searchPage(offset, limit, null, query, categoryIds).getItems();
+        }
 
-                // Fetch all DIY details
-                final List<DiyDetail> diys = DiyData.getDiysDetail();
-                List<DiyDetail> filtered = new ArrayList<>(diys);
-
-                // Apply category filter (via tags)
-                if (!ObjectUtils.isEmpty(categoryIds)) {
-                        filtered = filtered.stream()
-                                        .filter(d -> d.getTags().stream()
-                                                        .anyMatch(tag -> categoryIds.contains(tag.getId())))
-                                        .collect(Collectors.toList());
-                }
+        /**
+         * Searches for DIY projects and returns one page with the total number of
+         * matches. When a cursor is given the page starts right after the item it
+         * points to and the offset is ignored.
+         * 
+         * @param offset      The starting index, used when there is no cursor
+         * @param limit       The maximum number of results to return
+         * @param cursor      The cursor from the previous page (optional)
+         * @param query       The search keyword (optional)
+         * @param categoryIds List of category IDs to filter by (optional)
+         * @return The page of DIY cards
+         * @throws IllegalArgumentException if the cursor is not valid
+         */
+        public PageResult<DiyCard> searchPage(final int offset, final int limit, final String cursor,
+                        final String query, final List<String> categoryIds) {
 
-                // Apply query filter
-                if (query != null && !query.isBlank()) {
-                        String lowerQuery = query.toLowerCase();
-                        filtered = filtered.stream()
-                                        .filter(d -> d.getTitle().toLowerCase().contains(lowerQuery) ||
-                                                        d.getSummary().toLowerCase().contains(lowerQuery))
+                // Read one snapshot for the whole request
+                final DiyCatalog catalog = DiyData.getCatalog();
+                final int safeLimit = Math.max(1, limit);
+                final PageCursor after = StringUtils.hasText(cursor) ? PageCursor.decode(cursor) : null;
+
+                if (StringUtils.hasText(query)) {
+                        // Ranked full-text search, then apply category filter (via tags) on the hits
+                        final Set<String> categories = ObjectUtils.isEmpty(categoryIds) ? null
+                                        : new HashSet<>(categoryIds);
+                        final List<DiyDetail> ranked = searchIndex(catalog).search(query).stream()
+                                        .map(hit -> catalog.findById(hit.getId()))
+                                        .filter(d -> d != null && (categories == null || d.getTags().stream()
+                                                        .anyMatch(tag -> categories.contains(tag.getId()))))
                                         .collect(Collectors.toList());
+                        return Pages.rankedPage(ranked, DiyDetail::getId, d -> catalog.getCard(d.getId()), offset,
+                                        safeLimit, after);
                 }
 
-                // Apply pagination
-                int from = Math.max(0, offset);
-                int safeLimit = Math.max(1, limit);
-                int to = Math.min(filtered.size(), from + safeLimit);
-
-                if (from >= filtered.size()) {
-                        return Collections.emptyList();
-                }
-
-                return filtered.subList(from, to).stream()
-                                .map(DiyData::toDiyCard)
-                                .collect(Collectors.toList());
+                // Keyset pagination over the tag index
+                return Pages.keysetPage(catalog.listingByTags(categoryIds), catalog.getCards()::get, offset, safeLimit,
+                                after);
         }
 
         /**
@@ -117,20 +140,19 @@ public class DiyRepository {
          * @return the DiyDetail object if found, otherwise a default DIY
          */
         public DiyDetail getDiyDetail(final String slugId) {
-                // Fetch all DIY details
-                final List<DiyDetail> diys = DiyData.getDiysDetail();
-                final DiyDetail diyDetail = diys.stream()
-                                .filter(d -> d.getSlug().equalsIgnoreCase(slugId))
-                                .findFirst()
-                                .orElse(null);
+                // Look up the DIY through the slug index
+                final DiyDetail diyDetail = DiyData.getCatalog().findBySlug(slugId);
 
                 if (diyDetail == null) {
                         // Throw 404 Not Found if no DIY found
                         throw new IllegalArgumentException("DIY not found for slug: " + slugId);
                 }
 
-                // Get DIY ID for recommendations
-                final List<DiyCard> relatedDiys = getRelatedDiys(diyDetail.getId(), diyDetail.getTags().get(0).getId());
+                // Wait for the remote lookups under the page deadline
+                final DetailAssembler.Assembly assembly = detailAssembler.start();
+                final DetailAssembler.Part<List<DiyCard>> relatedDiys = getRelatedDiys(assembly,
+                                diyDetail.getId(), diyDetail.getTags().get(0).getId());
+                assembly.await();
 
                 // Create a new DiyDetail with updated related DIYs
                 return DiyDetail.builder()
@@ -146,21 +168,78 @@ public class DiyRepository {
                                 .likeCount(diyDetail.getLikeCount())
                                 .materials(diyDetail.getMaterials())
                                 .steps(diyDetail.getSteps())
-                                .relatedDIY(relatedDiys)
+                                .relatedDIY(relatedDiys.get())
                                 .createdAt(diyDetail.getCreatedAt())
                                 .build();
         }
 
-        private List<DiyCard> getRelatedDiys(final String currentId, final String tagId) {
-                // Get recommended DIYs from the recommendation service
-                List<DiyCard> relatedDiys = recommendationRepository.getRecommendedDiys(
-                                currentId, DEFAULT_RELATED_DIYS);
+        /**
+         * Get the search index, syncing it first if the catalog snapshot changed.
+         * Only new or changed DIYs are re-indexed.
+         *
+         * @param catalog the current catalog snapshot
+         * @return the up-to-date search index
+         */
+        private SearchIndex searchIndex(final DiyCatalog catalog) {
+                if (indexedCatalog != catalog) {
+                        synchronized (searchIndex) {
+                                if (indexedCatalog != catalog) {
+                                        searchIndex.sync(catalog.getDiys().stream()
+                                                        .map(DiyRepository::toSearchDocument)
+                                                        .collect(Collectors.toList()));
+                                        indexedCatalog = catalog;
+                                }
+                        }
+                }
+                return searchIndex;
+        }
+
+        /**
+         * Convert a DIY to a search document: title, summary, tags, materials and steps.
+         *
+         * @param diy the DIY detail
+         * @return the search document
+         */
+        private static SearchDocument toSearchDocument(final DiyDetail diy) {
+                final List<String> tags = new ArrayList<>();
+                if (diy.getTags() != null) {
+                        diy.getTags().forEach(tag -> tags.add(tag.getName()));
+                }
 
-                // If recommendation service fails, get DIYs with the same tags
-                if (ObjectUtils.isEmpty(relatedDiys)) {
-                        relatedDiys = DiyData.getDiysByTag(tagId, DEFAULT_RELATED_DIYS);
+                final List<String> body = new ArrayList<>();
+                if (diy.getMaterials() != null) {
+                        diy.getMaterials().forEach(material -> body.add(material.getName()));
+                }
+                if (diy.getSteps() != null) {
+                        for (DIYStep step : diy.getSteps()) {
+                                body.add(step.getTitle());
+                                body.add(step.getDescription());
+                        }
                 }
 
-                return relatedDiys;
+                return SearchDocument.builder()
+                                .id(diy.getId())
+                                .title(diy.getTitle())
+                                .summary(diy.getSummary())
+                                .tags(tags)
+                                .body(body)
+                                .build();
+        }
+
+        /**
+         * Add the related DIYs lookup for a given DIY ID to an assembly.
+         *
+         * @param assembly  the detail assembly
+         * @param currentId the ID of the current DIY
+         * @param tagId     the tag used for the local fallback
+         * @return the part resolving to a list of related DIY cards
+         */
+        private DetailAssembler.Part<List<DiyCard>> getRelatedDiys(final DetailAssembler.Assembly assembly,
+                        final String currentId, final String tagId) {
+                // Get recommended DIYs from the recommendation service;
+                // if it fails, is late or its circuit is open, get DIYs with the same tags
+                return assembly.attach(
+                                recommendationRepository.getRecommendedDiysAsync(currentId, DEFAULT_RELATED_DIYS),
+                                () -> DiyData.getDiysByTag(tagId, DEFAULT_RELATED_DIYS));
         }
 }
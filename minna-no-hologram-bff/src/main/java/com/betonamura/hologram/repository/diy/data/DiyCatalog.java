@@ -0,0 +1,283 @@
+package com.betonamura.hologram.repository.diy.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import com.betonamura.hologram.domain.diy.DiyCard;
+import com.betonamura.hologram.domain.diy.DiyDetail;
+import com.betonamura.hologram.domain.tag.Tag;
+import com.betonamura.hologram.repository.page.Pages;
+import com.betonamura.hologram.repository.search.PostingLists;
+
+/**
+ * Immutable, pre-indexed snapshot of the DIY catalog.
+ * Holds O(1) lookups by slug and ID and posting lists per tag.
+ * A snapshot is replaced as a whole on refresh and never mutated.
+ */
+public final class DiyCatalog {
+
+    private final List<DiyDetail> diys;
+    private final List<DiyCard> cards;
+    private final Map<String, Integer> positionById;
+    private final Map<String, Integer> positionBySlug;
+    private final Map<String, int[]> positionsByTag;
+
+    private DiyCatalog(final List<DiyDetail> diys) {
+        final List<DiyCard> cardList = new ArrayList<>(diys.size());
+        final Map<String, Integer> idIndex = new HashMap<>();
+        final Map<String, Integer> slugIndex = new HashMap<>();
+        final Map<String, List<Integer>> tagIndex = new HashMap<>();
+
+        for (int i = 0; i < diys.size(); i++) {
+            final DiyDetail diy = diys.get(i);
+            cardList.add(DiyData.toDiyCard(diy));
+            idIndex.putIfAbsent(diy.getId(), i);
+            // Slugs are matched case-insensitively; the first DIY wins on duplicates
+            slugIndex.putIfAbsent(diy.getSlug().toLowerCase(), i);
+
+            if (diy.getTags() != null) {
+                final Set<String> seen = new LinkedHashSet<>();
+                for (Tag tag : diy.getTags()) {
+                    if (seen.add(tag.getId())) {
+                        tagIndex.computeIfAbsent(tag.getId(), k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+        }
+
+        this.diys = List.copyOf(diys);
+        this.cards = List.copyOf(cardList);
+        this.positionById = Map.copyOf(idIndex);
+        this.positionBySlug = Map.copyOf(slugIndex);
+        this.positionsByTag = toPostingLists(tagIndex);
+    }
+
+    /**
+     * Build a snapshot from the given DIYs, keeping their order.
+     *
+     * @param diys The detailed DIY records
+     * @return A new immutable catalog
+     */
+    public static DiyCatalog of(final List<DiyDetail> diys) {
+        return new DiyCatalog(diys);
+    }
+
+    /**
+     * All DIYs in catalog order.
+     */
+    public List<DiyDetail> getDiys() {
+        return diys;
+    }
+
+    /**
+     * Card representation of all DIYs, in catalog order.
+     */
+    public List<DiyCard> getCards() {
+        return cards;
+    }
+
+    /**
+     * Number of DIYs in the snapshot.
+     */
+    public int size() {
+        return diys.size();
+    }
+
+    /**
+     * Find a DIY by its ID.
+     *
+     * @param id The DIY ID
+     * @return The DIY detail if found, otherwise null
+     */
+    public DiyDetail findById(final String id) {
+        final Integer position = id == null ? null : positionById.get(id);
+        return position == null ? null : diys.get(position);
+    }
+
+    /**
+     * Find a DIY by its slug, ignoring case.
+     *
+     * @param slug The slug identifier of the DIY
+     * @return The DIY detail if found, otherwise null
+     */
+    public DiyDetail findBySlug(final String slug) {
+        if (!StringUtils.hasText(slug)) {
+            return null;
+        }
+        final Integer position = positionBySlug.get(slug.toLowerCase());
+        return position == null ? null : diys.get(position);
+    }
+
+    /**
+     * Get the precomputed card for a DIY.
+     *
+     * @param id The DIY ID
+     * @return The DIY card if found, otherwise null
+     */
+    public DiyCard getCard(final String id) {
+        final Integer position = id == null ? null : positionById.get(id);
+        return position == null ? null : cards.get(position);
+    }
+
+    /**
+     * Get the position of a DIY in catalog order.
+     *
+     * @param id The DIY ID
+     * @return The zero-based position, or -1 if the DIY is unknown
+     */
+    public int positionOf(final String id) {
+        final Integer position = id == null ? null : positionById.get(id);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Get all DIYs carrying the given tag, in catalog order.
+     *
+     * @param tagId The tag ID
+     * @return The tagged DIYs, empty if none
+     */
+    public List<DiyDetail> findByTag(final String tagId) {
+        return resolve(tagId == null ? null : positionsByTag.get(tagId));
+    }
+
+    /**
+     * Get all DIYs carrying any of the given tags, in catalog order.
+     *
+     * @param tagIds The tag IDs; an empty collection matches every DIY
+     * @return The matching DIYs
+     */
+    public List<DiyDetail> findByTags(final Collection<String> tagIds) {
+        if (ObjectUtils.isEmpty(tagIds)) {
+            return diys;
+        }
+
+        return resolve(PostingLists.union(postingLists(tagIds), -1, diys.size()));
+    }
+
+    /**
+     * Count the DIYs carrying any of the given tags.
+     *
+     * @param tagIds The tag IDs; an empty collection matches every DIY
+     * @return The number of matching DIYs
+     */
+    public int countByTags(final Collection<String> tagIds) {
+        return countByTags(tagIds, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Count the DIYs carrying any of the given tags, up to and including a
+     * catalog position. This is the rank of a position within the filtered
+     * listing, used to turn a cursor back into a page number.
+     *
+     * @param tagIds The tag IDs; an empty collection matches every DIY
+     * @param upTo   The inclusive catalog position
+     * @return The number of matching DIYs at or before the position
+     */
+    public int countByTags(final Collection<String> tagIds, final int upTo) {
+        if (ObjectUtils.isEmpty(tagIds)) {
+            return (int) Math.max(0, Math.min(diys.size(), (long) upTo + 1));
+        }
+        return PostingLists.unionCount(postingLists(tagIds), upTo);
+    }
+
+    /**
+     * Get the catalog positions of the next DIYs carrying any of the given
+     * tags, after a position. Seeks directly into the posting lists, so deep
+     * pages cost the same as the first one.
+     *
+     * @param tagIds The tag IDs; an empty collection matches every DIY
+     * @param after  The catalog position to start after; -1 starts from the beginning
+     * @param limit  Maximum number of positions to return
+     * @return The matching positions in catalog order
+     */
+    public int[] nextByTags(final Collection<String> tagIds, final int after, final int limit) {
+        if (ObjectUtils.isEmpty(tagIds)) {
+            final int from = Math.max(0, after + 1);
+            final int to = (int) Math.min(diys.size(), (long) from + Math.max(0, limit));
+            final int[] positions = new int[Math.max(0, to - from)];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = from + i;
+            }
+            return positions;
+        }
+        return PostingLists.union(postingLists(tagIds), after, limit);
+    }
+
+    /**
+     * Get the DIY at a catalog position.
+     *
+     * @param position The zero-based catalog position
+     * @return The DIY detail
+     */
+    public DiyDetail get(final int position) {
+        return diys.get(position);
+    }
+
+    /**
+     * View the DIYs carrying any of the given tags as a pageable listing.
+     *
+     * @param tagIds The tag IDs; an empty collection matches every DIY
+     * @return The filtered listing
+     */
+    public Pages.Listing listingByTags(final Collection<String> tagIds) {
+        return new Pages.Listing() {
+            @Override
+            public int count(final int upTo) {
+                return countByTags(tagIds, upTo);
+            }
+
+            @Override
+            public int[] next(final int after, final int limit) {
+                return nextByTags(tagIds, after, limit);
+            }
+
+            @Override
+            public int positionOf(final String id) {
+                return DiyCatalog.this.positionOf(id);
+            }
+
+            @Override
+            public String idAt(final int position) {
+                return diys.get(position).getId();
+            }
+        };
+    }
+
+    private List<int[]> postingLists(final Collection<String> tagIds) {
+        final List<int[]> lists = new ArrayList<>();
+        for (String tagId : new LinkedHashSet<>(tagIds)) {
+            final int[] postings = tagId == null ? null : positionsByTag.get(tagId);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+        return lists;
+    }
+
+    private List<DiyDetail> resolve(final int[] postings) {
+        if (postings == null) {
+            return Collections.emptyList();
+        }
+        final List<DiyDetail> result = new ArrayList<>(postings.length);
+        for (int position : postings) {
+            result.add(diys.get(position));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static Map<String, int[]> toPostingLists(final Map<String, List<Integer>> index) {
+        final Map<String, int[]> postingLists = new HashMap<>();
+        index.forEach((key, positions) -> postingLists.put(key,
+                positions.stream().mapToInt(Integer::intValue).toArray()));
+        return Map.copyOf(postingLists);
+    }
+}
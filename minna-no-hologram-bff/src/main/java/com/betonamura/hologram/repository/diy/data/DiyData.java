@@ -4,6 +4,7 @@ import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.springframework.util.StringUtils;
@@ -142,13 +143,35 @@ public class DiyData {
             "Build a Smartphone Pyramid Hologram Projector",
             "How to Create a 3D Hologram Video");
 
+    // Catalog snapshot, built once when the class is loaded and swapped on refresh.
+    // Declared after the data sets above so they are initialized first.
+    private static final AtomicReference<DiyCatalog> catalog = new AtomicReference<>(
+            DiyCatalog.of(createHologramProjectorDiys()));
+
+    /**
+     * Get the current catalog snapshot
+     * 
+     * @return The immutable, indexed DIY catalog
+     */
+    public static DiyCatalog getCatalog() {
+        return catalog.get();
+    }
+
     /**
-     * Create detailed records for all DIYs
+     * Rebuild the catalog and atomically replace the current snapshot.
+     * Readers keep using the previous snapshot until the new one is ready.
+     */
+    public static void refresh() {
+        catalog.set(DiyCatalog.of(createHologramProjectorDiys()));
+    }
+
+    /**
+     * Get detailed records for all DIYs
      * 
-     * @return List of detailed DIY records
+     * @return Immutable list of detailed DIY records
      */
     public static List<DiyDetail> getDiysDetail() {
-        return createHologramProjectorDiys();
+        return getCatalog().getDiys();
     }
 
     /**
@@ -159,12 +182,9 @@ public class DiyData {
      * @return List of DiyCard objects
      */
     public static List<DiyCard> getDiyCards(int maxCount) {
-        final List<DiyDetail> diys = getDiysDetail();
-        int countToReturn = Math.min(maxCount, diys.size());
-        return diys.stream()
-                .limit(countToReturn)
-                .map(DiyData::toDiyCard)
-                .collect(Collectors.toList());
+        final List<DiyCard> cards = getCatalog().getCards();
+        int countToReturn = Math.max(0, Math.min(maxCount, cards.size()));
+        return new ArrayList<>(cards.subList(0, countToReturn));
     }
 
     /**
@@ -179,13 +199,10 @@ public class DiyData {
             return getDiyCards(limit);
         }
 
-        final List<DiyDetail> diys = getDiysDetail();
-        return diys.stream()
-                .filter(d -> d.getTags().stream()
-                        .anyMatch(tag -> tag.getId().equals(tagId)))
-
+        final DiyCatalog snapshot = getCatalog();
+        return snapshot.findByTag(tagId).stream()
                 .limit(limit)
-                .map(DiyData::toDiyCard)
+                .map(d -> snapshot.getCard(d.getId()))
                 .collect(Collectors.toList());
     }
 
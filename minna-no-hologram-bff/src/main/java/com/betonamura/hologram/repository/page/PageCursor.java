@@ -0,0 +1,54 @@
+package com.betonamura.hologram.repository.page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Opaque keyset cursor: the position and ID of the last item of a page.
+ * The ID lets the next page resume after the same item even if the listing
+ * shifted; the position is used when the item no longer exists.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private int position;
+    private String id;
+
+    /**
+     * Encode the cursor as a URL-safe token.
+     *
+     * @return The opaque cursor string
+     */
+    public String encode() {
+        final String raw = position + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode()}.
+     *
+     * @param token The opaque cursor string
+     * @return The decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static PageCursor decode(final String token) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final int separator = raw.indexOf(SEPARATOR);
+            final int position = Integer.parseInt(raw.substring(0, separator));
+            final String id = raw.substring(separator + 1);
+            if (position < 0 || id.isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new PageCursor(position, id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.betonamura.hologram.repository.page;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a listing, with the total number of matches and a cursor to
+ * the next page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResult<T> {
+    private List<T> items;
+    private int totalItems; // all matches, not only this page
+    private int startIndex; // index of the first item among all matches
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,146 @@
+package com.betonamura.hologram.repository.page;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Builds pages of catalog listings, shared by the video and DIY repositories.
+ * Filtered listings are paged by keyset over catalog positions; ranked search
+ * results are paged by rank.
+ */
+public final class Pages {
+
+    private Pages() {
+    }
+
+    /**
+     * A filtered view of a catalog, in catalog order.
+     */
+    public interface Listing {
+
+        /**
+         * Count the matching items up to and including a catalog position.
+         *
+         * @param upTo The inclusive catalog position
+         * @return The number of matching items at or before the position
+         */
+        int count(int upTo);
+
+        /**
+         * Get the catalog positions of the next matching items after a position.
+         *
+         * @param after The catalog position to start after; -1 starts from the beginning
+         * @param limit Maximum number of positions to return
+         * @return The matching positions in catalog order
+         */
+        int[] next(int after, int limit);
+
+        /**
+         * Get the catalog position of an item.
+         *
+         * @param id The item ID
+         * @return The zero-based position, or -1 if the item is unknown
+         */
+        int positionOf(String id);
+
+        /**
+         * Get the ID of the item at a catalog position.
+         *
+         * @param position The zero-based catalog position
+         * @return The item ID
+         */
+        String idAt(int position);
+    }
+
+    /**
+     * Take one page of a filtered listing. With a cursor the page resumes right
+     * after the cursor's item, or after its old position if it was removed;
+     * otherwise the page starts at the offset.
+     *
+     * @param listing The filtered listing
+     * @param itemAt  Maps a catalog position to the page item
+     * @param offset  The starting index, used when there is no cursor
+     * @param limit   The page size
+     * @param after   The cursor of the previous page, or null
+     * @return The page
+     */
+    public static <T> PageResult<T> keysetPage(final Listing listing, final IntFunction<T> itemAt,
+            final int offset, final int limit, final PageCursor after) {
+        final int total = listing.count(Integer.MAX_VALUE);
+        final int startIndex;
+        final int[] positions;
+        if (after != null) {
+            final int relocated = listing.positionOf(after.getId());
+            final int last = relocated >= 0 ? relocated : after.getPosition();
+            startIndex = listing.count(last);
+            positions = listing.next(last, limit);
+        } else {
+            startIndex = Math.max(0, offset);
+            if (startIndex >= total) {
+                positions = new int[0];
+            } else {
+                final int[] skipped = listing.next(-1, startIndex);
+                final int last = skipped.length == 0 ? -1 : skipped[skipped.length - 1];
+                positions = listing.next(last, limit);
+            }
+        }
+
+        final List<T> items = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            items.add(itemAt.apply(position));
+        }
+        final boolean hasMore = positions.length > 0 && startIndex + positions.length < total;
+        final int lastPosition = positions.length == 0 ? -1 : positions[positions.length - 1];
+        return PageResult.<T>builder()
+                .items(items)
+                .totalItems(total)
+                .startIndex(startIndex)
+                .nextCursor(hasMore ? new PageCursor(lastPosition, listing.idAt(lastPosition)).encode() : null)
+                .build();
+    }
+
+    /**
+     * Take one page of ranked search results. Ranked cursors hold the rank of
+     * the last item; the item ID is checked so a page resumes after the same
+     * item even if the ranking shifted.
+     *
+     * @param ranked All matches, best first
+     * @param idOf   Gets the ID of a match
+     * @param itemOf Maps a match to the page item
+     * @param offset The starting index, used when there is no cursor
+     * @param limit  The page size
+     * @param after  The cursor of the previous page, or null
+     * @return The page
+     */
+    public static <D, T> PageResult<T> rankedPage(final List<D> ranked, final Function<D, String> idOf,
+            final Function<D, T> itemOf, final int offset, final int limit, final PageCursor after) {
+        int from = Math.max(0, offset);
+        if (after != null) {
+            from = after.getPosition() + 1;
+            if (from > ranked.size() || !idOf.apply(ranked.get(from - 1)).equals(after.getId())) {
+                for (int i = 0; i < ranked.size(); i++) {
+                    if (idOf.apply(ranked.get(i)).equals(after.getId())) {
+                        from = i + 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        final int to = (int) Math.min(ranked.size(), (long) from + limit);
+        final List<T> items = from >= to ? Collections.emptyList()
+                : ranked.subList(from, to).stream().map(itemOf).collect(Collectors.toList());
+        return PageResult.<T>builder()
+                .items(items)
+                .totalItems(ranked.size())
+                .startIndex(from)
+                .nextCursor(to < ranked.size() && from < to
+                        ? new PageCursor(to - 1, idOf.apply(ranked.get(to - 1))).encode()
+                        : null)
+                .build();
+    }
+}
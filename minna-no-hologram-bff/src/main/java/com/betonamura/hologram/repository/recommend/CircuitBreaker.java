@@ -0,0 +1,98 @@
+package com.betonamura.hologram.repository.recommend;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal circuit breaker for calls to the recommendation service.
+ *
+ * After a number of consecutive failures the circuit opens and calls are
+ * rejected without touching the network. Once the open period has elapsed a
+ * single trial call is let through: success closes the circuit, failure opens
+ * it again.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(final int failureThreshold, final long openDurationMillis) {
+        this(failureThreshold, openDurationMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(final int failureThreshold, final long openDurationMillis, final LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = Math.max(0, openDurationMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Ask for permission to make a call. A granted permission must be followed
+     * by exactly one call to {@link #onSuccess()}, {@link #onFailure()} or
+     * {@link #onIgnored()}.
+     *
+     * @return true if the call may proceed
+     */
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationMillis) {
+            state = State.HALF_OPEN;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Record a successful call.
+     */
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Record a failed call.
+     */
+    synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Give back a permission without recording an outcome, e.g. when the call
+     * was never made.
+     */
+    synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Current state of the circuit.
+     */
+    synchronized State getState() {
+        return state;
+    }
+}
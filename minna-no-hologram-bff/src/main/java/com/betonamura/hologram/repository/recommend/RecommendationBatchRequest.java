@@ -0,0 +1,27 @@
+package com.betonamura.hologram.repository.recommend;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationBatchRequest {
+    private String userId;
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String categoryId; // "video" or "diy"
+        private String currentId;
+        private int limit;
+    }
+}
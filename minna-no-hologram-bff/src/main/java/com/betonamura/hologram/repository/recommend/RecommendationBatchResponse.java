@@ -0,0 +1,35 @@
+package com.betonamura.hologram.repository.recommend;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationBatchResponse {
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String categoryId;
+        private String currentId;
+        private List<RecommendedContent> content;
+        private String error;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecommendedContent {
+        private String id;
+        private Double similarityScore;
+    }
+}
@@ -1,7 +1,11 @@
 package com.betonamura.hologram.repository.recommend;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.betonamura.hologram.domain.ContentType;
 import com.betonamura.hologram.domain.diy.DiyCard;
 import com.betonamura.hologram.domain.video.VideoCard;
 
@@ -28,4 +32,38 @@ public interface RecommendationRepository {
      * @return a list of recommended DIY cards, empty list if error
      */
     List<DiyCard> getRecommendedDiys(String currentId, int limit);
+
+    /**
+     * Get recommended videos for a given video ID without blocking the caller.
+     *
+     * @param currentId the ID of the video
+     * @param limit     the maximum number of recommendations to return
+     * @return a future of the recommended video cards; completes with an empty
+     *         list on error and never exceptionally
+     */
+    CompletableFuture<List<VideoCard>> getRecommendedVideosAsync(String currentId, int limit);
+
+    /**
+     * Get recommended DIY projects for a given video ID without blocking the
+     * caller.
+     *
+     * @param currentId the ID of the video
+     * @param limit     the maximum number of recommendations to return
+     * @return a future of the recommended DIY cards; completes with an empty
+     *         list on error and never exceptionally
+     */
+    CompletableFuture<List<DiyCard>> getRecommendedDiysAsync(String currentId, int limit);
+
+    /**
+     * Get recommended content IDs for many items in one round trip, e.g. to
+     * fill the related rails of a list of cards.
+     *
+     * @param contentType the type of the current items and of the recommendations
+     * @param currentIds  the IDs of the current items
+     * @param limit       the maximum number of recommendations per item
+     * @return a future of the recommended IDs keyed by current ID; completes with
+     *         an empty map on error and never exceptionally
+     */
+    CompletableFuture<Map<String, List<String>>> getRecommendedIdsBatch(ContentType contentType,
+            Collection<String> currentIds, int limit);
 }
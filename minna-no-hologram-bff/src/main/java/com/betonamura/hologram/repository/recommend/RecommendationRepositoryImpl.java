@@ -1,26 +1,48 @@
 package com.betonamura.hologram.repository.recommend;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.betonamura.hologram.domain.ContentType;
 import com.betonamura.hologram.domain.diy.DiyCard;
 import com.betonamura.hologram.domain.video.VideoCard;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Implementation of RecommendationRepository that calls the recommendation
  * service API to get content recommendations.
+ *
+ * Calls are asynchronous on a pooled HTTP client and bounded by a timeout.
+ * A bulkhead caps the number of calls in flight and a circuit breaker stops
+ * calling the service after repeated failures, so a slow or unavailable
+ * service cannot tie up BFF threads. Every failure resolves to an empty
+ * result, letting callers fall back to local data.
  */
 @Slf4j
 @Repository
@@ -38,75 +60,242 @@ public class RecommendationRepositoryImpl implements RecommendationRepository {
     @Value("${api.recommendation.path:/recommendations}")
     private String recommendationApiPath;
 
-    private final RestTemplate restTemplate;
+    @Value("${api.recommendation.batch-path:/v1/recommendations/batch}")
+    private String recommendationBatchApiPath;
+
+    @Value("${api.recommendation.timeout-ms:1500}")
+    private long timeoutMillis;
+
+    @Value("${api.recommendation.max-concurrent-requests:16}")
+    private int maxConcurrentRequests;
+
+    @Value("${api.recommendation.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${api.recommendation.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMillis;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    private URI apiUri;
+    private URI batchApiUri;
+    private Semaphore bulkhead;
+    private CircuitBreaker circuitBreaker;
 
     @Autowired
-    public RecommendationRepositoryImpl(final RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public RecommendationRepositoryImpl(final HttpClient httpClient, final ObjectMapper objectMapper) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        this.apiUri = toApiUri(recommendationApiPath);
+        this.batchApiUri = toApiUri(recommendationBatchApiPath);
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrentRequests));
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDurationMillis);
     }
 
     @Override
     public List<VideoCard> getRecommendedVideos(final String currentId, final int limit) {
-        final RecommendationResponse response = makeRecommendationRequest(currentId, ContentType.VIDEO, limit);
-        if (ObjectUtils.isEmpty(response)) {
-            log.debug("No video recommendations returned for videoId: {}", currentId);
-            return new ArrayList<>();
-        }
-
-        return response.getVideos();
+        return getRecommendedVideosAsync(currentId, limit).join();
     }
 
     @Override
     public List<DiyCard> getRecommendedDiys(final String currentId, final int limit) {
-        RecommendationResponse response = makeRecommendationRequest(currentId, ContentType.VIDEO, limit);
-        if (ObjectUtils.isEmpty(response) || ObjectUtils.isEmpty(response.getDiys())) {
-            log.debug("No DIY recommendations returned for videoId: {}", currentId);
-            return new ArrayList<>();
+        return getRecommendedDiysAsync(currentId, limit).join();
+    }
+
+    @Override
+    public CompletableFuture<List<VideoCard>> getRecommendedVideosAsync(final String currentId, final int limit) {
+        return makeRecommendationRequest(currentId, ContentType.VIDEO, limit).thenApply(response -> {
+            if (ObjectUtils.isEmpty(response) || ObjectUtils.isEmpty(response.getVideos())) {
+                log.debug("No video recommendations returned for videoId: {}", currentId);
+                return new ArrayList<>();
+            }
+            return response.getVideos();
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<DiyCard>> getRecommendedDiysAsync(final String currentId, final int limit) {
+        return makeRecommendationRequest(currentId, ContentType.VIDEO, limit).thenApply(response -> {
+            if (ObjectUtils.isEmpty(response) || ObjectUtils.isEmpty(response.getDiys())) {
+                log.debug("No DIY recommendations returned for videoId: {}", currentId);
+                return new ArrayList<>();
+            }
+            return response.getDiys();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, List<String>>> getRecommendedIdsBatch(final ContentType contentType,
+            final Collection<String> currentIds, final int limit) {
+        if (ObjectUtils.isEmpty(currentIds)) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+
+        final String categoryId = contentType.name().toLowerCase(Locale.ROOT);
+        final List<RecommendationBatchRequest.Item> items = new ArrayList<>();
+        for (String currentId : new LinkedHashSet<>(currentIds)) {
+            items.add(RecommendationBatchRequest.Item.builder()
+                    .categoryId(categoryId)
+                    .currentId(currentId)
+                    .limit(limit > 0 ? limit : DEFAULT_LIMIT)
+                    .build());
         }
-        return response.getDiys();
+        final RecommendationBatchRequest request = RecommendationBatchRequest.builder()
+                .userId(DEFAULT_USER_ID)
+                .items(items)
+                .build();
+
+        log.info("Making batch recommendation request to {} for {} {} items", batchApiUri, items.size(), contentType);
+        return post(batchApiUri, request, RecommendationBatchResponse.class, contentType, "batch")
+                .thenApply(response -> {
+                    if (ObjectUtils.isEmpty(response) || ObjectUtils.isEmpty(response.getResults())) {
+                        log.debug("No batch recommendations returned for {} items", items.size());
+                        return Collections.<String, List<String>>emptyMap();
+                    }
+                    final Map<String, List<String>> idsByCurrentId = new LinkedHashMap<>();
+                    for (RecommendationBatchResponse.Result result : response.getResults()) {
+                        // Items the service could not answer are left out, as after any other error
+                        if (result.getError() != null || result.getCurrentId() == null) {
+                            log.debug("No batch recommendations for {}: {}", result.getCurrentId(), result.getError());
+                            continue;
+                        }
+                        final List<String> ids = new ArrayList<>();
+                        if (result.getContent() != null) {
+                            result.getContent().forEach(content -> ids.add(content.getId()));
+                        }
+                        idsByCurrentId.put(result.getCurrentId(), ids);
+                    }
+                    return idsByCurrentId;
+                });
     }
 
     /**
-     * Makes a recommendation API request and returns the response
-     * 
+     * Makes a recommendation API request without blocking the caller.
+     *
      * @param contentId   ID of the content to get recommendations for
      * @param contentType Type of content (VIDEO or DIY)
      * @param limit       Maximum number of recommendations to return
-     * @return The API response or null if there was an error
+     * @return A future of the API response, completing with null if there was
+     *         an error, the call timed out or it was rejected
      */
-    private RecommendationResponse makeRecommendationRequest(final String contentId,
+    private CompletableFuture<RecommendationResponse> makeRecommendationRequest(final String contentId,
             final ContentType contentType, final int limit) {
+        final RecommendationRequest request = RecommendationRequest.builder()
+                .contentId(contentId)
+                .contentType(contentType)
+                .userId(DEFAULT_USER_ID)
+                .limit(limit > 0 ? limit : DEFAULT_LIMIT)
+                .build();
+
+        log.info("Making recommendation request to {} for {} with ID {}", apiUri, contentType, contentId);
+        return post(apiUri, request, RecommendationResponse.class, contentType, contentId);
+    }
+
+    /**
+     * POST a JSON body to the recommendation API, guarded by the bulkhead, the
+     * circuit breaker and the timeout.
+     *
+     * @param uri          The endpoint
+     * @param body         The request body
+     * @param responseType The response body type
+     * @param contentType  Type of content, for logging
+     * @param contentId    ID of the content, for logging
+     * @return A future of the response body, completing with null if there was
+     *         an error, the call timed out or it was rejected
+     */
+    private <T> CompletableFuture<T> post(final URI uri, final Object body, final Class<T> responseType,
+            final ContentType contentType, final String contentId) {
+        // Bulkhead first, so a rejected call never holds the circuit's trial slot
+        if (!bulkhead.tryAcquire()) {
+            log.warn("Too many concurrent recommendation requests, skipping {} with ID {}", contentType, contentId);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            log.debug("Recommendation circuit is open, skipping {} with ID {}", contentType, contentId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final HttpRequest httpRequest;
         try {
-            String apiUrl = UriComponentsBuilder.newInstance()
-                    .scheme("http")
-                    .host(recommendationApiHost)
-                    .port(recommendationApiPort)
-                    .path(recommendationApiPath)
-                    .toUriString();
-            log.info("Making recommendation request to {} for {} with ID {}", apiUrl, contentType, contentId);
-
-            final RecommendationRequest request = RecommendationRequest.builder()
-                    .contentId(contentId)
-                    .contentType(contentType)
-                    .userId(DEFAULT_USER_ID)
-                    .limit(limit > 0 ? limit : DEFAULT_LIMIT)
+            httpRequest = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
                     .build();
+        } catch (Exception ex) {
+            bulkhead.release();
+            circuitBreaker.onIgnored();
+            log.warn("Error building recommendation request: {}", ex.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
 
-            final ResponseEntity<RecommendationResponse> response = restTemplate.postForEntity(
-                    apiUrl, request, RecommendationResponse.class);
+        final CompletableFuture<HttpResponse<byte[]>> exchange =
+                httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        // The permit is held until the exchange itself ends, not just our wait for it
+        exchange.whenComplete((response, ex) -> bulkhead.release());
+        return exchange.copy()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((response, ex) -> {
+                    if (ex != null) {
+                        // Abort the exchange on timeout, which also frees its permit
+                        exchange.cancel(true);
+                        circuitBreaker.onFailure();
+                        log.warn("Error making recommendation request: {}", ex.toString());
+                        return null;
+                    }
+                    return readResponse(response, responseType, contentType, contentId);
+                });
+    }
 
-            if (ObjectUtils.isEmpty(response) || !response.getStatusCode().is2xxSuccessful()
-                    || ObjectUtils.isEmpty(response.getBody())) {
-                log.warn("Unsuccessful response from recommendation API: {} for content type: {} and ID: {}",
-                        response != null ? response.getStatusCode() : "null", contentType, contentId);
-                return null;
+    /**
+     * Read the API response and record its outcome on the circuit breaker.
+     * Server errors and unreadable bodies count as failures; client errors do
+     * not, since the service itself is healthy.
+     */
+    private <T> T readResponse(final HttpResponse<byte[]> response, final Class<T> responseType,
+            final ContentType contentType, final String contentId) {
+        final int status = response.statusCode();
+        if (status >= 500) {
+            circuitBreaker.onFailure();
+        }
+        if (status < 200 || status >= 300 || ObjectUtils.isEmpty(response.body())) {
+            if (status < 500) {
+                circuitBreaker.onSuccess();
             }
+            log.warn("Unsuccessful response from recommendation API: {} for content type: {} and ID: {}",
+                    status, contentType, contentId);
+            return null;
+        }
 
-            // Return the body of the response
-            return response.getBody();
-        } catch (RestClientException ex) {
-            log.warn("Error making recommendation request: {}", ex.getMessage());
+        try {
+            final T body = objectMapper.readValue(response.body(), responseType);
+            circuitBreaker.onSuccess();
+            return body;
+        } catch (Exception ex) {
+            circuitBreaker.onFailure();
+            log.warn("Unreadable response from recommendation API: {}", ex.getMessage());
             return null;
         }
     }
+
+    private URI toApiUri(final String path) {
+        // The host may carry a scheme, e.g. https://recommend.internal; http is the default
+        final UriComponents host = UriComponentsBuilder.fromUriString(
+                recommendationApiHost.contains("://") ? recommendationApiHost : "http://" + recommendationApiHost)
+                .build();
+        return UriComponentsBuilder.newInstance()
+                .scheme(host.getScheme())
+                .host(host.getHost())
+                .port(recommendationApiPort)
+                .path(path)
+                .build()
+                .toUri();
+    }
 }
@@ -0,0 +1,112 @@
+package com.betonamura.hologram.repository.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operations on posting lists: sorted int arrays of catalog positions.
+ * Used for keyset pagination, where a page starts right after the last
+ * position returned, found by binary search instead of skipping items.
+ */
+public final class PostingLists {
+
+    private PostingLists() {
+    }
+
+    /**
+     * Find the index of the first posting strictly after the given position.
+     *
+     * @param postings Sorted catalog positions
+     * @param after    The position to seek past; -1 seeks to the start
+     * @return The index of the first posting greater than {@code after}
+     */
+    public static int seek(final int[] postings, final int after) {
+        int low = 0;
+        int high = postings.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (postings[mid] <= after) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Take the next positions of the union of several posting lists, in
+     * ascending order and without duplicates.
+     *
+     * @param lists The posting lists
+     * @param after The position to seek past; -1 starts from the beginning
+     * @param limit Maximum number of positions to return
+     * @return Up to {@code limit} positions greater than {@code after}
+     */
+    public static int[] union(final List<int[]> lists, final int after, final int limit) {
+        final int[] cursors = new int[lists.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = seek(lists.get(i), after);
+        }
+
+        final int[] result = new int[Math.max(0, limit)];
+        int count = 0;
+        while (count < result.length) {
+            // Smallest head across lists (the number of lists is small)
+            int next = Integer.MAX_VALUE;
+            for (int i = 0; i < cursors.length; i++) {
+                final int[] list = lists.get(i);
+                if (cursors[i] < list.length && list[cursors[i]] < next) {
+                    next = list[cursors[i]];
+                }
+            }
+            if (next == Integer.MAX_VALUE) {
+                break;
+            }
+            for (int i = 0; i < cursors.length; i++) {
+                final int[] list = lists.get(i);
+                if (cursors[i] < list.length && list[cursors[i]] == next) {
+                    cursors[i]++;
+                }
+            }
+            result[count++] = next;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Count the distinct positions in the union of several posting lists that
+     * are at most the given position.
+     *
+     * @param lists The posting lists
+     * @param upTo  The inclusive upper bound; {@code Integer.MAX_VALUE} counts everything
+     * @return The number of distinct positions
+     */
+    public static int unionCount(final List<int[]> lists, final int upTo) {
+        if (lists.size() == 1) {
+            return seek(lists.get(0), upTo);
+        }
+
+        final int[] cursors = new int[lists.size()];
+        int count = 0;
+        while (true) {
+            int next = Integer.MAX_VALUE;
+            for (int i = 0; i < cursors.length; i++) {
+                final int[] list = lists.get(i);
+                if (cursors[i] < list.length && list[cursors[i]] < next) {
+                    next = list[cursors[i]];
+                }
+            }
+            if (next == Integer.MAX_VALUE || next > upTo) {
+                return count;
+            }
+            for (int i = 0; i < cursors.length; i++) {
+                final int[] list = lists.get(i);
+                if (cursors[i] < list.length && list[cursors[i]] == next) {
+                    cursors[i]++;
+                }
+            }
+            count++;
+        }
+    }
+}
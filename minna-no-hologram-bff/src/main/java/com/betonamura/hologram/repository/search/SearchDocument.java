@@ -0,0 +1,24 @@
+package com.betonamura.hologram.repository.search;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A piece of content as seen by the search index.
+ * Each field is weighted differently when scoring.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchDocument {
+    private String id;
+    private String title;
+    private String summary;
+    private List<String> tags;
+    private List<String> body; // QA content, steps, materials, etc.
+}
@@ -0,0 +1,16 @@
+package com.betonamura.hologram.repository.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A matching document and its relevance score.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    private String id;
+    private double score;
+}
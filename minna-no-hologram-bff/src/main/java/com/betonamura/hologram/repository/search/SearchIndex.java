@@ -0,0 +1,317 @@
+package com.betonamura.hologram.repository.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * In-process inverted index with BM25 scoring.
+ *
+ * Documents are tokenized per field and each field contributes a weighted
+ * term frequency (title and tags count more than the summary or body).
+ * Queries match every token either exactly or as a prefix, so results are
+ * found in time proportional to the matching postings rather than the size
+ * of the catalog. Documents can be added, replaced and removed one by one.
+ */
+public class SearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field weights
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float TAG_WEIGHT = 2.0f;
+    private static final float SUMMARY_WEIGHT = 1.0f;
+    private static final float BODY_WEIGHT = 0.5f;
+
+    // Prefix expansion: a prefix match scores less than an exact match and
+    // expands to a bounded number of terms, the most frequent ones first
+    private static final double PREFIX_MATCH_WEIGHT = 0.6;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final NavigableMap<String, Map<IndexedDocument, Float>> postings = new TreeMap<>();
+    private final Map<String, IndexedDocument> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private double totalLength;
+    private long nextOrder;
+
+    /**
+     * Add a document, or replace it if a document with the same ID is indexed.
+     *
+     * @param document The document to index
+     */
+    public void upsert(final SearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            upsertLocked(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document from the index.
+     *
+     * @param id The document ID
+     * @return true if the document was indexed
+     */
+    public boolean remove(final String id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bring the index in line with the given documents.
+     * Only new or changed documents are re-tokenized, and documents that are
+     * no longer present are removed.
+     *
+     * @param latest The full, current set of documents
+     */
+    public void sync(final Collection<SearchDocument> latest) {
+        lock.writeLock().lock();
+        try {
+            final Set<String> latestIds = new HashSet<>();
+            for (SearchDocument document : latest) {
+                latestIds.add(document.getId());
+                final IndexedDocument existing = documents.get(document.getId());
+                if (existing == null || !existing.source.equals(document)) {
+                    upsertLocked(document);
+                }
+            }
+            for (String id : new ArrayList<>(documents.keySet())) {
+                if (!latestIds.contains(id)) {
+                    removeLocked(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search the index.
+     * Every query token must match a document, exactly or as a prefix.
+     *
+     * @param query The free-text query
+     * @return Matching documents ordered by descending score, ties in indexing order
+     */
+    public List<SearchHit> search(final String query) {
+        final Set<String> tokens = new LinkedHashSet<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final double avgLength = Math.max(1.0, totalLength / documents.size());
+
+            Map<IndexedDocument, Double> scores = null;
+            for (String token : tokens) {
+                final Map<IndexedDocument, Double> tokenScores = scoreToken(token, avgLength);
+                if (tokenScores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((doc, score) -> score + tokenScores.get(doc));
+                    if (scores.isEmpty()) {
+                        return Collections.emptyList();
+                    }
+                }
+            }
+
+            final List<Map.Entry<IndexedDocument, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                final int byScore = Double.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : Long.compare(a.getKey().order, b.getKey().order);
+            });
+
+            final List<SearchHit> hits = new ArrayList<>(ranked.size());
+            for (Map.Entry<IndexedDocument, Double> entry : ranked) {
+                hits.add(new SearchHit(entry.getKey().id, entry.getValue()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed documents.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Split text into normalized tokens: accents are stripped, text is
+     * lowercased and split on anything that is not a letter or a digit.
+     *
+     * @param text The text to tokenize
+     * @return The tokens in order of appearance
+     */
+    public static List<String> tokenize(final String text) {
+        if (!StringUtils.hasText(text)) {
+            return Collections.emptyList();
+        }
+        final String normalized = COMBINING_MARKS
+                .matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        final List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Map<IndexedDocument, Double> scoreToken(final String token, final double avgLength) {
+        final Map<IndexedDocument, Double> scores = new HashMap<>();
+
+        final Map<IndexedDocument, Float> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(scores, exact, 1.0, avgLength);
+        }
+
+        final List<Map<IndexedDocument, Float>> expansions = new ArrayList<>(postings
+                .subMap(token, false, token + Character.MAX_VALUE, false).values());
+        if (expansions.size() > MAX_PREFIX_EXPANSIONS) {
+            // Keep the terms found in the most documents, not the first ones in lexical order
+            expansions.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        }
+        for (Map<IndexedDocument, Float> termPostings : expansions.subList(0,
+                Math.min(expansions.size(), MAX_PREFIX_EXPANSIONS))) {
+            accumulate(scores, termPostings, PREFIX_MATCH_WEIGHT, avgLength);
+        }
+        return scores;
+    }
+
+    /**
+     * Score one term's postings; a document matching several expansions of
+     * the same query token keeps its best score.
+     */
+    private void accumulate(final Map<IndexedDocument, Double> scores, final Map<IndexedDocument, Float> termPostings,
+            final double matchWeight, final double avgLength) {
+        final int df = termPostings.size();
+        final double idf = Math.log(1.0 + (documents.size() - df + 0.5) / (df + 0.5));
+
+        for (Map.Entry<IndexedDocument, Float> posting : termPostings.entrySet()) {
+            final double tf = posting.getValue();
+            final double norm = K1 * (1.0 - B + B * posting.getKey().length / avgLength);
+            final double score = matchWeight * idf * (tf * (K1 + 1.0)) / (tf + norm);
+            scores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private void upsertLocked(final SearchDocument document) {
+        final IndexedDocument previous = documents.get(document.getId());
+        final long order = previous != null ? previous.order : nextOrder++;
+        if (previous != null) {
+            removeLocked(document.getId());
+        }
+
+        final Map<String, Float> termWeights = new HashMap<>();
+        float length = 0;
+        length += addField(termWeights, document.getTitle(), TITLE_WEIGHT);
+        length += addField(termWeights, document.getSummary(), SUMMARY_WEIGHT);
+        if (document.getTags() != null) {
+            for (String tag : document.getTags()) {
+                length += addField(termWeights, tag, TAG_WEIGHT);
+            }
+        }
+        if (document.getBody() != null) {
+            for (String text : document.getBody()) {
+                length += addField(termWeights, text, BODY_WEIGHT);
+            }
+        }
+
+        final IndexedDocument indexed = new IndexedDocument(document.getId(), order, length,
+                termWeights.keySet(), document);
+        documents.put(document.getId(), indexed);
+        totalLength += length;
+        termWeights.forEach((term, weight) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(indexed, weight));
+    }
+
+    private boolean removeLocked(final String id) {
+        final IndexedDocument indexed = documents.remove(id);
+        if (indexed == null) {
+            return false;
+        }
+        totalLength -= indexed.length;
+        for (String term : indexed.terms) {
+            final Map<IndexedDocument, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(indexed);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static float addField(final Map<String, Float> termWeights, final String text, final float weight) {
+        final List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termWeights.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    /**
+     * Per-document bookkeeping. Compared by identity so a replaced document
+     * never collides with its previous postings.
+     */
+    private static final class IndexedDocument {
+        private final String id;
+        private final long order;
+        private final float length;
+        private final Set<String> terms;
+        private final SearchDocument source; // compared on sync to detect changes
+
+        private IndexedDocument(final String id, final long order, final float length,
+                final Set<String> terms, final SearchDocument source) {
+            this.id = id;
+            this.order = order;
+            this.length = length;
+            this.terms = terms;
+            this.source = source;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.betonamura.hologram.repository.video;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +13,15 @@ import org.springframework.util.StringUtils;
 
 import com.betonamura.hologram.domain.video.VideoCard;
 import com.betonamura.hologram.domain.video.VideoDetail;
+import com.betonamura.hologram.domain.video.VideoQAItem;
+import com.betonamura.hologram.repository.compose.DetailAssembler;
+import com.betonamura.hologram.repository.page.PageCursor;
+import com.betonamura.hologram.repository.page.PageResult;
+import com.betonamura.hologram.repository.page.Pages;
 import com.betonamura.hologram.repository.recommend.RecommendationRepository;
+import com.betonamura.hologram.repository.search.SearchDocument;
+import com.betonamura.hologram.repository.search.SearchIndex;
+import com.betonamura.hologram.repository.video.data.VideoCatalog;
 import com.betonamura.hologram.repository.video.data.VideoData;
 
 /**
@@ -22,11 +31,18 @@ import com.betonamura.hologram.repository.video.data.VideoData;
 public class VideoRepository {
 
         private final RecommendationRepository recommendationRepository;
+        private final DetailAssembler detailAssembler;
         private static final int DEFAULT_RELATED_VIDEOS = 2; // Default number of related videos
 
+        // Full-text index over the catalog, synced whenever the catalog snapshot changes
+        private final SearchIndex searchIndex = new SearchIndex();
+        private volatile VideoCatalog indexedCatalog;
+
         @Autowired
-        public VideoRepository(RecommendationRepository recommendationRepository) {
+        public VideoRepository(RecommendationRepository recommendationRepository,
+                        DetailAssembler detailAssembler) {
                 this.recommendationRepository = recommendationRepository;
+                this.detailAssembler = detailAssembler;
         }
 
         /**
@@ -75,38 +91,45 @@ public class VideoRepository {
          */
         public List<VideoCard> search(final int offset, final int limit,
                         final String query, final List<String> categoryIds) {
-                // return VideoData.searchVideos(offset, limit, categoryIds, query);
-
-                final List<VideoDetail> allVideos = VideoData.getVideosDetail();
-                List<VideoDetail> filtered = new ArrayList<>(allVideos);
+                return searchPage(offset, limit, null, query, categoryIds).getItems();
+        }
 
-                // Apply category filter
-                if (!ObjectUtils.isEmpty(categoryIds)) {
-                        filtered = filtered.stream()
-                                        .filter(v -> categoryIds.contains(v.getCategory().getId()))
-                                        .collect(Collectors.toList());
-                }
+        /**
+         * Searches for videos and returns one page with the total number of matches.
+         * When a cursor is given the page starts right after the item it points to
+         * and the offset is ignored.
+         * 
+         * @param offset      The starting index, used when there is no cursor
+         * @param limit       The maximum number of results to return
+         * @param cursor      The cursor from the previous page (optional)
+         * @param query       The search keyword (optional)
+         * @param categoryIds List of category IDs to filter by (optional)
+         * @return The page of video cards
+         * @throws IllegalArgumentException if the cursor is not valid
+         */
+        public PageResult<VideoCard> searchPage(final int offset, final int limit, final String cursor,
+                        final String query, final List<String> categoryIds) {
+                // Read one snapshot for the whole request
+                final VideoCatalog catalog = VideoData.getCatalog();
+                final int safeLimit = Math.max(1, limit);
+                final PageCursor after = StringUtils.hasText(cursor) ? PageCursor.decode(cursor) : null;
 
-                // Apply query filter
                 if (StringUtils.hasText(query)) {
-                        String lowerQuery = query.toLowerCase();
-                        filtered = filtered.stream()
-                                        .filter(v -> v.getTitle().toLowerCase().contains(lowerQuery))
+                        // Ranked full-text search, then apply category filter on the hits
+                        final Set<String> categories = ObjectUtils.isEmpty(categoryIds) ? null
+                                        : new HashSet<>(categoryIds);
+                        final List<VideoDetail> ranked = searchIndex(catalog).search(query).stream()
+                                        .map(hit -> catalog.findById(hit.getId()))
+                                        .filter(v -> v != null && (categories == null
+                                                        || categories.contains(v.getCategory().getId())))
                                         .collect(Collectors.toList());
+                        return Pages.rankedPage(ranked, VideoDetail::getId, v -> catalog.getCard(v.getId()), offset,
+                                        safeLimit, after);
                 }
 
-                // Apply pagination
-                final int from = Math.max(0, offset);
-                final int safeLimit = Math.max(1, limit);
-                final int to = Math.min(filtered.size(), from + safeLimit);
-                if (from >= filtered.size()) {
-                        return Collections.emptyList();
-                }
-
-                // Result
-                return filtered.subList(from, to).stream()
-                                .map(VideoData::toVideoCard)
-                                .collect(Collectors.toList());
+                // Keyset pagination over the category index
+                return Pages.keysetPage(catalog.listingByCategories(categoryIds), catalog.getCards()::get, offset, safeLimit,
+                                after);
         }
 
         /**
@@ -123,9 +146,11 @@ public class VideoRepository {
                         throw new IllegalArgumentException("Video not found for slug: " + slugId);
                 }
 
-                // Get recommended videos from the recommendation service
-                List<VideoCard> relatedVideos = this.getRelatedVideos(videoDetail.getId(),
-                                videoDetail.getCategory().getId());
+                // Wait for the remote lookups under the page deadline
+                final DetailAssembler.Assembly assembly = detailAssembler.start();
+                final DetailAssembler.Part<List<VideoCard>> relatedVideos = this.getRelatedVideos(assembly,
+                                videoDetail.getId(), videoDetail.getCategory().getId());
+                assembly.await();
 
                 // Create a new VideoDetail with updated related videos
                 return VideoDetail.builder()
@@ -139,29 +164,74 @@ public class VideoRepository {
                                 .tags(videoDetail.getTags())
                                 .likeCount(videoDetail.getLikeCount())
                                 .qaContent(videoDetail.getQaContent())
-                                .relatedVideos(relatedVideos)
+                                .relatedVideos(relatedVideos.get())
                                 .createdAt(videoDetail.getCreatedAt())
                                 .build();
         }
 
         /**
-         * Get related videos for a given video ID.
+         * Get the search index, syncing it first if the catalog snapshot changed.
+         * Only new or changed videos are re-indexed.
          *
-         * @param currentId the ID of the current video
-         * @return a list of related video cards
+         * @param catalog the current catalog snapshot
+         * @return the up-to-date search index
          */
-        private List<VideoCard> getRelatedVideos(final String currentId, final String cagegoryId) {
-                // Get recommended videos from the recommendation service
-                // List<VideoCard> relatedVideos =
-                // recommendationRepository.getRecommendedVideos(
-                // currentId, DEFAULT_RELATED_VIDEOS);
+        private SearchIndex searchIndex(final VideoCatalog catalog) {
+                if (indexedCatalog != catalog) {
+                        synchronized (searchIndex) {
+                                if (indexedCatalog != catalog) {
+                                        searchIndex.sync(catalog.getVideos().stream()
+                                                        .map(VideoRepository::toSearchDocument)
+                                                        .collect(Collectors.toList()));
+                                        indexedCatalog = catalog;
+                                }
+                        }
+                }
+                return searchIndex;
+        }
 
-                List<VideoCard> relatedVideos = new ArrayList<>();
+        /**
+         * Convert a video to a search document: title, summary, tags and QA content.
+         *
+         * @param video the video detail
+         * @return the search document
+         */
+        private static SearchDocument toSearchDocument(final VideoDetail video) {
+                final List<String> tags = new ArrayList<>();
+                if (video.getTags() != null) {
+                        video.getTags().forEach(tag -> tags.add(tag.getName()));
+                }
 
-                // If recommendation service fails, get videos of the same category
-                if (ObjectUtils.isEmpty(relatedVideos)) {
-                        relatedVideos = VideoData.getVideosByCategory(currentId, cagegoryId, DEFAULT_RELATED_VIDEOS);
+                final List<String> body = new ArrayList<>();
+                if (video.getQaContent() != null) {
+                        for (VideoQAItem qa : video.getQaContent()) {
+                                body.add(qa.getQuestion());
+                                body.add(qa.getAnswer());
+                        }
                 }
-                return relatedVideos;
+
+                return SearchDocument.builder()
+                                .id(video.getId())
+                                .title(video.getTitle())
+                                .summary(video.getSummary())
+                                .tags(tags)
+                                .body(body)
+                                .build();
+        }
+
+        /**
+         * Add the related videos lookup for a given video ID to an assembly.
+         *
+         * @param assembly  the detail assembly
+         * @param currentId the ID of the current video
+         * @return the part resolving to a list of related video cards
+         */
+        private DetailAssembler.Part<List<VideoCard>> getRelatedVideos(final DetailAssembler.Assembly assembly,
+                        final String currentId, final String cagegoryId) {
+                // Get recommended videos from the recommendation service;
+                // if it fails, is late or its circuit is open, get videos of the same category
+                return assembly.attach(
+                                recommendationRepository.getRecommendedVideosAsync(currentId, DEFAULT_RELATED_VIDEOS),
+                                () -> VideoData.getVideosByCategory(currentId, cagegoryId, DEFAULT_RELATED_VIDEOS));
         }
 }
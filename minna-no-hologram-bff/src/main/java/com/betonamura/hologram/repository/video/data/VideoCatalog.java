@@ -0,0 +1,273 @@
+package com.betonamura.hologram.repository.video.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import com.betonamura.hologram.domain.video.VideoCard;
+import com.betonamura.hologram.domain.video.VideoDetail;
+import com.betonamura.hologram.repository.page.Pages;
+import com.betonamura.hologram.repository.search.PostingLists;
+
+/**
+ * Immutable, pre-indexed snapshot of the video catalog.
+ * A snapshot is built once and replaced as a whole on refresh, so readers
+ * never observe a partially built catalog.
+ */
+public final class VideoCatalog {
+
+    private final List<VideoDetail> videos;
+    private final List<VideoCard> cards;
+    private final Map<String, Integer> positionById;
+    private final Map<String, Integer> positionBySlug;
+    private final Map<String, int[]> positionsByCategory;
+
+    private VideoCatalog(final List<VideoDetail> videos) {
+        final List<VideoCard> cardList = new ArrayList<>(videos.size());
+        final Map<String, Integer> idIndex = new HashMap<>();
+        final Map<String, Integer> slugIndex = new HashMap<>();
+        final Map<String, List<Integer>> categoryIndex = new HashMap<>();
+
+        for (int i = 0; i < videos.size(); i++) {
+            final VideoDetail video = videos.get(i);
+            cardList.add(VideoData.toVideoCard(video));
+            idIndex.putIfAbsent(video.getId(), i);
+            // Slugs are matched case-insensitively; the first video wins on duplicates
+            slugIndex.putIfAbsent(video.getSlug().toLowerCase(), i);
+            if (video.getCategory() != null) {
+                categoryIndex.computeIfAbsent(video.getCategory().getId(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        final Map<String, int[]> postingLists = new HashMap<>();
+        categoryIndex.forEach((category, positions) -> postingLists.put(category,
+                positions.stream().mapToInt(Integer::intValue).toArray()));
+
+        this.videos = List.copyOf(videos);
+        this.cards = List.copyOf(cardList);
+        this.positionById = Map.copyOf(idIndex);
+        this.positionBySlug = Map.copyOf(slugIndex);
+        this.positionsByCategory = Map.copyOf(postingLists);
+    }
+
+    /**
+     * Build a snapshot from the given videos, keeping their order.
+     *
+     * @param videos The detailed video records
+     * @return A new immutable catalog
+     */
+    public static VideoCatalog of(final List<VideoDetail> videos) {
+        return new VideoCatalog(videos);
+    }
+
+    /**
+     * All videos in catalog order.
+     */
+    public List<VideoDetail> getVideos() {
+        return videos;
+    }
+
+    /**
+     * Card representation of all videos, in catalog order.
+     */
+    public List<VideoCard> getCards() {
+        return cards;
+    }
+
+    /**
+     * Number of videos in the snapshot.
+     */
+    public int size() {
+        return videos.size();
+    }
+
+    /**
+     * Find a video by its ID.
+     *
+     * @param id The video ID
+     * @return The video detail if found, otherwise null
+     */
+    public VideoDetail findById(final String id) {
+        final Integer position = id == null ? null : positionById.get(id);
+        return position == null ? null : videos.get(position);
+    }
+
+    /**
+     * Find a video by its slug, ignoring case.
+     *
+     * @param slug The slug identifier of the video
+     * @return The video detail if found, otherwise null
+     */
+    public VideoDetail findBySlug(final String slug) {
+        if (!StringUtils.hasText(slug)) {
+            return null;
+        }
+        final Integer position = positionBySlug.get(slug.toLowerCase());
+        return position == null ? null : videos.get(position);
+    }
+
+    /**
+     * Get the precomputed card for a video.
+     *
+     * @param id The video ID
+     * @return The video card if found, otherwise null
+     */
+    public VideoCard getCard(final String id) {
+        final Integer position = id == null ? null : positionById.get(id);
+        return position == null ? null : cards.get(position);
+    }
+
+    /**
+     * Get the position of a video in catalog order.
+     *
+     * @param id The video ID
+     * @return The zero-based position, or -1 if the video is unknown
+     */
+    public int positionOf(final String id) {
+        final Integer position = id == null ? null : positionById.get(id);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Get all videos of a category, in catalog order.
+     *
+     * @param categoryId The category ID
+     * @return The videos in that category, empty if none
+     */
+    public List<VideoDetail> findByCategory(final String categoryId) {
+        final int[] postings = categoryId == null ? null : positionsByCategory.get(categoryId);
+        if (postings == null) {
+            return Collections.emptyList();
+        }
+        return resolve(postings);
+    }
+
+    /**
+     * Get all videos belonging to any of the given categories, in catalog order.
+     *
+     * @param categoryIds The category IDs; an empty collection matches every video
+     * @return The matching videos
+     */
+    public List<VideoDetail> findByCategories(final Collection<String> categoryIds) {
+        if (ObjectUtils.isEmpty(categoryIds)) {
+            return videos;
+        }
+        return resolve(PostingLists.union(postingLists(categoryIds), -1, videos.size()));
+    }
+
+    /**
+     * Count the videos belonging to any of the given categories.
+     *
+     * @param categoryIds The category IDs; an empty collection matches every video
+     * @return The number of matching videos
+     */
+    public int countByCategories(final Collection<String> categoryIds) {
+        return countByCategories(categoryIds, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Count the videos belonging to any of the given categories, up to and
+     * including a catalog position. This is the rank of a position within the
+     * filtered listing, used to turn a cursor back into a page number.
+     *
+     * @param categoryIds The category IDs; an empty collection matches every video
+     * @param upTo        The inclusive catalog position
+     * @return The number of matching videos at or before the position
+     */
+    public int countByCategories(final Collection<String> categoryIds, final int upTo) {
+        if (ObjectUtils.isEmpty(categoryIds)) {
+            return (int) Math.max(0, Math.min(videos.size(), (long) upTo + 1));
+        }
+        return PostingLists.unionCount(postingLists(categoryIds), upTo);
+    }
+
+    /**
+     * Get the catalog positions of the next videos belonging to any of the
+     * given categories, after a position. Seeks directly into the posting
+     * lists, so deep pages cost the same as the first one.
+     *
+     * @param categoryIds The category IDs; an empty collection matches every video
+     * @param after       The catalog position to start after; -1 starts from the beginning
+     * @param limit       Maximum number of positions to return
+     * @return The matching positions in catalog order
+     */
+    public int[] nextByCategories(final Collection<String> categoryIds, final int after, final int limit) {
+        if (ObjectUtils.isEmpty(categoryIds)) {
+            final int from = Math.max(0, after + 1);
+            final int to = (int) Math.min(videos.size(), (long) from + Math.max(0, limit));
+            final int[] positions = new int[Math.max(0, to - from)];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = from + i;
+            }
+            return positions;
+        }
+        return PostingLists.union(postingLists(categoryIds), after, limit);
+    }
+
+    /**
+     * Get the video at a catalog position.
+     *
+     * @param position The zero-based catalog position
+     * @return The video detail
+     */
+    public VideoDetail get(final int position) {
+        return videos.get(position);
+    }
+
+    /**
+     * View the videos belonging to any of the given categories as a pageable
+     * listing.
+     *
+     * @param categoryIds The category IDs; an empty collection matches every video
+     * @return The filtered listing
+     */
+    public Pages.Listing listingByCategories(final Collection<String> categoryIds) {
+        return new Pages.Listing() {
+            @Override
+            public int count(final int upTo) {
+                return countByCategories(categoryIds, upTo);
+            }
+
+            @Override
+            public int[] next(final int after, final int limit) {
+                return nextByCategories(categoryIds, after, limit);
+            }
+
+            @Override
+            public int positionOf(final String id) {
+                return VideoCatalog.this.positionOf(id);
+            }
+
+            @Override
+            public String idAt(final int position) {
+                return videos.get(position).getId();
+            }
+        };
+    }
+
+    private List<int[]> postingLists(final Collection<String> categoryIds) {
+        final List<int[]> lists = new ArrayList<>();
+        for (String categoryId : new LinkedHashSet<>(categoryIds)) {
+            final int[] postings = categoryId == null ? null : positionsByCategory.get(categoryId);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+        return lists;
+    }
+
+    private List<VideoDetail> resolve(final int[] positions) {
+        final List<VideoDetail> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(videos.get(position));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -4,6 +4,7 @@ import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.springframework.util.StringUtils;
@@ -155,25 +156,34 @@ public class VideoData {
                                         new VideoQAItem("Can holographic technology help revitalize endangered cultural practices?",
                                                         "Holographic technology can help revitalize endangered cultural practices by creating detailed records that new practitioners can learn from, and by making these cultural practices more accessible and engaging to younger generations.")));
 
+        // Catalog snapshot, built once when the class is loaded and swapped on refresh.
+        // Declared after the data sets above so they are initialized first.
+        private static final AtomicReference<VideoCatalog> catalog = new AtomicReference<>(buildCatalog());
+
         /**
-         * Create detailed records for all videos
+         * Get the current catalog snapshot
          * 
-         * @return List of detailed video records
+         * @return The immutable, indexed video catalog
          */
-        public static List<VideoDetail> getVideosDetail() {
-                List<VideoDetail> videos = new ArrayList<>();
-
-                // // Add science videos
-                // videos.addAll(createScienceVideos());
-
-                // // Add history videos
-                // videos.addAll(createHistoryVideos());
+        public static VideoCatalog getCatalog() {
+                return catalog.get();
+        }
 
-                // // Add culture videos
-                // videos.addAll(createCultureVideos());
+        /**
+         * Rebuild the catalog and atomically replace the current snapshot.
+         * Readers keep using the previous snapshot until the new one is ready.
+         */
+        public static void refresh() {
+                catalog.set(buildCatalog());
+        }
 
-                videos.addAll(createVideos()); // Add science videos first
-                return videos;
+        /**
+         * Get detailed records for all videos
+         * 
+         * @return Immutable list of detailed video records
+         */
+        public static List<VideoDetail> getVideosDetail() {
+                return getCatalog().getVideos();
         }
 
         /**
@@ -183,16 +193,7 @@ public class VideoData {
          * @return The video detail if found, otherwise null
          */
         public static VideoDetail getVideoDetailBySlug(final String slug) {
-                if (!StringUtils.hasText(slug)) {
-                        return null;
-                }
-
-                // Loop through all videos to find a match
-                final List<VideoDetail> allVideos = getVideosDetail();
-                return allVideos.stream()
-                                .filter(video -> video.getSlug().equalsIgnoreCase(slug))
-                                .findFirst()
-                                .orElse(null);
+                return getCatalog().findBySlug(slug);
         }
 
         /**
@@ -203,11 +204,8 @@ public class VideoData {
          * @return List of VideoCard objects
          */
         public static List<VideoCard> getVideoCards(final int limit) {
-                final List<VideoDetail> allVideos = getVideosDetail();
-                return allVideos.stream()
-                                .limit(Math.min(limit, allVideos.size())) // Limit to the requested number or total size
-                                .map(VideoData::toVideoCard)
-                                .collect(Collectors.toList());
+                final List<VideoCard> cards = getCatalog().getCards();
+                return new ArrayList<>(cards.subList(0, Math.max(0, Math.min(limit, cards.size()))));
         }
 
         /**
@@ -223,12 +221,11 @@ public class VideoData {
                         return getVideoCards(limit);
                 }
 
-                final List<VideoDetail> allVideos = getVideosDetail();
-                return allVideos.stream()
-                                .filter(v -> v.getCategory().getId().equals(category))
+                final VideoCatalog snapshot = getCatalog();
+                return snapshot.findByCategory(category).stream()
                                 .filter(v -> videoId == null || !v.getId().equals(videoId))
                                 .limit(limit)
-                                .map(VideoData::toVideoCard)
+                                .map(v -> snapshot.getCard(v.getId()))
                                 .collect(Collectors.toList());
         }
 
@@ -309,6 +306,24 @@ public class VideoData {
                 return tags;
         }
 
+        /**
+         * Build a new catalog snapshot from the generated video records
+         * 
+         * @return The immutable, indexed video catalog
+         */
+        private static VideoCatalog buildCatalog() {
+                // // Add science videos
+                // videos.addAll(createScienceVideos());
+
+                // // Add history videos
+                // videos.addAll(createHistoryVideos());
+
+                // // Add culture videos
+                // videos.addAll(createCultureVideos());
+
+                return VideoCatalog.of(createVideos());
+        }
+
         private static List<VideoDetail> createVideos() {
                 final List<VideoDetail> videos = new ArrayList<>();
 
@@ -0,0 +1,43 @@
+package com.betonamura.hologram.repository.compose;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+class DetailAssemblerTest {
+
+    private final DetailAssembler assembler = new DetailAssembler(200);
+
+    @Test
+    void testLatePartFallsBackAndOthersAreKept() {
+        final long start = System.nanoTime();
+        final DetailAssembler.Assembly assembly = assembler.start();
+        final DetailAssembler.Part<List<String>> fast = assembly.attach(
+                CompletableFuture.completedFuture(List.of("fast")), () -> List.of("x"));
+        final CompletableFuture<List<String>> pending = new CompletableFuture<>();
+        final DetailAssembler.Part<List<String>> slow = assembly.attach(pending, () -> List.of("fallback"));
+        assembly.await();
+
+        assertEquals(List.of("fast"), fast.get());
+        assertEquals(List.of("fallback"), slow.get());
+        assertTrue(pending.isCancelled());
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    }
+
+    @Test
+    void testFailedOrEmptyPartFallsBack() {
+        final DetailAssembler.Assembly assembly = assembler.start();
+        final DetailAssembler.Part<List<String>> failed = assembly.attach(
+                CompletableFuture.failedFuture(new IllegalStateException("down")), () -> List.of("fallback"));
+        final DetailAssembler.Part<List<String>> empty = assembly.attach(
+                CompletableFuture.completedFuture(List.of()), () -> List.of("fallback"));
+        assembly.await();
+
+        assertEquals(List.of("fallback"), failed.get());
+        assertEquals(List.of("fallback"), empty.get());
+    }
+}
@@ -0,0 +1,72 @@
+package com.betonamura.hologram.repository.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex();
+        index.upsert(document("1", "Earth, Globe, Turning", "Our blue planet in 3D", List.of("Earth", "Planet")));
+        index.upsert(document("2", "Robot, Artificial Intelligence", "A friendly robot hologram", List.of("Robot")));
+        index.upsert(document("3", "Nefertiti, Queen, Egypt", "An ancient queen and her planet", List.of("History")));
+    }
+
+    @Test
+    void testTitleMatchRanksAboveSummaryMatch() {
+        final List<String> ids = ids(index.search("planet"));
+        assertEquals(List.of("1", "3"), ids);
+    }
+
+    @Test
+    void testPrefixAndAccentInsensitiveMatch() {
+        assertEquals(List.of("2"), ids(index.search("artif")));
+        assertEquals(List.of("3"), ids(index.search("Néfertiti")));
+    }
+
+    @Test
+    void testAllTokensMustMatch() {
+        assertEquals(List.of("3"), ids(index.search("queen planet")));
+        assertTrue(index.search("robot planet").isEmpty());
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        index.upsert(document("2", "Robot Dance", "Dancing machines", List.of("Robot")));
+        assertTrue(index.search("artificial").isEmpty());
+        assertEquals(List.of("2"), ids(index.search("dance")));
+
+        index.sync(List.of(document("1", "Earth, Globe, Turning", "Our blue planet in 3D", List.of("Earth"))));
+        assertEquals(1, index.size());
+        assertTrue(index.search("robot").isEmpty());
+    }
+
+    @Test
+    void testPrefixKeepsMostFrequentExpansions() {
+        // 100 rare "holo..." terms sort before the common "hologram"
+        for (int i = 0; i < 100; i++) {
+            index.upsert(document("rare" + i, "Holoa" + i, "", List.of()));
+        }
+        index.upsert(document("4", "Hologram fan", "", List.of()));
+        index.upsert(document("5", "Hologram pyramid", "", List.of()));
+        final List<String> ids = ids(index.search("holo"));
+        assertTrue(ids.contains("2") && ids.contains("4") && ids.contains("5"));
+    }
+
+    private static SearchDocument document(String id, String title, String summary, List<String> tags) {
+        return SearchDocument.builder().id(id).title(title).summary(summary).tags(tags).body(List.of()).build();
+    }
+
+    private static List<String> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+}
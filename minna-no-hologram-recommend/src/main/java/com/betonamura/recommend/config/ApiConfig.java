@@ -11,6 +11,7 @@ public class ApiConfig {
     // API endpoint paths
     public static final String API_BASE = "/v1";
     public static final String RECOMMENDATIONS = API_BASE + "/recommendations";
+    public static final String RECOMMENDATIONS_BATCH = RECOMMENDATIONS + "/batch";
     public static final String POPULAR = RECOMMENDATIONS + "/popular";
     public static final String FEEDBACK = API_BASE + "/feedback";
 
@@ -22,4 +23,5 @@ public class ApiConfig {
     // Default limits and parameters
     public static final int DEFAULT_RECOMMENDATION_LIMIT = 2;
     public static final int MAX_RECOMMENDATION_LIMIT = 10;
+    public static final int MAX_BATCH_SIZE = 100;
 }
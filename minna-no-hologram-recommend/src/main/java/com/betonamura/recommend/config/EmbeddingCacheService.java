@@ -1,14 +1,23 @@
 package com.betonamura.recommend.config;
 
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.springframework.stereotype.Service;
 
-import com.betonamura.recommend.domain.embedding.ContentEmbedding;
+import com.betonamura.recommend.data.cache.CachePolicy;
+import com.betonamura.recommend.data.cache.CacheStats;
+import com.betonamura.recommend.data.embedding.EmbeddingStore;
+import com.betonamura.recommend.domain.common.ContentType;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -16,26 +25,52 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service to cache content embeddings with TTL expiration
+ *
+ * Embeddings are kept in one packed {@link EmbeddingStore} per content type
+ * and addressed by row, so lookups allocate nothing. Which entries stay is
+ * decided by a W-TinyLFU {@link CachePolicy}: eviction and expiry cost O(1)
+ * per entry instead of a scan of the whole cache.
+ *
+ * Misses loaded through {@link #getOrLoad} are single-flight: concurrent
+ * callers for the same item wait on one computation, and a failed load is
+ * remembered for a few seconds so callers fail fast instead of retrying it.
  */
 @Slf4j
 @Service
 public class EmbeddingCacheService {
     private final RecommendationProperties properties;
-    private final Map<String, ContentEmbedding> cache = new ConcurrentHashMap<>();
+    private final Map<ContentType, EmbeddingStore> stores = new EnumMap<>(ContentType.class);
     private final ScheduledExecutorService cleanupScheduler = Executors.newScheduledThreadPool(1);
 
+    private final long ttlMillis;
+    private final CachePolicy<Key> policy;
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final long failureTtlMillis;
+    private final Map<Key, CompletableFuture<Integer>> loading = new ConcurrentHashMap<>();
+    private final Map<Key, Failure> failures = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
     public EmbeddingCacheService(RecommendationProperties properties) {
         this.properties = properties;
+        int dimension = properties.getModel().getEmbeddingDimension();
+        int initialCapacity = Math.min(properties.getCache().getMaxSize(), 1024);
+        for (ContentType contentType : ContentType.values()) {
+            stores.put(contentType, new EmbeddingStore(dimension, initialCapacity));
+        }
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(properties.getCache().getTtlMinutes());
+        this.failureTtlMillis = TimeUnit.SECONDS.toMillis(properties.getCache().getFailureTtlSeconds());
+        this.policy = new CachePolicy<>(properties.getCache().getMaxSize(), ttlMillis, System.currentTimeMillis());
     }
 
     @PostConstruct
     public void init() {
-        // Schedule periodic cleanup of expired cache entries
-        cleanupScheduler.scheduleAtFixedRate(
-                this::cleanupExpiredEntries,
-                properties.getCache().getTtlMinutes(),
-                properties.getCache().getTtlMinutes(),
-                TimeUnit.MINUTES);
+        // Expiry only visits due entries, so cleanup can run often
+        cleanupScheduler.scheduleAtFixedRate(this::cleanupExpiredEntries, 1, 1, TimeUnit.MINUTES);
         log.info("Embedding cache initialized with TTL: {} minutes", properties.getCache().getTtlMinutes());
     }
 
@@ -46,81 +81,185 @@ public class EmbeddingCacheService {
     }
 
     /**
-     * Get a cached embedding or null if not in cache
+     * Get the store holding the embeddings of a content type
      */
-    public ContentEmbedding get(String key) {
-        ContentEmbedding embedding = cache.get(key);
-        if (embedding != null) {
-            // Check if expired
-            long expirationTimeMs = embedding.getTimestamp()
-                    + TimeUnit.MINUTES.toMillis(properties.getCache().getTtlMinutes());
-            if (System.currentTimeMillis() > expirationTimeMs) {
-                cache.remove(key);
-                return null;
-            }
-        }
-        return embedding;
+    public EmbeddingStore getStore(ContentType contentType) {
+        return stores.get(contentType);
     }
 
     /**
-     * Store an embedding in the cache
+     * Get the row of a cached embedding in its store, or -1 if not in cache
      */
-    public void put(String key, ContentEmbedding embedding) {
-        // Enforce max size
-        if (cache.size() >= properties.getCache().getMaxSize() && !cache.containsKey(key)) {
-            // Cache is full, remove oldest entry
-            String oldestKey = findOldestEntry();
-            if (oldestKey != null) {
-                cache.remove(oldestKey);
-                log.debug("Removed oldest cache entry: {}", oldestKey);
+    public int getRow(ContentType contentType, String contentId) {
+        EmbeddingStore store = stores.get(contentType);
+        int row = store.rowOf(contentId);
+        Key key = new Key(contentType, contentId);
+        if (row >= 0 && System.currentTimeMillis() - store.timestampAt(row) > ttlMillis) {
+            // Expired but not yet collected by the cleanup
+            policyLock.lock();
+            try {
+                if (policy.remove(key)) {
+                    store.remove(contentId);
+                    expirationCount.increment();
+                }
+            } finally {
+                policyLock.unlock();
             }
+            row = -1;
         }
 
-        cache.put(key, embedding);
+        if (row >= 0) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        // Reads never wait: under contention the access is not recorded
+        if (policyLock.tryLock()) {
+            try {
+                if (row >= 0) {
+                    policy.recordHit(key);
+                } else {
+                    policy.recordMiss(key);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        return row;
     }
 
     /**
-     * Remove expired entries from cache
+     * Store an embedding in the cache, evicting other entries if it is full
+     *
+     * @return The row of the embedding in its store
      */
-    private void cleanupExpiredEntries() {
-        long now = System.currentTimeMillis();
-        long expirationMs = TimeUnit.MINUTES.toMillis(properties.getCache().getTtlMinutes());
+    public int put(ContentType contentType, String contentId, float[] vector) {
+        policyLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            int row = stores.get(contentType).put(contentId, vector, now);
+            policy.recordWrite(new Key(contentType, contentId), now, this::evict);
+            return row;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Get the row of a cached embedding, loading it on a miss. Concurrent
+     * callers for the same item share one load.
+     *
+     * @param loader Computes the embedding; called at most once at a time per
+     *               item
+     * @return The row of the embedding in its store
+     * @throws IllegalStateException If the load failed, now or within the
+     *                               failure TTL
+     */
+    public int getOrLoad(ContentType contentType, String contentId, Supplier<float[]> loader) {
+        int row = getRow(contentType, contentId);
+        if (row >= 0) {
+            return row;
+        }
 
-        int removedCount = 0;
-        for (Map.Entry<String, ContentEmbedding> entry : cache.entrySet()) {
-            if (now - entry.getValue().getTimestamp() > expirationMs) {
-                cache.remove(entry.getKey());
-                removedCount++;
+        Key key = new Key(contentType, contentId);
+        Failure failure = failures.get(key);
+        if (failure != null) {
+            if (System.currentTimeMillis() < failure.expiresAt()) {
+                throw new IllegalStateException("Loading embedding for " + contentType + " " + contentId
+                        + " failed recently", failure.cause());
             }
+            failures.remove(key, failure);
         }
 
-        if (removedCount > 0) {
-            log.debug("Removed {} expired entries from embedding cache", removedCount);
+        CompletableFuture<Integer> load = new CompletableFuture<>();
+        CompletableFuture<Integer> running = loading.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running, key);
+        }
+        try {
+            // Another caller may have finished loading since the miss
+            row = stores.get(contentType).rowOf(contentId);
+            if (row < 0) {
+                row = put(contentType, contentId, loader.get());
+            }
+            load.complete(row);
+            return row;
+        } catch (RuntimeException e) {
+            failures.put(key, new Failure(e, System.currentTimeMillis() + failureTtlMillis));
+            load.completeExceptionally(e);
+            throw new IllegalStateException("Loading embedding for " + contentType + " " + contentId
+                    + " failed", e);
+        } finally {
+            loading.remove(key, load);
         }
     }
 
     /**
-     * Find the oldest entry in the cache
+     * Remove an embedding from the cache, e.g. when its content is deleted
      */
-    private String findOldestEntry() {
-        String oldestKey = null;
-        long oldestTimestamp = Long.MAX_VALUE;
-
-        for (Map.Entry<String, ContentEmbedding> entry : cache.entrySet()) {
-            if (entry.getValue().getTimestamp() < oldestTimestamp) {
-                oldestTimestamp = entry.getValue().getTimestamp();
-                oldestKey = entry.getKey();
-            }
+    public void remove(ContentType contentType, String contentId) {
+        Key key = new Key(contentType, contentId);
+        policyLock.lock();
+        try {
+            policy.remove(key);
+            stores.get(contentType).remove(contentId);
+        } finally {
+            policyLock.unlock();
+        }
+        failures.remove(key);
+    }
+
+    private static int await(CompletableFuture<Integer> load, Key key) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Loading embedding for " + key.contentType() + " "
+                    + key.contentId() + " failed", e.getCause());
         }
+    }
 
-        return oldestKey;
+    private void evict(Key key) {
+        stores.get(key.contentType()).remove(key.contentId());
+        evictionCount.increment();
+        log.debug("Evicted cache entry: {} {}", key.contentType(), key.contentId());
+    }
+
+    /**
+     * Remove expired entries from cache
+     */
+    private void cleanupExpiredEntries() {
+        int[] removedCount = new int[1];
+        policyLock.lock();
+        try {
+            policy.expire(System.currentTimeMillis(), key -> {
+                stores.get(key.contentType()).remove(key.contentId());
+                removedCount[0]++;
+            });
+        } finally {
+            policyLock.unlock();
+        }
+
+        long now = System.currentTimeMillis();
+        failures.values().removeIf(failure -> now >= failure.expiresAt());
+
+        if (removedCount[0] > 0) {
+            expirationCount.add(removedCount[0]);
+            log.debug("Removed {} expired entries from embedding cache", removedCount[0]);
+        }
     }
 
     /**
      * Clear the cache
      */
     public void clearCache() {
-        cache.clear();
+        policyLock.lock();
+        try {
+            policy.clear();
+            stores.values().forEach(EmbeddingStore::clear);
+            failures.clear();
+        } finally {
+            policyLock.unlock();
+        }
         log.info("Embedding cache cleared");
     }
 
@@ -128,6 +267,33 @@ public class EmbeddingCacheService {
      * Get the number of entries in the cache
      */
     public int size() {
-        return cache.size();
+        int size = 0;
+        for (EmbeddingStore store : stores.values()) {
+            size += store.size();
+        }
+        return size;
+    }
+
+    /**
+     * Get hit, miss and eviction statistics
+     */
+    public CacheStats stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        return CacheStats.builder()
+                .size(size())
+                .maximumSize(policy.getMaximumSize())
+                .hitCount(hits)
+                .missCount(misses)
+                .hitRate(hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                .evictionCount(evictionCount.sum())
+                .expirationCount(expirationCount.sum())
+                .build();
+    }
+
+    private record Key(ContentType contentType, String contentId) {
+    }
+
+    private record Failure(RuntimeException cause, long expiresAt) {
     }
 }
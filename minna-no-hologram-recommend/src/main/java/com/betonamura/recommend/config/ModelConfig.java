@@ -1,11 +1,21 @@
 package com.betonamura.recommend.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import com.betonamura.recommend.data.index.ExactIndex;
+import com.betonamura.recommend.data.index.HnswIndex;
+import com.betonamura.recommend.data.index.IvfPqIndex;
+import com.betonamura.recommend.data.index.QuantizedIndex;
+import com.betonamura.recommend.data.index.VectorIndex;
+import com.betonamura.recommend.data.index.VectorSource;
+import com.betonamura.recommend.domain.common.ContentType;
+import com.betonamura.recommend.service.ContentEmbeddingService;
+import com.betonamura.recommend.service.InferenceBatcher;
 import com.betonamura.recommend.service.MockModelProvider;
 import com.betonamura.recommend.service.ModelProvider;
 import com.betonamura.recommend.service.ModelService;
@@ -50,4 +60,51 @@ public class ModelConfig {
                 properties.getCache().getTtlMinutes(), properties.getCache().getMaxSize());
         return new EmbeddingCacheService(properties);
     }
+
+    /**
+     * Configure batching of on-demand embedding requests
+     */
+    @Bean(destroyMethod = "close")
+    public InferenceBatcher inferenceBatcher(RecommendationProperties properties, ModelService modelService) {
+        RecommendationProperties.ModelConfig model = properties.getModel();
+        log.info("Configuring inference batching with batch size: {}, max wait: {} ms, concurrency: {}",
+                model.getBatchSize(), model.getMaxBatchWaitMillis(), model.getInferenceConcurrency());
+        return new InferenceBatcher(modelService::generateEmbeddings, model.getBatchSize(),
+                model.getMaxBatchWaitMillis(), model.getInferenceConcurrency());
+    }
+
+    /**
+     * Configure the similarity index over video embeddings
+     */
+    @Bean
+    public VectorIndex videoEmbeddingIndex(RecommendationProperties properties,
+            ObjectProvider<ContentEmbeddingService> contentEmbeddingService) {
+        RecommendationProperties.IndexConfig index = properties.getIndex();
+        int dimension = properties.getModel().getEmbeddingDimension();
+        // Resolved lazily, the embedding service itself depends on the index
+        VectorSource fullPrecision =
+                (id, target) -> contentEmbeddingService.getObject().readEmbedding(ContentType.VIDEO, id, target);
+        if ("quantized".equalsIgnoreCase(index.getType())) {
+            QuantizedIndex.Quantization quantization =
+                    QuantizedIndex.Quantization.valueOf(index.getQuantization().toUpperCase());
+            log.info("Configuring quantized video embedding index with {} codes, rescore factor: {}",
+                    quantization, index.getRescoreFactor());
+            return new QuantizedIndex(dimension, quantization, index.getRescoreFactor(), index.getRecallTolerance(),
+                    fullPrecision);
+        }
+        if ("ivfpq".equalsIgnoreCase(index.getType())) {
+            log.info("Configuring IVF-PQ video embedding index with nlist: {}, subquantizers: {}, nprobe: {}",
+                    index.getNlist(), index.getSubquantizers(), index.getNprobe());
+            return new IvfPqIndex(dimension, index.getNlist(), index.getSubquantizers(), index.getNprobe(),
+                    index.getTrainingSampleSize(), index.getRescoreFactor(), fullPrecision);
+        }
+        if ("exact".equalsIgnoreCase(index.getType())) {
+            log.info("Configuring exact video embedding search with block size: {}, parallelism: {}",
+                    index.getBlockRows(), index.getParallelism());
+            return new ExactIndex(dimension, index.getBlockRows(), index.getParallelism());
+        }
+        log.info("Configuring video embedding index with M: {}, efConstruction: {}, efSearch: {}",
+                index.getM(), index.getEfConstruction(), index.getEfSearch());
+        return new HnswIndex(dimension, index.getM(), index.getEfConstruction(), index.getEfSearch());
+    }
 }
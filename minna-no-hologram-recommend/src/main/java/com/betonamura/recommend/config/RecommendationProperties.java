@@ -12,6 +12,7 @@ public class RecommendationProperties {
     private Double minSimilarityScore = 0.5;
     private Boolean precomputeEmbeddings = true;
     private CacheConfig cache = new CacheConfig();
+    private IndexConfig index = new IndexConfig();
 
     @Data
     public static class ModelConfig {
@@ -21,15 +22,40 @@ public class RecommendationProperties {
         private Integer embeddingDimension = 768;
         private Integer maxLength = 128;
         private Integer batchSize = 16;
+        private Long maxBatchWaitMillis = 5L; // how long an on-demand embedding waits for its batch to fill
+        private Integer inferenceConcurrency = 2; // on-demand batches run at the same time
         private Boolean enabled = true;
         private String provider = "huggingface"; // or "openai", "tensorflow", etc.
         private String apiKey = ""; // For API based models like OpenAI
+        private String wordVectors = "word-vectors.bin"; // table in cache-dir, converted once from the .txt next to it
+        private String wordVectorEncoding = "fp16"; // or "int8", used when converting
     }
 
     @Data
     public static class CacheConfig {
         private Integer ttlMinutes = 30;
         private Integer maxSize = 1000;
+        private Integer failureTtlSeconds = 10; // failed loads fail fast for this long
         private Boolean enabled = true;
     }
+
+    /**
+     * Similarity index over content embeddings
+     */
+    @Data
+    public static class IndexConfig {
+        private String type = "hnsw"; // hnsw, quantized, ivfpq or exact
+        private Integer m = 16; // links per node, 2M on the bottom layer
+        private Integer efConstruction = 200; // beam width when inserting
+        private Integer efSearch = 64; // beam width when searching, raise for recall
+        private String quantization = "int8"; // int8 or binary, for the quantized index
+        private Integer rescoreFactor = 4; // candidates re-scored exactly per result
+        private Double recallTolerance = 0.05; // recall@10 loss accepted when calibrating
+        private Integer nlist = 1024; // coarse centroids of the IVF-PQ index
+        private Integer subquantizers = 32; // bytes of PQ code per item, must not exceed the dimension
+        private Integer nprobe = 16; // lists visited per IVF-PQ search, raise for recall
+        private Integer trainingSampleSize = 50000; // vectors sampled to train the IVF-PQ index
+        private Integer blockRows = 4096; // rows scored per task by the exact index
+        private Integer parallelism = 0; // exact index worker threads, 0 for one per core
+    }
 }
@@ -29,7 +29,7 @@ public class SchedulingConfig {
     @Scheduled(cron = "0 0 2 * * ?") // Run at 2 AM every day
     public void refreshEmbeddings() {
         log.info("Scheduled task: refreshing content embeddings");
-        embeddingService.precomputeAllEmbeddings();
+        embeddingService.refreshEmbeddings();
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.betonamura.recommend.controller;
+
+import java.util.List;
+
+import com.betonamura.recommend.config.ApiConfig;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request model for the batch recommendations API endpoint.
+ * Each item is a (categoryId, currentId, limit) tuple answered like a single
+ * recommendations request. Items are validated one by one when answered, so
+ * an invalid item gets an error result instead of failing the batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRecommendationRequest {
+
+    private static final String ITEMS_REQUIRED_MSG = "At least one item is required";
+    private static final String ITEMS_MAX_MSG = "Items cannot exceed " + ApiConfig.MAX_BATCH_SIZE;
+
+    private String userId;
+
+    @NotEmpty(message = ITEMS_REQUIRED_MSG)
+    @Size(max = ApiConfig.MAX_BATCH_SIZE, message = ITEMS_MAX_MSG)
+    private List<RecommendationRequest> items;
+}
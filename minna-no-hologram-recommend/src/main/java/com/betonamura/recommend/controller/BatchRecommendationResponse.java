@@ -0,0 +1,33 @@
+package com.betonamura.recommend.controller;
+
+import java.util.List;
+
+import com.betonamura.recommend.domain.common.ContentCard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response model for the batch recommendations API endpoint.
+ * Results are in the same order as the request items.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRecommendationResponse {
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String categoryId;
+        private String currentId;
+        private List<? extends ContentCard> content;
+        private String error; // set when this item could not be answered
+    }
+}
@@ -52,6 +52,8 @@ public class ModelController {
         info.put("modelName", modelProvider.getModelName());
         info.put("embeddingDimension", modelProvider.getEmbeddingDimension());
         info.put("cacheSize", cacheService.size());
+        info.put("cacheStats", cacheService.stats());
+        info.put("precompute", embeddingService.getPrecomputeProgress());
         info.put("provider", properties.getModel().getProvider());
         info.put("minSimilarityScore", properties.getMinSimilarityScore());
 
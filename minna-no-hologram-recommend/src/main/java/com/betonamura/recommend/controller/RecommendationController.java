@@ -5,6 +5,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.betonamura.recommend.config.ApiConfig;
@@ -53,4 +55,31 @@ public class RecommendationController {
                     .body(ErrorResponse.of("Failed to get recommendations", e.getMessage()));
         }
     }
+
+    /**
+     * Get related content for many items in one call.
+     * Each item is a (categoryId, currentId, limit) tuple; results come back in
+     * the same order, so a page can fill all its related rails in one round trip.
+     */
+    @PostMapping(ApiConfig.RECOMMENDATIONS_BATCH)
+    public ResponseEntity<?> getBatchRecommendations(@Valid @RequestBody BatchRecommendationRequest request,
+            BindingResult bindingResult) {
+
+        // Validate request body
+        if (bindingResult.hasErrors()) {
+            String message = bindingResult.getAllErrors().stream()
+                    .map(error -> error.getDefaultMessage())
+                    .findFirst().orElse("Validation failed");
+            return ResponseEntity.badRequest().body(ErrorResponse.of(message));
+        }
+
+        try {
+            BatchRecommendationResponse response = recommendRepository.getBatchRecommendations(request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error getting batch recommendations", e);
+            return ResponseEntity.internalServerError()
+                    .body(ErrorResponse.of("Failed to get recommendations", e.getMessage()));
+        }
+    }
 }
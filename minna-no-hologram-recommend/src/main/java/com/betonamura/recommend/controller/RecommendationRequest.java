@@ -2,6 +2,7 @@ package com.betonamura.recommend.controller;
 
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,11 +26,13 @@ public class RecommendationRequest {
 
     private static final String LIMIT_MIN_MSG = "Limit must be at least " + MIN_LIMIT;
     private static final String LIMIT_MAX_MSG = "Limit cannot exceed " + MAX_LIMIT;
+    private static final String LIMIT_REQUIRED_MSG = "Limit is required";
 
     private String userId;
     private String categoryId;
     private String currentId;
 
+    @NotNull(message = LIMIT_REQUIRED_MSG)
     @Min(value = MIN_LIMIT, message = LIMIT_MIN_MSG)
     @Max(value = MAX_LIMIT, message = LIMIT_MAX_MSG)
     private Integer limit = DEFAULT_LIMIT;
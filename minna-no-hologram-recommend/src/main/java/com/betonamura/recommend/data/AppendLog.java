@@ -0,0 +1,89 @@
+package com.betonamura.recommend.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only log for one key, safe for concurrent writers and readers.
+ *
+ * Entries live in fixed-size segments that are never moved. A writer fills
+ * the next slot and then publishes the new length through a volatile field;
+ * a reader takes the published length once and sees a consistent prefix of
+ * the log without locking. Writers to the same log are serialized on that log
+ * only, so logs of different users never contend.
+ */
+public final class AppendLog<T> {
+
+    private static final int SEGMENT_SHIFT = 5;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private volatile Object[][] segments = new Object[1][];
+    private volatile int size;
+
+    /**
+     * Append an entry.
+     *
+     * @param entry The entry, not null
+     */
+    public synchronized void append(final T entry) {
+        final int index = size;
+        final int segment = index >>> SEGMENT_SHIFT;
+        Object[][] current = segments;
+        if (segment == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[segment] == null) {
+            current[segment] = new Object[SEGMENT_SIZE];
+        }
+        current[segment][index & SEGMENT_MASK] = entry;
+        segments = current;
+        // Publish: everything written above is visible to readers of size
+        size = index + 1;
+    }
+
+    /**
+     * Number of entries published so far.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Immutable view of the entries published at the time of the call.
+     * Later appends do not show up in the view.
+     *
+     * @return The entries in append order
+     */
+    public List<T> snapshot() {
+        final int length = size;
+        final Object[][] view = segments;
+        return new Snapshot<>(view, length);
+    }
+
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] segments;
+        private final int size;
+
+        private Snapshot(final Object[][] segments, final int size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (T) segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -8,7 +8,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Component;
 
@@ -21,72 +24,80 @@ import jakarta.annotation.PostConstruct;
 /**
  * In-memory data provider service to replace database dependency.
  * Provides sample data for recommendations.
+ *
+ * Content is held in an immutable, indexed snapshot: hash maps by ID, posting
+ * lists per category and lists pre-sorted by view count. A reload builds a new
+ * snapshot and swaps it in atomically, so readers never see a half-built index.
  */
 @Component
 public class DataProvider {
 
-    private final List<VideoMetadata> videos = new ArrayList<>();
-    private final List<DIYMetadata> diys = new ArrayList<>();
-    private final Map<String, List<String>> userWatchHistory = new HashMap<>();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final Map<String, List<String>> userWatchHistory = new ConcurrentHashMap<>();
 
     /**
      * Initialize with dummy data
      */
     @PostConstruct
     public void init() {
-        initializeVideos();
-        initializeDIYs();
+        reload(initializeVideos(), initializeDIYs());
         initializeUserWatchHistory();
     }
 
+    /**
+     * Replace all content with a new, fully indexed snapshot.
+     *
+     * @param videos The videos, in display order
+     * @param diys   The DIYs, in display order
+     */
+    public void reload(final List<VideoMetadata> videos, final List<DIYMetadata> diys) {
+        snapshot.set(new Snapshot(videos, diys));
+    }
+
     /**
      * Get all video metadata
      */
     public List<VideoMetadata> getAllVideos() {
-        return Collections.unmodifiableList(videos);
+        return snapshot.get().videos;
     }
 
     /**
      * Get video by ID
      */
     public Optional<VideoMetadata> getVideoById(String videoId) {
-        return videos.stream()
-                .filter(v -> v.getVideoId().equals(videoId))
-                .findFirst();
+        return Optional.ofNullable(videoId == null ? null : snapshot.get().videosById.get(videoId));
     }
 
     /**
      * Get videos by category
      */
     public List<VideoMetadata> getVideosByCategory(String categoryId) {
-        return videos.stream()
-                .filter(v -> v.getCategoryId().equals(categoryId))
-                .collect(Collectors.toList());
+        final List<VideoMetadata> videos = categoryId == null ? null
+                : snapshot.get().videosByCategory.get(categoryId);
+        return videos != null ? videos : Collections.emptyList();
     }
 
     /**
      * Get all DIY metadata
      */
     public List<DIYMetadata> getAllDIYs() {
-        return Collections.unmodifiableList(diys);
+        return snapshot.get().diys;
     }
 
     /**
      * Get DIY by ID
      */
     public Optional<DIYMetadata> getDIYById(String diyId) {
-        return diys.stream()
-                .filter(d -> d.getDiyId().equals(diyId))
-                .findFirst();
+        return Optional.ofNullable(diyId == null ? null : snapshot.get().diysById.get(diyId));
     }
 
     /**
      * Get DIYs by category
      */
     public List<DIYMetadata> getDIYsByCategory(String categoryId) {
-        return diys.stream()
-                .filter(d -> d.getCategoryId().equals(categoryId))
-                .collect(Collectors.toList());
+        final List<DIYMetadata> diys = categoryId == null ? null
+                : snapshot.get().diysByCategory.get(categoryId);
+        return diys != null ? diys : Collections.emptyList();
     }
 
     /**
@@ -100,34 +111,91 @@ public class DataProvider {
      * Record new watch entry
      */
     public void recordWatchHistory(String userId, String videoId) {
-        userWatchHistory.computeIfAbsent(userId, k -> new ArrayList<>()).add(videoId);
+        userWatchHistory.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(videoId);
     }
 
     /**
      * Get popular videos based on view count
      */
     public List<VideoMetadata> getPopularVideos(int limit) {
-        return videos.stream()
-                .sorted(Comparator.comparing(VideoMetadata::getViewCount).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        final List<VideoMetadata> popular = snapshot.get().popularVideos;
+        return popular.subList(0, Math.max(0, Math.min(limit, popular.size())));
     }
 
     /**
      * Get popular DIYs based on view count
      */
     public List<DIYMetadata> getPopularDIYs(int limit) {
-        return diys.stream()
-                .sorted(Comparator.comparing(DIYMetadata::getViewCount).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        final List<DIYMetadata> popular = snapshot.get().popularDIYs;
+        return popular.subList(0, Math.max(0, Math.min(limit, popular.size())));
+    }
+
+    /**
+     * Immutable, indexed view of the content. Built once, never modified.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), Collections.emptyList());
+
+        private final List<VideoMetadata> videos;
+        private final Map<String, VideoMetadata> videosById;
+        private final Map<String, List<VideoMetadata>> videosByCategory;
+        private final List<VideoMetadata> popularVideos;
+        private final List<DIYMetadata> diys;
+        private final Map<String, DIYMetadata> diysById;
+        private final Map<String, List<DIYMetadata>> diysByCategory;
+        private final List<DIYMetadata> popularDIYs;
+
+        private Snapshot(final List<VideoMetadata> videos, final List<DIYMetadata> diys) {
+            this.videos = List.copyOf(videos);
+            this.videosById = indexById(this.videos, VideoMetadata::getVideoId);
+            this.videosByCategory = indexByCategory(this.videos, VideoMetadata::getCategoryId);
+            this.popularVideos = sortedByViews(this.videos, VideoMetadata::getViewCount);
+
+            this.diys = List.copyOf(diys);
+            this.diysById = indexById(this.diys, DIYMetadata::getDiyId);
+            this.diysByCategory = indexByCategory(this.diys, DIYMetadata::getCategoryId);
+            this.popularDIYs = sortedByViews(this.diys, DIYMetadata::getViewCount);
+        }
+
+        private static <T> Map<String, T> indexById(final List<T> items, final Function<T, String> id) {
+            final Map<String, T> index = new HashMap<>();
+            for (T item : items) {
+                // The first item wins on duplicate IDs, as with a linear scan
+                if (id.apply(item) != null) {
+                    index.putIfAbsent(id.apply(item), item);
+                }
+            }
+            return Map.copyOf(index);
+        }
+
+        private static <T> Map<String, List<T>> indexByCategory(final List<T> items,
+                final Function<T, String> category) {
+            final Map<String, List<T>> index = new HashMap<>();
+            for (T item : items) {
+                if (category.apply(item) != null) {
+                    index.computeIfAbsent(category.apply(item), k -> new ArrayList<>()).add(item);
+                }
+            }
+            final Map<String, List<T>> frozen = new HashMap<>();
+            index.forEach((key, list) -> frozen.put(key, List.copyOf(list)));
+            return Map.copyOf(frozen);
+        }
+
+        private static <T> List<T> sortedByViews(final List<T> items, final Function<T, Integer> views) {
+            final List<T> sorted = new ArrayList<>(items);
+            sorted.sort(Comparator.comparing(views, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+                    .reversed());
+            return List.copyOf(sorted);
+        }
     }
 
     /*
      * Initialize with sample videos
      */
-    private void initializeVideos() {
+    private List<VideoMetadata> initializeVideos() {
         // TODO: Replace with real data when integrating with a database
+        List<VideoMetadata> videos = new ArrayList<>();
         String[] categories = { "music", "gaming", "education", "tech", "entertainment" };
         String[] titles = {
                 "Amazing Holographic Concert",
@@ -153,13 +221,15 @@ public class DataProvider {
                             .likeCount(new Random().nextInt(1000))
                             .build());
         }
+        return videos;
     }
 
     /*
      * Initialize with sample DIYs
      */
-    private void initializeDIYs() {
+    private List<DIYMetadata> initializeDIYs() {
         // TODO: Replace with real data when integrating with a database
+        List<DIYMetadata> diys = new ArrayList<>();
         String[] categories = { "beginner", "intermediate", "advanced", "kids", "professional" };
         String[] titles = {
                 "Simple Smartphone Hologram",
@@ -186,6 +256,7 @@ public class DataProvider {
                             .likeCount(new Random().nextInt(500))
                             .build());
         }
+        return diys;
     }
 
     /*
@@ -193,6 +264,7 @@ public class DataProvider {
      */
     private void initializeUserWatchHistory() {
         // TODO: Replace with real data when integrating with a database
+        List<VideoMetadata> videos = getAllVideos();
         for (int i = 1; i <= 10; i++) {
             String userId = "user-" + i;
             List<String> watchHistory = new ArrayList<>();
@@ -204,7 +276,7 @@ public class DataProvider {
                 watchHistory.add(videos.get(videoIndex).getVideoId());
             }
 
-            userWatchHistory.put(userId, watchHistory);
+            userWatchHistory.put(userId, new CopyOnWriteArrayList<>(watchHistory));
         }
     }
 }
@@ -0,0 +1,171 @@
+package com.betonamura.recommend.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Time-decayed trending counter with an incrementally maintained top-K.
+ *
+ * Uses forward decay: an event at time t adds exp(lambda * (t - landmark)) to
+ * its item's score. Scores only grow, yet comparing them ranks items as if every
+ * event had decayed with the configured half-life, so there is nothing to
+ * recompute as time passes. Each score is a DoubleAdder, so concurrent events
+ * for the same item do not contend.
+ *
+ * The top-K is an indexed min-heap, updated in O(log K) and only when an
+ * item's score reaches the current K-th score. The ranked array is rebuilt
+ * lazily: the first read after a change sorts the K entries and publishes
+ * them, later readers get the published array in O(K).
+ */
+public class TrendingCounter {
+
+    private final int capacity;
+    private final double lambda;
+    private final long landmarkSeconds;
+
+    private final Map<String, DoubleAdder> scores = new ConcurrentHashMap<>();
+    private final Object topLock = new Object();
+    // Indexed min-heap, written under topLock only; positions is also read without it
+    private final Map<String, Integer> positions = new ConcurrentHashMap<>();
+    private final String[] heapIds;
+    private final double[] heapScores;
+    private int heapSize;
+    private volatile double threshold = Double.NEGATIVE_INFINITY;
+    private volatile boolean dirty;
+    private volatile String[] ranked = new String[0];
+
+    /**
+     * @param capacity Number of items kept in the top-K
+     * @param halfLife Time after which an event counts half as much
+     * @param landmark Reference time for the decay, e.g. the start of the data
+     */
+    public TrendingCounter(final int capacity, final Duration halfLife, final Instant landmark) {
+        this.capacity = Math.max(1, capacity);
+        this.lambda = Math.log(2) / Math.max(1, halfLife.getSeconds());
+        this.landmarkSeconds = landmark.getEpochSecond();
+        this.heapIds = new String[this.capacity];
+        this.heapScores = new double[this.capacity];
+    }
+
+    /**
+     * Record one event for an item.
+     *
+     * @param id The item ID
+     * @param at When the event happened
+     */
+    public void record(final String id, final Instant at) {
+        if (id == null) {
+            return;
+        }
+        final DoubleAdder adder = scores.computeIfAbsent(id, k -> new DoubleAdder());
+        adder.add(Math.exp(lambda * (at.getEpochSecond() - landmarkSeconds)));
+
+        // Only items that can enter, or are already in, the top-K take the lock
+        final double score = adder.sum();
+        if (score >= threshold || positions.containsKey(id)) {
+            offer(id, score);
+        }
+    }
+
+    /**
+     * Get the highest scoring items.
+     *
+     * @param limit Maximum number of items, at most the capacity
+     * @return Item IDs by descending score
+     */
+    public List<String> top(final int limit) {
+        if (dirty) {
+            publish();
+        }
+        final String[] current = ranked;
+        final int size = Math.max(0, Math.min(limit, current.length));
+        return Collections.unmodifiableList(Arrays.asList(current).subList(0, size));
+    }
+
+    private void offer(final String id, final double score) {
+        synchronized (topLock) {
+            final Integer position = positions.get(id);
+            if (position != null) {
+                if (score > heapScores[position]) {
+                    heapScores[position] = score;
+                    siftDown(position); // a higher score moves away from the root
+                }
+            } else if (heapSize < capacity) {
+                place(heapSize, id, score);
+                siftUp(heapSize++);
+            } else if (score > heapScores[0]) {
+                positions.remove(heapIds[0]);
+                place(0, id, score);
+                siftDown(0);
+            } else {
+                return;
+            }
+            threshold = heapSize < capacity ? Double.NEGATIVE_INFINITY : heapScores[0];
+            dirty = true;
+        }
+    }
+
+    private void publish() {
+        synchronized (topLock) {
+            if (!dirty) {
+                return;
+            }
+            final Integer[] order = new Integer[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(heapScores[b], heapScores[a]));
+            final String[] sorted = new String[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                sorted[i] = heapIds[order[i]];
+            }
+            ranked = sorted;
+            dirty = false;
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heapScores[parent] <= heapScores[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            final int child = left + 1 < heapSize && heapScores[left + 1] < heapScores[left] ? left + 1 : left;
+            if (heapScores[i] <= heapScores[child]) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(final int a, final int b) {
+        final String id = heapIds[a];
+        final double score = heapScores[a];
+        place(a, heapIds[b], heapScores[b]);
+        place(b, id, score);
+    }
+
+    private void place(final int position, final String id, final double score) {
+        heapIds[position] = id;
+        heapScores[position] = score;
+        positions.put(id, position);
+    }
+}
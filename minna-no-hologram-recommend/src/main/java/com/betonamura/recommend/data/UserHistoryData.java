@@ -1,7 +1,7 @@
 package com.betonamura.recommend.data;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -24,7 +24,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class UserHistoryData {
 
-    private final Map<String, List<UserHistory>> userHistories = new ConcurrentHashMap<>();
+    // Per-user append-only logs: writers of different users never contend
+    private final Map<String, AppendLog<UserHistory>> userHistories = new ConcurrentHashMap<>();
     private final AtomicLong idCounter = new AtomicLong(1);
 
     /**
@@ -39,14 +40,14 @@ public class UserHistoryData {
      * Find all watch history for a user
      */
     public List<UserHistory> findByUserId(String userId) {
-        return userHistories.getOrDefault(userId, new ArrayList<>());
+        return entries(userId);
     }
 
     /**
      * Find most watched videos for a user
      */
     public List<String> findMostWatchedVideoIds(String userId, int limit) {
-        Map<String, Long> countMap = userHistories.getOrDefault(userId, new ArrayList<>())
+        Map<String, Long> countMap = entries(userId)
                 .stream()
                 .collect(Collectors.groupingBy(UserHistory::getVideoId, Collectors.counting()));
 
@@ -61,7 +62,7 @@ public class UserHistoryData {
      * Get videos that a user has completed watching
      */
     public List<UserHistory> findCompletedVideos(String userId) {
-        return userHistories.getOrDefault(userId, new ArrayList<>())
+        return entries(userId)
                 .stream()
                 .filter(UserHistory::getCompleted)
                 .collect(Collectors.toList());
@@ -71,12 +72,20 @@ public class UserHistoryData {
      * Find user history since a specific date
      */
     public List<UserHistory> findByUserIdSince(String userId, LocalDateTime since) {
-        return userHistories.getOrDefault(userId, new ArrayList<>())
+        return entries(userId)
                 .stream()
                 .filter(uh -> !uh.getWatchedAt().isBefore(since))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Snapshot of a user's entries, empty if the user is unknown
+     */
+    private List<UserHistory> entries(String userId) {
+        AppendLog<UserHistory> log = userHistories.get(userId);
+        return log != null ? log.snapshot() : Collections.emptyList();
+    }
+
     /**
      * Save a user history entry
      */
@@ -86,7 +95,7 @@ public class UserHistoryData {
         }
 
         String userId = userHistory.getUserId();
-        userHistories.computeIfAbsent(userId, k -> new ArrayList<>()).add(userHistory);
+        userHistories.computeIfAbsent(userId, k -> new AppendLog<>()).append(userHistory);
 
         log.debug("Saved user history: {}", userHistory);
         return userHistory;
@@ -102,7 +111,7 @@ public class UserHistoryData {
         // For each user
         for (int i = 1; i <= 10; i++) {
             String userId = "user-" + i;
-            List<UserHistory> historyList = new ArrayList<>();
+            AppendLog<UserHistory> historyList = new AppendLog<>();
 
             // Generate 5-15 watch history entries
             int historyCount = 5 + random.nextInt(11);
@@ -131,7 +140,7 @@ public class UserHistoryData {
                         .watchedAt(timestamp)
                         .build();
 
-                historyList.add(history);
+                historyList.append(history);
             }
 
             userHistories.put(userId, historyList);
@@ -1,9 +1,11 @@
 package com.betonamura.recommend.data;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.ZoneId;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -26,9 +28,18 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class UserInteractionData {
 
-    private final Map<String, List<UserInteraction>> userInteractions = new ConcurrentHashMap<>();
+    private static final String ACTION_WATCH = "WATCH";
+    private static final int TRENDING_CAPACITY = 100;
+    private static final Duration TRENDING_HALF_LIFE = Duration.ofDays(7);
+
+    // Per-user append-only logs: writers of different users never contend
+    private final Map<String, AppendLog<UserInteraction>> userInteractions = new ConcurrentHashMap<>();
     private final AtomicLong idCounter = new AtomicLong(1);
 
+    // Watch counts per video, decayed over time and updated on every save
+    private final TrendingCounter trending = new TrendingCounter(TRENDING_CAPACITY, TRENDING_HALF_LIFE,
+            Instant.now().minus(Duration.ofDays(30)));
+
     /**
      * Initialize with dummy data
      */
@@ -41,14 +52,14 @@ public class UserInteractionData {
      * Find all interactions for a user
      */
     public List<UserInteraction> findByUserId(String userId) {
-        return userInteractions.getOrDefault(userId, new ArrayList<>());
+        return entries(userId);
     }
 
     /**
      * Find interactions for a user with a specific action
      */
     public List<UserInteraction> findByUserIdAndAction(String userId, String action) {
-        return userInteractions.getOrDefault(userId, new ArrayList<>())
+        return entries(userId)
                 .stream()
                 .filter(ui -> ui.getAction().equals(action))
                 .collect(Collectors.toList());
@@ -58,7 +69,7 @@ public class UserInteractionData {
      * Find recent user interactions, ordered by timestamp
      */
     public List<UserInteraction> findRecentByUserId(String userId) {
-        return userInteractions.getOrDefault(userId, new ArrayList<>())
+        return entries(userId)
                 .stream()
                 .sorted(Comparator.comparing(UserInteraction::getInteractionTime).reversed())
                 .collect(Collectors.toList());
@@ -68,7 +79,7 @@ public class UserInteractionData {
      * Find most watched videos for a user
      */
     public List<String> findMostWatchedVideoIds(String userId) {
-        Map<String, Long> countMap = userInteractions.getOrDefault(userId, new ArrayList<>())
+        Map<String, Long> countMap = entries(userId)
                 .stream()
                 .filter(ui -> "WATCH".equals(ui.getAction()))
                 .collect(Collectors.groupingBy(UserInteraction::getVideoId, Collectors.counting()));
@@ -83,31 +94,26 @@ public class UserInteractionData {
      * Find user interactions since a specific date
      */
     public List<UserInteraction> findByUserIdSince(String userId, LocalDateTime since) {
-        return userInteractions.getOrDefault(userId, new ArrayList<>())
+        return entries(userId)
                 .stream()
                 .filter(ui -> !ui.getInteractionTime().isBefore(since))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Find trending videos based on watch count
+     * Find trending videos based on recent watch count.
+     * Reads the maintained top-K, so the cost does not depend on the history size.
      */
     public List<String> findTrendingVideoIds(int limit) {
-        Map<String, Long> videoWatchCounts = new HashMap<>();
-
-        for (List<UserInteraction> interactions : userInteractions.values()) {
-            interactions.stream()
-                    .filter(ui -> "WATCH".equals(ui.getAction()))
-                    .forEach(ui -> {
-                        videoWatchCounts.merge(ui.getVideoId(), 1L, Long::sum);
-                    });
-        }
+        return trending.top(limit);
+    }
 
-        return videoWatchCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    /**
+     * Snapshot of a user's entries, empty if the user is unknown
+     */
+    private List<UserInteraction> entries(String userId) {
+        AppendLog<UserInteraction> log = userInteractions.get(userId);
+        return log != null ? log.snapshot() : Collections.emptyList();
     }
 
     /**
@@ -119,7 +125,8 @@ public class UserInteractionData {
         }
 
         String userId = userInteraction.getUserId();
-        userInteractions.computeIfAbsent(userId, k -> new ArrayList<>()).add(userInteraction);
+        userInteractions.computeIfAbsent(userId, k -> new AppendLog<>()).append(userInteraction);
+        recordTrending(userInteraction);
 
         log.debug("Saved user interaction: {}", userInteraction);
         return userInteraction;
@@ -135,7 +142,7 @@ public class UserInteractionData {
         // For each user in our dummy data from DataProvider
         for (int i = 1; i <= 10; i++) {
             String userId = "user-" + i;
-            List<UserInteraction> interactions = new ArrayList<>();
+            AppendLog<UserInteraction> interactions = new AppendLog<>();
 
             // Generate 10-30 random interactions for each user
             int interactionCount = 10 + random.nextInt(21);
@@ -166,7 +173,8 @@ public class UserInteractionData {
                         .createdAt(timestamp)
                         .build();
 
-                interactions.add(interaction);
+                interactions.append(interaction);
+                recordTrending(interaction);
             }
 
             userInteractions.put(userId, interactions);
@@ -174,4 +182,15 @@ public class UserInteractionData {
 
         log.info("Initialized user interactions data with {} users", userInteractions.size());
     }
+
+    /**
+     * Count a watch towards the trending videos
+     */
+    private void recordTrending(UserInteraction interaction) {
+        if (ACTION_WATCH.equals(interaction.getAction())) {
+            LocalDateTime time = interaction.getInteractionTime();
+            trending.record(interaction.getVideoId(),
+                    time != null ? time.atZone(ZoneId.systemDefault()).toInstant() : Instant.now());
+        }
+    }
 }
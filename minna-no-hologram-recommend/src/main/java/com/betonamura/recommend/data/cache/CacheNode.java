@@ -0,0 +1,37 @@
+package com.betonamura.recommend.data.cache;
+
+/**
+ * Entry of a {@link CachePolicy}, linked into one access-order queue and one
+ * timer wheel bucket at the same time.
+ */
+final class CacheNode<K> {
+
+    static final int WINDOW = 0;
+    static final int PROBATION = 1;
+    static final int PROTECTED = 2;
+
+    final K key;
+    int queue;
+    CacheNode<K> prev;
+    CacheNode<K> next;
+
+    long expireAt;
+    CacheNode<K> prevInTimer;
+    CacheNode<K> nextInTimer;
+
+    CacheNode(final K key) {
+        this.key = key;
+    }
+
+    /**
+     * Create the sentinel of a circular list.
+     */
+    static <K> CacheNode<K> sentinel() {
+        final CacheNode<K> sentinel = new CacheNode<>(null);
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        sentinel.prevInTimer = sentinel;
+        sentinel.nextInTimer = sentinel;
+        return sentinel;
+    }
+}
@@ -0,0 +1,258 @@
+package com.betonamura.recommend.data.cache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Size and expiry bookkeeping for a bounded cache, with O(1) work per
+ * operation. The policy tracks keys only; the caller stores the values and
+ * drops those the policy evicts or expires.
+ *
+ * Eviction is W-TinyLFU: new keys enter a small LRU window (1% of the
+ * capacity). Keys pushed out of the window compete with the oldest key of the
+ * main area; the one a frequency sketch has seen more often stays. The main
+ * area is a segmented LRU: keys hit while on probation move to a protected
+ * segment (80% of the main area), so one-off scans cannot flush the
+ * frequently used entries.
+ *
+ * Expiry after write is tracked on a hierarchical {@link TimerWheel}.
+ *
+ * Not thread-safe; callers serialize access.
+ */
+public final class CachePolicy<K> {
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final long expireAfterWriteMillis;
+
+    private final Map<K, CacheNode<K>> nodes = new HashMap<>();
+    private final FrequencySketch sketch;
+    private final TimerWheel<K> timerWheel;
+    private final CacheNode<K> window = CacheNode.sentinel();
+    private final CacheNode<K> probation = CacheNode.sentinel();
+    private final CacheNode<K> protectedQueue = CacheNode.sentinel();
+    private int windowSize;
+    private int protectedSize;
+
+    /**
+     * @param maximumSize            Maximum number of entries
+     * @param expireAfterWriteMillis Time to live of an entry after it is written
+     * @param now                    The current time, in milliseconds
+     */
+    public CachePolicy(final int maximumSize, final long expireAfterWriteMillis, final long now) {
+        this.maximumSize = Math.max(1, maximumSize);
+        this.windowMaximum = Math.max(1, this.maximumSize / 100);
+        this.protectedMaximum = (int) ((this.maximumSize - windowMaximum) * 0.8);
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+        this.sketch = new FrequencySketch(this.maximumSize);
+        this.timerWheel = new TimerWheel<>(now);
+    }
+
+    /**
+     * Record a read that found the key.
+     */
+    public void recordHit(final K key) {
+        sketch.increment(key);
+        final CacheNode<K> node = nodes.get(key);
+        if (node != null) {
+            onAccess(node);
+        }
+    }
+
+    /**
+     * Record a read that did not find the key.
+     */
+    public void recordMiss(final K key) {
+        sketch.increment(key);
+    }
+
+    /**
+     * Record that a key was written, evicting keys if the cache is now over
+     * capacity. The written key itself is never evicted by this call.
+     *
+     * @param key     The key
+     * @param now     The current time, in milliseconds
+     * @param evicted Receives each evicted key
+     */
+    public void recordWrite(final K key, final long now, final Consumer<K> evicted) {
+        CacheNode<K> node = nodes.get(key);
+        if (node != null) {
+            node.expireAt = now + expireAfterWriteMillis;
+            timerWheel.reschedule(node);
+            onAccess(node);
+            return;
+        }
+
+        sketch.increment(key);
+        node = new CacheNode<>(key);
+        node.queue = CacheNode.WINDOW;
+        node.expireAt = now + expireAfterWriteMillis;
+        nodes.put(key, node);
+        linkLast(window, node);
+        windowSize++;
+        timerWheel.schedule(node);
+        evictEntries(evicted);
+    }
+
+    /**
+     * Stop tracking a key.
+     *
+     * @return true if the key was tracked
+     */
+    public boolean remove(final K key) {
+        final CacheNode<K> node = nodes.get(key);
+        if (node == null) {
+            return false;
+        }
+        removeNode(node);
+        timerWheel.deschedule(node);
+        return true;
+    }
+
+    /**
+     * Expire the keys whose time to live has passed.
+     *
+     * @param now     The current time, in milliseconds
+     * @param expired Receives each expired key
+     */
+    public void expire(final long now, final Consumer<K> expired) {
+        timerWheel.advance(now, node -> {
+            removeNode(node);
+            expired.accept(node.key);
+        });
+    }
+
+    /**
+     * Forget every key.
+     */
+    public void clear() {
+        nodes.clear();
+        for (CacheNode<K> sentinel : List.of(window, probation, protectedQueue)) {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+        windowSize = 0;
+        protectedSize = 0;
+        timerWheel.clear();
+        sketch.clear();
+    }
+
+    /**
+     * Number of tracked keys.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private void onAccess(final CacheNode<K> node) {
+        switch (node.queue) {
+            case CacheNode.WINDOW:
+                unlink(node);
+                linkLast(window, node);
+                break;
+            case CacheNode.PROBATION:
+                unlink(node);
+                node.queue = CacheNode.PROTECTED;
+                linkLast(protectedQueue, node);
+                protectedSize++;
+                while (protectedSize > protectedMaximum) {
+                    // Demote the least recently used protected key
+                    final CacheNode<K> demoted = protectedQueue.next;
+                    unlink(demoted);
+                    protectedSize--;
+                    demoted.queue = CacheNode.PROBATION;
+                    linkLast(probation, demoted);
+                }
+                break;
+            default:
+                unlink(node);
+                linkLast(protectedQueue, node);
+                break;
+        }
+    }
+
+    private void evictEntries(final Consumer<K> evicted) {
+        // Keys leaving the window become candidates at the tail of probation
+        CacheNode<K> candidate = null;
+        while (windowSize > windowMaximum) {
+            final CacheNode<K> node = window.next;
+            unlink(node);
+            windowSize--;
+            node.queue = CacheNode.PROBATION;
+            linkLast(probation, node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        while (nodes.size() > maximumSize) {
+            CacheNode<K> victim = first(probation);
+            if (victim == null) {
+                victim = first(protectedQueue) != null ? first(protectedQueue) : first(window);
+            }
+            if (candidate == null || victim == candidate) {
+                if (victim == candidate) {
+                    candidate = next(candidate, probation);
+                }
+                evict(victim, evicted);
+                continue;
+            }
+
+            // TinyLFU admission: keep whichever key is used more often
+            final CacheNode<K> nextCandidate = next(candidate, probation);
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim, evicted);
+            } else {
+                evict(candidate, evicted);
+            }
+            candidate = nextCandidate;
+        }
+    }
+
+    private void evict(final CacheNode<K> node, final Consumer<K> evicted) {
+        removeNode(node);
+        timerWheel.deschedule(node);
+        evicted.accept(node.key);
+    }
+
+    private void removeNode(final CacheNode<K> node) {
+        nodes.remove(node.key);
+        unlink(node);
+        if (node.queue == CacheNode.WINDOW) {
+            windowSize--;
+        } else if (node.queue == CacheNode.PROTECTED) {
+            protectedSize--;
+        }
+    }
+
+    private static <K> CacheNode<K> first(final CacheNode<K> sentinel) {
+        return sentinel.next != sentinel ? sentinel.next : null;
+    }
+
+    private static <K> CacheNode<K> next(final CacheNode<K> node, final CacheNode<K> sentinel) {
+        return node.next != sentinel ? node.next : null;
+    }
+
+    private static <K> void linkLast(final CacheNode<K> sentinel, final CacheNode<K> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <K> void unlink(final CacheNode<K> node) {
+        if (node.next != null) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.betonamura.recommend.data.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time statistics of a cache.
+ */
+@Data
+@Builder
+public class CacheStats {
+    private int size;
+    private int maximumSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRate; // hits over all lookups, 0 before the first lookup
+    private long evictionCount; // entries dropped to stay within the maximum size
+    private long expirationCount; // entries dropped after their time to live
+}
@@ -0,0 +1,93 @@
+package com.betonamura.recommend.data.cache;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often each key was seen
+ * recently (TinyLFU).
+ *
+ * Every key maps to one counter in each of four rows; its estimate is the
+ * smallest of them. Once the number of increments reaches ten times the cache
+ * size, all counters are halved, so old popularity fades out. The sketch uses
+ * 8 bytes per cached entry regardless of how many distinct keys it sees.
+ */
+final class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(final int maximumSize) {
+        final int size = Math.max(16, Integer.highestOneBit(Math.max(1, maximumSize) - 1) << 1);
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    /**
+     * Estimated number of recent occurrences of a key, at most 15.
+     */
+    int frequency(final Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            final long word = table[indexOf(hash, i)];
+            frequency = Math.min(frequency, (int) ((word >>> offsetOf(hash, i)) & 0xfL));
+        }
+        return frequency;
+    }
+
+    /**
+     * Record one occurrence of a key.
+     */
+    void increment(final Object key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = offsetOf(hash, i);
+            if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    void clear() {
+        Arrays.fill(table, 0L);
+        additions = 0;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(final int hash, final int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /**
+     * Bit offset of the row's counter among the 16 counters of a word.
+     */
+    private static int offsetOf(final int hash, final int row) {
+        return ((hash >>> (row << 3)) & 0xf) << 2;
+    }
+
+    private static int spread(final int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
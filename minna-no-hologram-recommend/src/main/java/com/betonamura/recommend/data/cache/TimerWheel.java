@@ -0,0 +1,146 @@
+package com.betonamura.recommend.data.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel for entry expiry.
+ *
+ * Each wheel is an array of buckets covering a fixed time span; an entry goes
+ * into the bucket of the coarsest wheel that still resolves its expiry time.
+ * Scheduling and cancelling are O(1). Advancing the clock visits only the
+ * buckets whose span has passed, expiring their entries or cascading them
+ * down into finer wheels, so the cost is proportional to the entries that
+ * are due rather than to the size of the cache. Times are in milliseconds.
+ */
+final class TimerWheel<K> {
+
+    private static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+    // Bucket span of each wheel: ~1 s, ~1 min, ~1 h, ~1.5 d and the overflow
+    private static final long[] SPANS = { 1L << 10, 1L << 16, 1L << 22, 1L << 27, 1L << 29, 1L << 29 };
+    private static final long[] SHIFT = new long[SPANS.length];
+
+    static {
+        for (int i = 0; i < SPANS.length; i++) {
+            SHIFT[i] = Long.numberOfTrailingZeros(SPANS[i]);
+        }
+    }
+
+    private final CacheNode<K>[][] wheel;
+    private long time;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(final long now) {
+        this.time = now;
+        this.wheel = new CacheNode[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = new CacheNode[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                wheel[i][j] = CacheNode.sentinel();
+            }
+        }
+    }
+
+    /**
+     * Schedule a node at its {@code expireAt} time.
+     */
+    void schedule(final CacheNode<K> node) {
+        link(findBucket(node.expireAt), node);
+    }
+
+    /**
+     * Move a node whose {@code expireAt} time changed.
+     */
+    void reschedule(final CacheNode<K> node) {
+        deschedule(node);
+        schedule(node);
+    }
+
+    /**
+     * Remove a node from the wheel, if scheduled.
+     */
+    void deschedule(final CacheNode<K> node) {
+        if (node.nextInTimer != null) {
+            node.prevInTimer.nextInTimer = node.nextInTimer;
+            node.nextInTimer.prevInTimer = node.prevInTimer;
+            node.nextInTimer = null;
+            node.prevInTimer = null;
+        }
+    }
+
+    /**
+     * Advance the clock and hand over the nodes that expired. Handed over
+     * nodes are no longer scheduled.
+     *
+     * @param now     The current time
+     * @param expired Receives each expired node
+     */
+    void advance(final long now, final Consumer<CacheNode<K>> expired) {
+        final long previous = time;
+        time = now;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            final long previousTicks = previous >>> SHIFT[i];
+            final long currentTicks = now >>> SHIFT[i];
+            if (currentTicks - previousTicks <= 0L) {
+                break;
+            }
+            expireBuckets(i, previousTicks, currentTicks - previousTicks, expired);
+        }
+    }
+
+    /**
+     * Remove every node.
+     */
+    void clear() {
+        for (CacheNode<K>[] buckets : wheel) {
+            for (CacheNode<K> sentinel : buckets) {
+                sentinel.prevInTimer = sentinel;
+                sentinel.nextInTimer = sentinel;
+            }
+        }
+    }
+
+    private void expireBuckets(final int index, final long previousTicks, final long delta,
+            final Consumer<CacheNode<K>> expired) {
+        final CacheNode<K>[] buckets = wheel[index];
+        final int mask = buckets.length - 1;
+        final int steps = (int) Math.min(1 + delta, buckets.length);
+        final int start = (int) (previousTicks & mask);
+        for (int i = start; i < start + steps; i++) {
+            final CacheNode<K> sentinel = buckets[i & mask];
+            CacheNode<K> node = sentinel.nextInTimer;
+            // Detach the whole bucket first; nodes not yet due are scheduled again
+            sentinel.prevInTimer = sentinel;
+            sentinel.nextInTimer = sentinel;
+            while (node != sentinel) {
+                final CacheNode<K> next = node.nextInTimer;
+                node.prevInTimer = null;
+                node.nextInTimer = null;
+                if (node.expireAt - time <= 0L) {
+                    expired.accept(node);
+                } else {
+                    schedule(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    private CacheNode<K> findBucket(final long expireAt) {
+        final long duration = expireAt - time;
+        final int last = wheel.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (duration < SPANS[i + 1]) {
+                final long ticks = expireAt >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[last][0];
+    }
+
+    private static <K> void link(final CacheNode<K> sentinel, final CacheNode<K> node) {
+        node.prevInTimer = sentinel.prevInTimer;
+        node.nextInTimer = sentinel;
+        sentinel.prevInTimer.nextInTimer = node;
+        sentinel.prevInTimer = node;
+    }
+}
@@ -0,0 +1,350 @@
+package com.betonamura.recommend.data.embedding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.betonamura.recommend.domain.common.ContentType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embeddings persisted to a file and memory-mapped read-only, so a restart
+ * reuses them instead of running the model again.
+ *
+ * Layout, little-endian:
+ * <pre>
+ * header      magic, version, dimension, row count, dictionary offset,
+ *             model name (length-prefixed UTF-8), padded to 4 bytes
+ * rows        row count x dimension floats, packed
+ * dictionary  per row: content type, fingerprint, content ID
+ * </pre>
+ * The dictionary is read into memory on open; the rows are paged in by the
+ * OS on first use. A file written for another model or dimension is ignored.
+ * Each row carries the {@link #fingerprint fingerprint} of the model and text
+ * it was computed from, so an entry is only reused while both are unchanged.
+ *
+ * A file is immutable once written: {@link Writer} builds a new file next to
+ * it and atomically moves it into place.
+ */
+@Slf4j
+public final class EmbeddingFile {
+
+    private static final int MAGIC = 0x4d454748; // "HGEM"
+    private static final int VERSION = 2;
+    private static final int NO_ROW = -1;
+
+    private final String modelName;
+    private final int dimension;
+    private final FloatBuffer rows;
+    private final Map<ContentType, Map<String, Entry>> entries;
+
+    private EmbeddingFile(final String modelName, final int dimension, final FloatBuffer rows,
+            final Map<ContentType, Map<String, Entry>> entries) {
+        this.modelName = modelName;
+        this.dimension = dimension;
+        this.rows = rows;
+        this.entries = entries;
+    }
+
+    /**
+     * An empty file, for when nothing was persisted yet.
+     */
+    public static EmbeddingFile empty(final String modelName, final int dimension) {
+        return new EmbeddingFile(modelName, dimension, FloatBuffer.allocate(0), Collections.emptyMap());
+    }
+
+    /**
+     * Map a persisted file. A missing, unreadable or incompatible file gives an
+     * empty one.
+     *
+     * @param path      The file
+     * @param modelName The model the embeddings must come from
+     * @param dimension The expected embedding dimension
+     * @return The mapped file
+     */
+    public static EmbeddingFile open(final Path path, final String modelName, final int dimension) {
+        if (!Files.isRegularFile(path)) {
+            return empty(modelName, dimension);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                log.warn("Ignoring embedding file {}: unknown format", path);
+                return empty(modelName, dimension);
+            }
+            final int fileDimension = mapped.getInt();
+            final int rowCount = mapped.getInt();
+            final long dictionaryOffset = mapped.getLong();
+            final String fileModel = readString(mapped);
+            if (fileDimension != dimension || !fileModel.equals(modelName)) {
+                log.info("Ignoring embedding file {}: written for model {} ({} dimensions)",
+                        path, fileModel, fileDimension);
+                return empty(modelName, dimension);
+            }
+
+            final int rowsOffset = align(mapped.position());
+            final FloatBuffer rows = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                    .position(rowsOffset)
+                    .limit(rowsOffset + rowCount * dimension * Float.BYTES)
+                    .slice()
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+
+            final Map<ContentType, Map<String, Entry>> entries = new EnumMap<>(ContentType.class);
+            final ContentType[] types = ContentType.values();
+            mapped.position((int) dictionaryOffset);
+            for (int row = 0; row < rowCount; row++) {
+                final ContentType type = types[mapped.get()];
+                final long fingerprint = mapped.getLong();
+                final String id = readString(mapped);
+                entries.computeIfAbsent(type, k -> new HashMap<>()).put(id, new Entry(row, fingerprint));
+            }
+            log.info("Mapped {} persisted embeddings from {}", rowCount, path);
+            return new EmbeddingFile(modelName, dimension, rows, entries);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable embedding file {}: {}", path, e.toString());
+            return empty(modelName, dimension);
+        }
+    }
+
+    /**
+     * Find a persisted embedding computed from the same content.
+     *
+     * @param type        The content type
+     * @param id          The content ID
+     * @param fingerprint Fingerprint of the content, see {@link #fingerprint}
+     * @return The row, or -1 if missing or computed from other content
+     */
+    public int find(final ContentType type, final String id, final long fingerprint) {
+        final Map<String, Entry> byId = entries.get(type);
+        final Entry entry = byId != null ? byId.get(id) : null;
+        return entry != null && entry.fingerprint == fingerprint ? entry.row : NO_ROW;
+    }
+
+    /**
+     * Find a persisted embedding whatever content it was computed from.
+     *
+     * @return The row, or -1 if missing
+     */
+    public int find(final ContentType type, final String id) {
+        final Map<String, Entry> byId = entries.get(type);
+        final Entry entry = byId != null ? byId.get(id) : null;
+        return entry != null ? entry.row : NO_ROW;
+    }
+
+    /**
+     * IDs of the persisted content of a type.
+     */
+    public Set<String> ids(final ContentType type) {
+        final Map<String, Entry> byId = entries.get(type);
+        return byId != null ? Collections.unmodifiableSet(byId.keySet()) : Collections.emptySet();
+    }
+
+    /**
+     * Copy a persisted vector into a caller-owned buffer.
+     *
+     * @param row    The row, from {@link #find}
+     * @param target Buffer of at least the dimension
+     * @return The target buffer
+     */
+    public float[] read(final int row, final float[] target) {
+        rows.get(row * dimension, target, 0, dimension);
+        return target;
+    }
+
+    /**
+     * Number of persisted embeddings.
+     */
+    public int size() {
+        return rows.capacity() / Math.max(1, dimension);
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Fingerprint of an embedding: a 64-bit FNV-1a hash of the model name and
+     * the text the embedding is computed from.
+     */
+    public static long fingerprint(final String modelName, final String text) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, modelName);
+        hash *= 0x100000001b3L; // zero separator, so ("ab", "c") differs from ("a", "bc")
+        return fnv(hash, text);
+    }
+
+    private static long fnv(long hash, final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Start writing a new file that replaces {@code path} when closed.
+     */
+    public static Writer writer(final Path path, final String modelName, final int dimension) throws IOException {
+        return new Writer(path, modelName, dimension);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(final ByteBuffer buffer, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static int align(final int offset) {
+        return (offset + Float.BYTES - 1) & ~(Float.BYTES - 1);
+    }
+
+    private static final class Entry {
+        private final int row;
+        private final long fingerprint;
+
+        private Entry(final int row, final long fingerprint) {
+            this.row = row;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Streams rows into a temporary file; {@link #close()} writes the
+     * dictionary and header and moves the file into place.
+     */
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final Path tempPath;
+        private final FileChannel channel;
+        private final String modelName;
+        private final int dimension;
+        private final int rowsOffset;
+        private final ByteBuffer rowBuffer;
+        private final ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        private final ByteBuffer dictionaryEntry = ByteBuffer.allocate(1 + Long.BYTES + 2 + 0xffff)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        private int rowCount;
+        private boolean committed;
+
+        private Writer(final Path path, final String modelName, final int dimension) throws IOException {
+            this.path = path;
+            this.modelName = modelName;
+            this.dimension = dimension;
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.rowsOffset = align(header(0, 0).limit());
+            this.rowBuffer = ByteBuffer.allocate(Math.max(dimension * Float.BYTES, 1 << 16))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(rowsOffset);
+        }
+
+        /**
+         * Append one embedding.
+         */
+        public void append(final ContentType type, final String id, final long fingerprint, final float[] vector)
+                throws IOException {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected a vector of dimension " + dimension);
+            }
+            if (rowBuffer.remaining() < dimension * Float.BYTES) {
+                flushRows();
+            }
+            rowBuffer.asFloatBuffer().put(vector);
+            rowBuffer.position(rowBuffer.position() + dimension * Float.BYTES);
+
+            dictionaryEntry.clear();
+            dictionaryEntry.put((byte) type.ordinal());
+            dictionaryEntry.putLong(fingerprint);
+            writeString(dictionaryEntry, id);
+            dictionary.write(dictionaryEntry.array(), 0, dictionaryEntry.position());
+            rowCount++;
+        }
+
+        /**
+         * Discard the file instead of replacing the current one.
+         */
+        public void abort() throws IOException {
+            channel.close();
+            Files.deleteIfExists(tempPath);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            committed = true;
+            try {
+                flushRows();
+                final long dictionaryOffset = channel.position();
+                write(ByteBuffer.wrap(dictionary.toByteArray()));
+                final ByteBuffer header = header(rowCount, dictionaryOffset);
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+            try {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.info("Persisted {} embeddings to {}", rowCount, path);
+        }
+
+        private ByteBuffer header(final int rows, final long dictionaryOffset) {
+            final ByteBuffer header = ByteBuffer.allocate(4 * Integer.BYTES + Long.BYTES + 2
+                    + modelName.getBytes(StandardCharsets.UTF_8).length).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(rows).putLong(dictionaryOffset);
+            writeString(header, modelName);
+            return header.flip();
+        }
+
+        private void flushRows() throws IOException {
+            rowBuffer.flip();
+            write(rowBuffer);
+            rowBuffer.clear();
+        }
+
+        private void write(final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.betonamura.recommend.data.embedding;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedding vectors of one content type, packed row-major into a single
+ * float array.
+ *
+ * Each content ID maps to a dense row number through an ID dictionary, so a
+ * vector is addressed by an int and read straight out of the shared array:
+ * no per-embedding objects, no boxed keys and contiguous memory for
+ * similarity scans. Rows freed by {@link #remove(String)} are reused.
+ *
+ * Vectors are L2-normalized when stored, so the cosine similarity of two rows
+ * is their dot product.
+ *
+ * Writers are serialized on the store. Readers never lock: a row is fully
+ * written before its ID is published, and the backing array is swapped
+ * through a volatile field when it grows. Row numbers stay valid until the ID
+ * is removed; a vector replaced in place may be read half-updated by a
+ * concurrent reader.
+ */
+public class EmbeddingStore {
+
+    private final int dimension;
+    private final Map<String, Integer> rows = new ConcurrentHashMap<>();
+
+    private volatile float[] data;
+    private volatile String[] ids;
+    private volatile long[] timestamps;
+    private int rowCount; // rows ever allocated, written under the store lock
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    /**
+     * @param dimension       Length of the stored vectors
+     * @param initialCapacity Number of rows to allocate up front
+     */
+    public EmbeddingStore(final int dimension, final int initialCapacity) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+        final int capacity = Math.max(16, initialCapacity);
+        this.data = new float[capacity * dimension];
+        this.ids = new String[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /**
+     * Store or replace the vector of a content item. The vector is stored
+     * normalized; the caller's array is not modified.
+     *
+     * @param id        The content ID
+     * @param vector    The embedding, of the store dimension
+     * @param timestamp When the embedding was created, in epoch milliseconds
+     * @return The row holding the vector
+     */
+    public synchronized int put(final String id, final float[] vector, final long timestamp) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension);
+        }
+        final Integer existing = rows.get(id);
+        final int row = existing != null ? existing : allocateRow();
+        final float[] values = data;
+        final int offset = row * dimension;
+        final float norm = VectorMath.dot(vector, vector);
+        final float scale = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        for (int i = 0; i < dimension; i++) {
+            values[offset + i] = vector[i] * scale;
+        }
+        timestamps[row] = timestamp;
+        ids[row] = id;
+        if (existing == null) {
+            // Publish the row only once it is fully written
+            rows.put(id, row);
+        }
+        return row;
+    }
+
+    /**
+     * Remove a content item and free its row.
+     *
+     * @param id The content ID
+     * @return true if the item was stored
+     */
+    public synchronized boolean remove(final String id) {
+        final Integer row = rows.remove(id);
+        if (row == null) {
+            return false;
+        }
+        ids[row] = null;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+        return true;
+    }
+
+    /**
+     * Remove every item.
+     */
+    public synchronized void clear() {
+        rows.clear();
+        Arrays.fill(ids, null);
+        rowCount = 0;
+        freeCount = 0;
+    }
+
+    /**
+     * Get the row of a content item.
+     *
+     * @param id The content ID
+     * @return The row, or -1 if the item is not stored
+     */
+    public int rowOf(final String id) {
+        final Integer row = rows.get(id);
+        return row != null ? row : -1;
+    }
+
+    /**
+     * Content ID stored in a row, or null if the row is free.
+     */
+    public String idAt(final int row) {
+        return ids[row];
+    }
+
+    /**
+     * Creation time of the embedding in a row, in epoch milliseconds.
+     */
+    public long timestampAt(final int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * Read one component of a stored vector.
+     */
+    public float get(final int row, final int component) {
+        return data[row * dimension + component];
+    }
+
+    /**
+     * Copy a stored vector into a caller-owned buffer.
+     *
+     * @param row    The row
+     * @param target Buffer of at least the store dimension
+     * @return The target buffer
+     */
+    public float[] copyTo(final int row, final float[] target) {
+        System.arraycopy(data, row * dimension, target, 0, dimension);
+        return target;
+    }
+
+    /**
+     * Dot product of a stored vector with a query vector; the cosine
+     * similarity if the query is normalized.
+     */
+    public double dot(final int row, final float[] query) {
+        return VectorMath.dot(query, data, row * dimension);
+    }
+
+    /**
+     * Cosine similarity of two stored vectors.
+     *
+     * @return Similarity between -1 and 1, 0 if either vector is zero
+     */
+    public double cosine(final int rowA, final int rowB) {
+        final float[] values = data;
+        return VectorMath.dot(values, rowA * dimension, values, rowB * dimension, dimension);
+    }
+
+    /**
+     * Score a normalized query against a range of rows in one pass over the
+     * packed matrix. Scores of free rows, see {@link #idAt(int)}, are
+     * meaningless.
+     *
+     * @param query    The normalized query, of the store dimension
+     * @param firstRow First row to score
+     * @param rows     Number of rows, at most {@link #rowLimit()} - firstRow
+     * @param scores   Receives one cosine similarity per row, from index 0
+     */
+    public void dotRows(final float[] query, final int firstRow, final int rows, final float[] scores) {
+        VectorMath.dotRows(query, data, firstRow, rows, scores);
+    }
+
+    /**
+     * Number of stored items.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Upper bound of the row numbers in use; rows below it may be free, see
+     * {@link #idAt(int)}.
+     */
+    public synchronized int rowLimit() {
+        return rowCount;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        final int row = rowCount;
+        if (row == ids.length) {
+            final int capacity = ids.length * 2;
+            data = Arrays.copyOf(data, capacity * dimension);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        rowCount++;
+        return row;
+    }
+}
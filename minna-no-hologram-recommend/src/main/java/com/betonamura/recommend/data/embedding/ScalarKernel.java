@@ -0,0 +1,32 @@
+package com.betonamura.recommend.data.embedding;
+
+/**
+ * Portable kernel. Four independent accumulators let the JIT pipeline, and
+ * often auto-vectorize, the loop.
+ */
+final class ScalarKernel implements VectorKernel {
+
+    @Override
+    public float dot(final float[] a, final int aOffset, final float[] b, final int bOffset, final int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (final int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,28 @@
+package com.betonamura.recommend.data.embedding;
+
+/**
+ * Inner loops of the vector math, see {@link VectorMath}.
+ */
+interface VectorKernel {
+
+    /**
+     * Dot product of two slices of equal length.
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Dot product of a query with consecutive rows of a row-major matrix.
+     */
+    default void dotRows(final float[] query, final float[] matrix, final int firstRow, final int rows,
+            final float[] scores) {
+        final int dimension = query.length;
+        for (int r = 0; r < rows; r++) {
+            scores[r] = dot(query, 0, matrix, (firstRow + r) * dimension, dimension);
+        }
+    }
+
+    /**
+     * Name of the implementation, for logging.
+     */
+    String name();
+}
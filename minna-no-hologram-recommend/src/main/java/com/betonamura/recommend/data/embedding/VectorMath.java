@@ -0,0 +1,113 @@
+package com.betonamura.recommend.data.embedding;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Similarity math on embedding vectors.
+ *
+ * Stored vectors are L2-normalized once, on insert, so cosine similarity is a
+ * plain dot product. Dot products run on the JDK Vector API when the
+ * jdk.incubator.vector module is available (start the JVM with
+ * {@code --add-modules jdk.incubator.vector}) and on a scalar loop otherwise.
+ */
+@Slf4j
+public final class VectorMath {
+
+    private static final String SIMD_KERNEL = "com.betonamura.recommend.data.embedding.SimdKernel";
+    private static final VectorKernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    /**
+     * Dot product of two vectors of equal length.
+     */
+    public static float dot(final float[] a, final float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Embedding dimensions don't match");
+        }
+        return KERNEL.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Dot product of a vector with a slice of a row-major matrix.
+     */
+    public static float dot(final float[] query, final float[] matrix, final int offset) {
+        return KERNEL.dot(query, 0, matrix, offset, query.length);
+    }
+
+    /**
+     * Dot product of two slices of equal length.
+     */
+    public static float dot(final float[] a, final int aOffset, final float[] b, final int bOffset,
+            final int length) {
+        return KERNEL.dot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Dot product of a query with consecutive rows of a row-major matrix whose
+     * row length is the query length.
+     *
+     * @param query    The query vector
+     * @param matrix   The matrix
+     * @param firstRow First row to score
+     * @param rows     Number of rows to score
+     * @param scores   Receives one score per row, from index 0
+     */
+    public static void dotRows(final float[] query, final float[] matrix, final int firstRow, final int rows,
+            final float[] scores) {
+        KERNEL.dotRows(query, matrix, firstRow, rows, scores);
+    }
+
+    /**
+     * Cosine similarity of two vectors that are not normalized.
+     *
+     * @return Similarity between -1 and 1, 0 if either vector is zero
+     */
+    public static double cosine(final float[] a, final float[] b) {
+        final float dot = dot(a, b);
+        final float normA = KERNEL.dot(a, 0, a, 0, a.length);
+        final float normB = KERNEL.dot(b, 0, b, 0, b.length);
+        if (normA <= 0 || normB <= 0) {
+            return 0.0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    /**
+     * Scale a vector to unit length in place. Zero vectors are left as is.
+     *
+     * @return The same vector
+     */
+    public static float[] normalize(final float[] vector) {
+        final float norm = KERNEL.dot(vector, 0, vector, 0, vector.length);
+        if (norm > 0) {
+            final float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Name of the kernel in use, "scalar" or "simd-&lt;bits&gt;".
+     */
+    public static String kernelName() {
+        return KERNEL.name();
+    }
+
+    private static VectorKernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                final VectorKernel kernel = (VectorKernel) Class.forName(SIMD_KERNEL)
+                        .getDeclaredConstructor().newInstance();
+                log.info("Using {} vector kernel", kernel.name());
+                return kernel;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API unavailable, using scalar kernel: {}", e.toString());
+            }
+        }
+        return new ScalarKernel();
+    }
+}
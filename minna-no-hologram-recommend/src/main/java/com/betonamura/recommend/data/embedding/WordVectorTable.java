@@ -0,0 +1,486 @@
+package com.betonamura.recommend.data.embedding;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.betonamura.recommend.data.text.Tokenizer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A static word-vector table, memory-mapped read-only from a file.
+ *
+ * Layout, little-endian:
+ * <pre>
+ * header        magic, version, dimension, vocabulary size, slot count,
+ *               encoding, checksum, section offsets
+ * slots         open-addressing hash table: word index + 1, 0 if empty
+ * word offsets  vocabulary size + 1 char offsets into the word chars
+ * word chars    the words, UTF-16
+ * scales        one float per row, int8 encoding only
+ * rows          vocabulary size x dimension fp16 or int8 values
+ * </pre>
+ * Opening costs one mmap and no parsing, and words are looked up straight in
+ * the mapped slots, so every process on a host shares the same pages. A
+ * lookup compares chars in place and allocates nothing.
+ *
+ * Rows are fp16 (half the size of floats, about 3 significant digits) or int8
+ * with a scale per row (a quarter of the size). A table is immutable once
+ * written: {@link Writer} builds a new file and atomically moves it into
+ * place.
+ */
+@Slf4j
+public final class WordVectorTable {
+
+    /**
+     * How rows are stored.
+     */
+    public enum Encoding {
+        FP16, INT8
+    }
+
+    private static final int MAGIC = 0x56574748; // "HGWV"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 72;
+    private static final float[] HALF_TO_FLOAT = new float[1 << 16];
+
+    static {
+        for (int i = 0; i < HALF_TO_FLOAT.length; i++) {
+            HALF_TO_FLOAT[i] = halfToFloat((short) i);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int dimension;
+    private final int vocabularySize;
+    private final int slotMask;
+    private final Encoding encoding;
+    private final long checksum;
+    private final int slotsOffset;
+    private final int wordOffsetsOffset;
+    private final int charsOffset;
+    private final int scalesOffset;
+    private final int rowsOffset;
+
+    private WordVectorTable(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a word-vector table");
+        }
+        this.dimension = buffer.getInt(8);
+        this.vocabularySize = buffer.getInt(12);
+        this.slotMask = buffer.getInt(16) - 1;
+        this.encoding = Encoding.values()[buffer.get(20)];
+        this.checksum = buffer.getLong(24);
+        this.slotsOffset = (int) buffer.getLong(32);
+        this.wordOffsetsOffset = (int) buffer.getLong(40);
+        this.charsOffset = (int) buffer.getLong(48);
+        this.scalesOffset = (int) buffer.getLong(56);
+        this.rowsOffset = (int) buffer.getLong(64);
+    }
+
+    /**
+     * Map a table file.
+     *
+     * @param path The file, written by {@link Writer}
+     * @return The mapped table
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file is not a word-vector table
+     */
+    public static WordVectorTable open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final WordVectorTable table = new WordVectorTable(mapped.order(ByteOrder.LITTLE_ENDIAN));
+            log.info("Mapped {} word vectors of dimension {} ({}) from {}",
+                    table.vocabularySize, table.dimension, table.encoding, path);
+            return table;
+        }
+    }
+
+    /**
+     * Convert a word-vector text file, as published for GloVe, fastText or
+     * word2vec: one word per line followed by its components, with an
+     * optional "count dimension" first line.
+     */
+    public static void convert(final Path text, final Path path, final Encoding encoding) throws IOException {
+        Writer writer = null;
+        try (BufferedReader reader = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.trim().split(" ");
+                if (parts.length <= 2) {
+                    continue; // word2vec header or blank line
+                }
+                final float[] vector = new float[parts.length - 1];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = Float.parseFloat(parts[i + 1]);
+                }
+                if (writer == null) {
+                    writer = writer(path, vector.length, encoding);
+                }
+                writer.add(parts[0], vector);
+            }
+            if (writer == null) {
+                throw new IOException("No word vectors in " + text);
+            }
+            writer.close();
+        } catch (IOException | RuntimeException e) {
+            if (writer != null) {
+                writer.abort();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Find a word.
+     *
+     * @param word   Buffer holding the word
+     * @param offset Start of the word in the buffer
+     * @param length Length of the word
+     * @return The row of the word, or -1 if not in the vocabulary
+     */
+    public int find(final char[] word, final int offset, final int length) {
+        int slot = hash(word, offset, length) & slotMask;
+        while (true) {
+            final int entry = buffer.getInt(slotsOffset + slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (matches(entry - 1, word, offset, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+     * Find a word.
+     *
+     * @return The row of the word, or -1 if not in the vocabulary
+     */
+    public int find(final String word) {
+        return find(word.toCharArray(), 0, word.length());
+    }
+
+    /**
+     * Add the vector of a row to an accumulator.
+     *
+     * @param row    The row, from {@link #find}
+     * @param target Accumulator of at least the dimension
+     */
+    public void addTo(final int row, final float[] target) {
+        if (encoding == Encoding.FP16) {
+            final int base = rowsOffset + row * dimension * Short.BYTES;
+            for (int i = 0; i < dimension; i++) {
+                target[i] += HALF_TO_FLOAT[buffer.getShort(base + i * Short.BYTES) & 0xffff];
+            }
+        } else {
+            final int base = rowsOffset + row * dimension;
+            final float scale = buffer.getFloat(scalesOffset + row * Float.BYTES);
+            for (int i = 0; i < dimension; i++) {
+                target[i] += buffer.get(base + i) * scale;
+            }
+        }
+    }
+
+    /**
+     * Word of a row.
+     */
+    public String wordAt(final int row) {
+        final int start = buffer.getInt(wordOffsetsOffset + row * Integer.BYTES);
+        final int end = buffer.getInt(wordOffsetsOffset + (row + 1) * Integer.BYTES);
+        final char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar(charsOffset + (start + i) * Character.BYTES);
+        }
+        return new String(chars);
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Checksum of the words and rows, identifying the table contents.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Start writing a new table that replaces {@code path} when closed.
+     */
+    public static Writer writer(final Path path, final int dimension, final Encoding encoding) throws IOException {
+        return new Writer(path, dimension, encoding);
+    }
+
+    private boolean matches(final int row, final char[] word, final int offset, final int length) {
+        final int start = buffer.getInt(wordOffsetsOffset + row * Integer.BYTES);
+        final int end = buffer.getInt(wordOffsetsOffset + (row + 1) * Integer.BYTES);
+        if (end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(charsOffset + (start + i) * Character.BYTES) != word[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(final char[] word, final int offset, final int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ word[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    static float halfToFloat(final short half) {
+        final int sign = (half & 0x8000) << 16;
+        final int exponent = (half >>> 10) & 0x1f;
+        final int mantissa = half & 0x3ff;
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | mantissa << 13);
+        }
+        if (exponent == 0) {
+            final float subnormal = mantissa * 0x1p-24f;
+            return sign != 0 ? -subnormal : subnormal;
+        }
+        return Float.intBitsToFloat(sign | (exponent + 112) << 23 | mantissa << 13);
+    }
+
+    static short floatToHalf(final float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int abs = bits & 0x7fffffff;
+        if (abs >= 0x7f800000) {
+            return (short) (sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0));
+        }
+        if (abs >= 0x477ff000) {
+            return (short) (sign | 0x7c00); // rounds past the largest half
+        }
+        if (abs < 0x38800000) {
+            // Subnormal half, in units of 2^-24
+            return (short) (sign | Math.round(Float.intBitsToFloat(abs) * 0x1p24f));
+        }
+        int half = ((abs >>> 23) - 112) << 10 | (abs & 0x7fffff) >>> 13;
+        final int rest = abs & 0x1fff;
+        if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0)) {
+            half++; // round to nearest even, a carry moves into the exponent
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * Streams rows into a temporary file; {@link #close()} writes the
+     * vocabulary and header and moves the table into place.
+     */
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final Path rowsPath;
+        private final FileChannel rows;
+        private final int dimension;
+        private final Encoding encoding;
+        private final ByteBuffer row;
+        private final List<String> words = new ArrayList<>();
+        private final Set<String> seen = new HashSet<>();
+        private float[] scales = new float[1024];
+        private long checksum = 0xcbf29ce484222325L;
+        private boolean committed;
+
+        private Writer(final Path path, final int dimension, final Encoding encoding) throws IOException {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("Dimension must be positive: " + dimension);
+            }
+            this.path = path;
+            this.dimension = dimension;
+            this.encoding = encoding;
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.rowsPath = path.resolveSibling(path.getFileName() + ".rows.tmp");
+            this.rows = FileChannel.open(rowsPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+            this.row = ByteBuffer.allocate(dimension * (encoding == Encoding.FP16 ? Short.BYTES : 1))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Add a word, normalized as {@link Tokenizer} normalizes text so that
+         * tokenized lookups find it. Later vectors of a word that normalizes
+         * to one already added are ignored.
+         */
+        public void add(final String rawWord, final float[] vector) throws IOException {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected a vector of dimension " + dimension);
+            }
+            final String word = Tokenizer.normalizeWord(rawWord);
+            if (!seen.add(word)) {
+                return;
+            }
+            row.clear();
+            if (encoding == Encoding.FP16) {
+                for (float value : vector) {
+                    row.putShort(floatToHalf(value));
+                }
+            } else {
+                float max = 0;
+                for (float value : vector) {
+                    max = Math.max(max, Math.abs(value));
+                }
+                final float scale = max > 0 ? max / 127 : 1;
+                for (float value : vector) {
+                    row.put((byte) Math.round(value / scale));
+                }
+                if (words.size() == scales.length) {
+                    scales = Arrays.copyOf(scales, scales.length * 2);
+                }
+                scales[words.size()] = scale;
+            }
+            row.flip();
+            for (int i = 0; i < row.limit(); i++) {
+                checksum = (checksum ^ row.get(i)) * 0x100000001b3L;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                checksum = (checksum ^ word.charAt(i)) * 0x100000001b3L;
+            }
+            while (row.hasRemaining()) {
+                rows.write(row);
+            }
+            words.add(word);
+        }
+
+        /**
+         * Discard the table instead of replacing the current one.
+         */
+        public void abort() throws IOException {
+            committed = true;
+            rows.close();
+            Files.deleteIfExists(rowsPath);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            committed = true;
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final int vocabularySize = words.size();
+                final int slotCount = Integer.highestOneBit(Math.max(2, vocabularySize * 2 - 1)) << 1;
+                int chars = 0;
+                for (String word : words) {
+                    chars += word.length();
+                }
+
+                final long slotsOffset = HEADER_BYTES;
+                final long wordOffsetsOffset = slotsOffset + (long) slotCount * Integer.BYTES;
+                final long charsOffset = wordOffsetsOffset + (long) (vocabularySize + 1) * Integer.BYTES;
+                final long scalesOffset = align(charsOffset + (long) chars * Character.BYTES);
+                final long rowsOffset = align(scalesOffset
+                        + (encoding == Encoding.INT8 ? (long) vocabularySize * Float.BYTES : 0));
+                final long rowsEnd = rowsOffset + rows.size();
+                if (rowsEnd > Integer.MAX_VALUE) {
+                    throw new IOException("Word-vector table exceeds 2 GB, use int8 or a smaller vocabulary");
+                }
+
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(vocabularySize).putInt(slotCount)
+                        .put((byte) encoding.ordinal()).put(new byte[3]).putLong(checksum)
+                        .putLong(slotsOffset).putLong(wordOffsetsOffset).putLong(charsOffset)
+                        .putLong(encoding == Encoding.INT8 ? scalesOffset : 0).putLong(rowsOffset);
+                write(out, header.flip());
+
+                final int[] slots = new int[slotCount];
+                for (int index = 0; index < vocabularySize; index++) {
+                    final String word = words.get(index);
+                    int slot = hash(word.toCharArray(), 0, word.length()) & (slotCount - 1);
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & (slotCount - 1);
+                    }
+                    slots[slot] = index + 1;
+                }
+                final ByteBuffer section = ByteBuffer.allocate(slotCount * Integer.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                section.asIntBuffer().put(slots);
+                write(out, section);
+
+                final ByteBuffer offsets = ByteBuffer.allocate((vocabularySize + 1) * Integer.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                final ByteBuffer wordChars = ByteBuffer.allocate(chars * Character.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                int charOffset = 0;
+                for (String word : words) {
+                    offsets.putInt(charOffset);
+                    for (int i = 0; i < word.length(); i++) {
+                        wordChars.putChar(word.charAt(i));
+                    }
+                    charOffset += word.length();
+                }
+                offsets.putInt(charOffset);
+                write(out, offsets.flip());
+                write(out, wordChars.flip());
+
+                if (encoding == Encoding.INT8) {
+                    out.position(scalesOffset);
+                    final ByteBuffer scaleBytes = ByteBuffer.allocate(vocabularySize * Float.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                    scaleBytes.asFloatBuffer().put(scales, 0, vocabularySize);
+                    write(out, scaleBytes);
+                }
+
+                out.position(rowsOffset);
+                long copied = 0;
+                while (copied < rows.size()) {
+                    copied += rows.transferTo(copied, rows.size() - copied, out);
+                }
+                out.force(true);
+            } finally {
+                rows.close();
+                Files.deleteIfExists(rowsPath);
+            }
+            try {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.info("Wrote {} word vectors to {}", words.size(), path);
+        }
+
+        private static long align(final long offset) {
+            return (offset + Long.BYTES - 1) & ~(Long.BYTES - 1);
+        }
+
+        private static void write(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.Arrays;
+
+/**
+ * Bounded min-heap keeping the best-scoring entries, as int handles with
+ * their scores.
+ */
+final class CandidateHeap {
+
+    private final int capacity;
+    private final int[] entries;
+    private final double[] scores;
+    private int size;
+
+    CandidateHeap(final int capacity) {
+        this.capacity = capacity;
+        this.entries = new int[capacity];
+        this.scores = new double[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int entry(final int index) {
+        return entries[index];
+    }
+
+    double score(final int index) {
+        return scores[index];
+    }
+
+    /**
+     * Whether an entry with this score would be kept.
+     */
+    boolean accepts(final double score) {
+        return size < capacity || score > scores[0];
+    }
+
+    void offer(final int entry, final double score) {
+        if (size < capacity) {
+            entries[size] = entry;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (capacity > 0 && score > scores[0]) {
+            entries[0] = entry;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * The kept entries, in no particular order.
+     */
+    int[] entries() {
+        return Arrays.copyOf(entries, size);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            final int child = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[i] <= scores[child]) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(final int a, final int b) {
+        final int entry = entries[a];
+        entries[a] = entries[b];
+        entries[b] = entry;
+        final double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,257 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.betonamura.recommend.data.embedding.EmbeddingStore;
+import com.betonamura.recommend.data.embedding.VectorMath;
+
+/**
+ * Exact similarity search by scoring every indexed vector, for catalogs
+ * small enough that a full scan is fast and perfect recall is wanted.
+ *
+ * Vectors live normalized in a packed {@link EmbeddingStore}, so each block
+ * of rows is scored in one pass of the vector kernel. The rows are split
+ * into blocks on a {@link ForkJoinPool}; each task keeps its best k in a
+ * bounded min-heap and the heaps are merged as the tasks join, so a search
+ * scales with the cores and allocates per block, not per row. Category and
+ * exclude filters are bitmasks over the rows, tested before a score is
+ * offered. Scans smaller than one block run on the calling thread.
+ *
+ * Searches run concurrently under a read lock; inserts and removals take the
+ * write lock.
+ */
+public class ExactIndex implements VectorIndex {
+
+    private final EmbeddingStore store;
+    private final int blockRows;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<float[]> scores;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, long[]> categoryMasks = new HashMap<>();
+    private String[] categories = new String[64];
+
+    /**
+     * @param dimension   Length of the indexed vectors
+     * @param blockRows   Rows scored per task
+     * @param parallelism Worker threads, or 0 for one per core
+     */
+    public ExactIndex(final int dimension, final int blockRows, final int parallelism) {
+        this.store = new EmbeddingStore(dimension, 1024);
+        this.blockRows = Math.max(64, blockRows);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                ExactIndex::newWorker, null, false);
+        this.scores = ThreadLocal.withInitial(() -> new float[this.blockRows]);
+    }
+
+    @Override
+    public void add(final String id, final String category, final float[] vector) {
+        lock.writeLock().lock();
+        try {
+            final int row = store.put(id, vector, System.currentTimeMillis());
+            if (row >= categories.length) {
+                categories = Arrays.copyOf(categories, Math.max(row + 1, categories.length * 2));
+            }
+            setCategory(row, category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String id) {
+        lock.writeLock().lock();
+        try {
+            final int row = store.rowOf(id);
+            if (row < 0) {
+                return false;
+            }
+            setCategory(row, null);
+            return store.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbour> search(final float[] query, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (query.length != store.getDimension()) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + store.getDimension());
+        }
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            return searchNormalized(VectorMath.normalize(query.clone()), k, category, excludeIds, -1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbour> searchSimilar(final String id, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            final int row = store.rowOf(id);
+            if (row < 0) {
+                return Collections.emptyList();
+            }
+            final float[] query = store.copyTo(row, new float[store.getDimension()]);
+            return searchNormalized(query, k, category, excludeIds, row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(final String id) {
+        return store.rowOf(id) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public int getDimension() {
+        return store.getDimension();
+    }
+
+    private List<Neighbour> searchNormalized(final float[] query, final int k, final String category,
+            final Set<String> excludeIds, final int self) {
+        final int rowLimit = store.rowLimit();
+        final long[] include;
+        if (category != null) {
+            include = categoryMasks.get(category);
+            if (include == null) {
+                return Collections.emptyList();
+            }
+        } else {
+            include = null;
+        }
+        final long[] exclude = new long[words(rowLimit)];
+        if (excludeIds != null) {
+            for (String excluded : excludeIds) {
+                final int row = store.rowOf(excluded);
+                if (row >= 0 && row < rowLimit) {
+                    exclude[row >>> 6] |= 1L << row;
+                }
+            }
+        }
+        if (self >= 0) {
+            exclude[self >>> 6] |= 1L << self;
+        }
+
+        final Scan scan = new Scan(query, k, include, exclude, 0, rowLimit);
+        final CandidateHeap best = rowLimit <= blockRows ? scan.compute() : pool.invoke(scan);
+
+        final List<Neighbour> result = new ArrayList<>(best.size());
+        for (int i = 0; i < best.size(); i++) {
+            result.add(new Neighbour(store.idAt(best.entry(i)), best.score(i)));
+        }
+        result.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+        return result;
+    }
+
+    private void setCategory(final int row, final String category) {
+        final String previous = categories[row];
+        if (previous != null) {
+            categoryMasks.get(previous)[row >>> 6] &= ~(1L << row);
+        }
+        categories[row] = category;
+        if (category != null) {
+            long[] mask = categoryMasks.get(category);
+            if (mask == null || mask.length <= row >>> 6) {
+                mask = mask == null
+                        ? new long[words(categories.length)]
+                        : Arrays.copyOf(mask, words(categories.length));
+                categoryMasks.put(category, mask);
+            }
+            mask[row >>> 6] |= 1L << row;
+        }
+    }
+
+    private static int words(final int rows) {
+        return (rows + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static ForkJoinWorkerThread newWorker(final ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("exact-search-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Scores a range of rows, splitting it in halves down to one block.
+     */
+    private final class Scan extends RecursiveTask<CandidateHeap> {
+        private final float[] query;
+        private final int k;
+        private final long[] include;
+        private final long[] exclude;
+        private final int from;
+        private final int to;
+
+        private Scan(final float[] query, final int k, final long[] include, final long[] exclude,
+                final int from, final int to) {
+            this.query = query;
+            this.k = k;
+            this.include = include;
+            this.exclude = exclude;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CandidateHeap compute() {
+            if (to - from > blockRows) {
+                final int middle = (from + to) >>> 1;
+                final Scan left = new Scan(query, k, include, exclude, from, middle);
+                left.fork();
+                final CandidateHeap right = new Scan(query, k, include, exclude, middle, to).compute();
+                final CandidateHeap merged = left.join();
+                for (int i = 0; i < right.size(); i++) {
+                    merged.offer(right.entry(i), right.score(i));
+                }
+                return merged;
+            }
+
+            final CandidateHeap heap = new CandidateHeap(k);
+            final float[] blockScores = scores.get();
+            for (int start = from; start < to; start += blockRows) {
+                final int rows = Math.min(blockRows, to - start);
+                store.dotRows(query, start, rows, blockScores);
+                for (int i = 0; i < rows; i++) {
+                    final int row = start + i;
+                    final int word = row >>> 6;
+                    final long bit = 1L << row;
+                    if ((exclude[word] & bit) != 0
+                            || include != null && (word >= include.length || (include[word] & bit) == 0)
+                            || store.idAt(row) == null) {
+                        continue;
+                    }
+                    heap.offer(row, blockScores[i]);
+                }
+            }
+            return heap;
+        }
+    }
+}
@@ -0,0 +1,653 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import com.betonamura.recommend.data.embedding.VectorMath;
+
+/**
+ * In-memory HNSW (Hierarchical Navigable Small World) index over embedding
+ * vectors, ranked by cosine similarity.
+ *
+ * Vectors are normalized on insert, so similarity is a plain dot product.
+ * Each node is linked to up to M neighbours per layer (2M on the bottom
+ * layer); a search descends greedily through the sparse upper layers and then
+ * explores the bottom layer with a beam of width ef. A query touches a few
+ * thousand vectors instead of all of them, whatever the size of the index.
+ *
+ * Category and exclusion filters are applied during traversal: filtered nodes
+ * are still walked through, so the graph stays connected, but never enter the
+ * result set. Removal marks a node deleted in the same way. Once deleted
+ * nodes make up a fifth of the graph, {@link #optimize()} rebuilds it from
+ * the live nodes, reclaiming their memory and links.
+ *
+ * Searches run concurrently under a read lock; inserts and removals take the
+ * write lock.
+ */
+public class HnswIndex implements VectorIndex {
+
+    private static final double COMPACT_FRACTION = 0.2;
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private volatile int efSearch;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Integer> nodeIds = new HashMap<>();
+    private final Random random = new Random(42);
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    private Node[] nodes = new Node[64];
+    private int nodeCount;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private List<Consumer<HnswIndex>> journal; // changes made while rebuilding, else null
+
+    /**
+     * @param dimension      Length of the indexed vectors
+     * @param m              Links per node on the upper layers, 2M on the bottom
+     * @param efConstruction Beam width used while inserting
+     * @param efSearch       Default beam width used while searching
+     */
+    public HnswIndex(final int dimension, final int m, final int efConstruction, final int efSearch) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    /**
+     * Insert an item, replacing any previous vector for the same ID.
+     *
+     * @param id       The item ID
+     * @param category The item category, may be null
+     * @param vector   The embedding, of the index dimension
+     */
+    @Override
+    public void add(final String id, final String category, final float[] vector) {
+        final float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.add(index -> index.add(id, category, normalized));
+            }
+            final Integer previous = nodeIds.get(id);
+            if (previous != null) {
+                markDeleted(previous);
+            }
+
+            final int level = randomLevel();
+            final int node = nodeCount;
+            if (node == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            }
+            nodes[node] = new Node(id, category, normalized, level, m, maxM0);
+            nodeCount++;
+            nodeIds.put(id, node);
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > level; layer--) {
+                current = greedyClosest(normalized, current, layer);
+            }
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                final NodeHeap candidates = searchLayer(normalized, current, efConstruction, layer, null, null, false);
+                final int[] neighbours = selectNeighbours(normalized, candidates.drainAscending(), m);
+                final Node inserted = nodes[node];
+                for (int neighbour : neighbours) {
+                    inserted.link(layer, neighbour);
+                    connect(neighbour, node, layer);
+                }
+                current = neighbours.length > 0 ? neighbours[0] : current;
+            }
+
+            if (level > maxLevel) {
+                entryPoint = node;
+                maxLevel = level;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an item. Unknown IDs are ignored.
+     *
+     * @param id The item ID
+     * @return true if the item was indexed
+     */
+    @Override
+    public boolean remove(final String id) {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.add(index -> index.remove(id));
+            }
+            final Integer node = nodeIds.get(id);
+            if (node == null) {
+                return false;
+            }
+            markDeleted(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the items most similar to a query vector.
+     *
+     * @param query      The query embedding
+     * @param k          Maximum number of results
+     * @param category   Only return items of this category, or null for any
+     * @param excludeIds IDs never to return, may be null
+     * @return Matches by descending similarity
+     */
+    @Override
+    public List<Neighbour> search(final float[] query, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        final float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            return searchNormalized(normalized, k, category, excludeIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the items most similar to an indexed item, excluding the item itself.
+     *
+     * @param id         The indexed item ID
+     * @param k          Maximum number of results
+     * @param category   Only return items of this category, or null for any
+     * @param excludeIds IDs never to return, may be null
+     * @return Matches by descending similarity, empty if the item is not indexed
+     */
+    @Override
+    public List<Neighbour> searchSimilar(final String id, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            final Integer node = nodeIds.get(id);
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            final List<Neighbour> matches = searchNormalized(nodes[node].vector, k + 1, category, excludeIds);
+            final List<Neighbour> result = new ArrayList<>(Math.min(k, matches.size()));
+            for (Neighbour match : matches) {
+                if (!match.getId().equals(id) && result.size() < k) {
+                    result.add(match);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether an item is indexed.
+     */
+    @Override
+    public boolean contains(final String id) {
+        lock.readLock().lock();
+        try {
+            return nodeIds.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live items.
+     */
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the graph from the live nodes once deleted nodes make up a fifth
+     * of it. The new graph is built off-lock while searches use the old one;
+     * changes made meanwhile are replayed onto it before it is swapped in.
+     */
+    @Override
+    public void optimize() {
+        final List<Node> live = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (journal != null || deletedCount == 0 || deletedCount < nodeCount * COMPACT_FRACTION) {
+                return;
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                if (!nodes[node].deleted) {
+                    live.add(nodes[node]);
+                }
+            }
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final HnswIndex rebuilt = new HnswIndex(dimension, m, efConstruction, efSearch);
+        try {
+            for (Node node : live) {
+                rebuilt.add(node.id, node.category, node.vector);
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rebuilt.nodeCount == live.size()) {
+                    journal.forEach(change -> change.accept(rebuilt));
+                    nodes = rebuilt.nodes;
+                    nodeCount = rebuilt.nodeCount;
+                    deletedCount = rebuilt.deletedCount;
+                    entryPoint = rebuilt.entryPoint;
+                    maxLevel = rebuilt.maxLevel;
+                    nodeIds = rebuilt.nodeIds;
+                }
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Number of nodes in the graph, deleted ones included.
+     */
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Set the default beam width used by searches. Larger is more accurate
+     * and slower.
+     */
+    public void setEfSearch(final int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    private List<Neighbour> searchNormalized(final float[] query, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (entryPoint < 0 || nodeCount == deletedCount) {
+            return Collections.emptyList();
+        }
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > 0; layer--) {
+            current = greedyClosest(query, current, layer);
+        }
+        final NodeHeap found = searchLayer(query, current, Math.max(efSearch, k), 0, category, excludeIds, true);
+        final int[] sorted = found.drainAscending();
+        final List<Neighbour> result = new ArrayList<>(Math.min(k, sorted.length));
+        for (int i = 0; i < sorted.length && result.size() < k; i++) {
+            final Node node = nodes[sorted[i]];
+            result.add(new Neighbour(node.id, VectorMath.dot(query, node.vector)));
+        }
+        return result;
+    }
+
+    /**
+     * Walk a layer towards the query, always moving to the closest neighbour.
+     */
+    private int greedyClosest(final float[] query, final int start, final int layer) {
+        int current = start;
+        float currentDistance = distance(query, nodes[current].vector);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            final Node node = nodes[current];
+            final int[] links = node.links[layer];
+            for (int i = 0, count = node.linkCounts[layer]; i < count; i++) {
+                final float d = distance(query, nodes[links[i]].vector);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = links[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer. Every reached node is expanded, but only
+     * accepted nodes enter the result heap when filtering.
+     *
+     * @return A max-heap of at most ef accepted nodes
+     */
+    private NodeHeap searchLayer(final float[] query, final int start, final int ef, final int layer,
+            final String category, final Set<String> excludeIds, final boolean filter) {
+        final Visited seen = visited.get();
+        seen.reset(nodeCount);
+
+        final NodeHeap candidates = new NodeHeap(ef * 2, false);
+        final NodeHeap results = new NodeHeap(ef + 1, true);
+
+        final float startDistance = distance(query, nodes[start].vector);
+        seen.mark(start);
+        candidates.push(start, startDistance);
+        if (!filter || accepts(nodes[start], category, excludeIds)) {
+            results.push(start, startDistance);
+        }
+
+        while (candidates.size() > 0) {
+            final float closest = candidates.peekDistance();
+            if (results.size() >= ef && closest > results.peekDistance()) {
+                break;
+            }
+            final Node node = nodes[candidates.pop()];
+            final int[] links = node.links[layer];
+            for (int i = 0, count = node.linkCounts[layer]; i < count; i++) {
+                final int next = links[i];
+                if (!seen.mark(next)) {
+                    continue;
+                }
+                final float d = distance(query, nodes[next].vector);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(next, d);
+                    if (!filter || accepts(nodes[next], category, excludeIds)) {
+                        results.push(next, d);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static boolean accepts(final Node node, final String category, final Set<String> excludeIds) {
+        if (node.deleted) {
+            return false;
+        }
+        if (category != null && !category.equals(node.category)) {
+            return false;
+        }
+        return excludeIds == null || !excludeIds.contains(node.id);
+    }
+
+    /**
+     * Neighbour selection heuristic: keep a candidate only if it is closer to
+     * the base than to every neighbour already kept, which spreads the links
+     * in different directions instead of clustering them.
+     *
+     * @param base       Vector of the node being linked
+     * @param candidates Candidate nodes sorted by ascending distance to the base
+     * @param max        Maximum number of neighbours
+     */
+    private int[] selectNeighbours(final float[] base, final int[] candidates, final int max) {
+        final int[] selected = new int[Math.min(max, candidates.length)];
+        int count = 0;
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            final float[] candidate = nodes[candidates[i]].vector;
+            final float toBase = distance(base, candidate);
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (distance(candidate, nodes[selected[j]].vector) < toBase) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidates[i];
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Add a back link from a neighbour, pruning its links with the heuristic
+     * if it is over capacity.
+     */
+    private void connect(final int from, final int to, final int layer) {
+        final Node node = nodes[from];
+        final int max = layer == 0 ? maxM0 : m;
+        if (node.linkCounts[layer] < max) {
+            node.link(layer, to);
+            return;
+        }
+
+        final int count = node.linkCounts[layer];
+        final int[] pool = Arrays.copyOf(node.links[layer], count + 1);
+        pool[count] = to;
+        final float[] distances = new float[pool.length];
+        for (int i = 0; i < pool.length; i++) {
+            distances[i] = distance(node.vector, nodes[pool[i]].vector);
+        }
+        sortByDistance(pool, distances);
+
+        final int[] kept = selectNeighbours(node.vector, pool, max);
+        node.linkCounts[layer] = 0;
+        for (int neighbour : kept) {
+            node.link(layer, neighbour);
+        }
+    }
+
+    private static void sortByDistance(final int[] ids, final float[] distances) {
+        // Insertion sort: link lists hold at most 2M + 1 entries
+        for (int i = 1; i < ids.length; i++) {
+            final int id = ids[i];
+            final float d = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > d) {
+                ids[j + 1] = ids[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            distances[j + 1] = d;
+        }
+    }
+
+    private void markDeleted(final int node) {
+        if (!nodes[node].deleted) {
+            nodes[node].deleted = true;
+            deletedCount++;
+            nodeIds.remove(nodes[node].id);
+        }
+    }
+
+    private int randomLevel() {
+        final double u = 1.0 - random.nextDouble(); // in (0, 1]
+        return (int) Math.floor(-Math.log(u) * levelMultiplier);
+    }
+
+    private float[] normalize(final float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension);
+        }
+        return VectorMath.normalize(vector.clone());
+    }
+
+    private static float distance(final float[] a, final float[] b) {
+        return 1 - VectorMath.dot(a, b);
+    }
+
+    private static final class Node {
+        private final String id;
+        private final String category;
+        private final float[] vector;
+        private final int[][] links;
+        private final int[] linkCounts;
+        private boolean deleted;
+
+        private Node(final String id, final String category, final float[] vector, final int level,
+                final int m, final int maxM0) {
+            this.id = id;
+            this.category = category;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[layer == 0 ? maxM0 : m];
+            }
+        }
+
+        private void link(final int layer, final int neighbour) {
+            links[layer][linkCounts[layer]++] = neighbour;
+        }
+    }
+
+    /**
+     * Visited marks stamped with a generation, so clearing is O(1) per search.
+     */
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int generation;
+
+        private void reset(final int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return true if the node was not visited yet
+         */
+        private boolean mark(final int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    /**
+     * Binary heap of node IDs keyed by distance, without boxing.
+     */
+    private static final class NodeHeap {
+        private int[] ids;
+        private float[] distances;
+        private int size;
+        private final boolean max;
+
+        private NodeHeap(final int capacity, final boolean max) {
+            this.ids = new int[Math.max(4, capacity)];
+            this.distances = new float[ids.length];
+            this.max = max;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private float peekDistance() {
+            return distances[0];
+        }
+
+        private void push(final int id, final float distance) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (!above(distance, distances[parent])) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            distances[i] = distance;
+        }
+
+        private int pop() {
+            final int top = ids[0];
+            final int lastId = ids[--size];
+            final float lastDistance = distances[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && above(distances[child + 1], distances[child])) {
+                    child++;
+                }
+                if (!above(distances[child], lastDistance)) {
+                    break;
+                }
+                ids[i] = ids[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            ids[i] = lastId;
+            distances[i] = lastDistance;
+            return top;
+        }
+
+        private boolean above(final float a, final float b) {
+            return max ? a > b : a < b;
+        }
+
+        /**
+         * Drain a max-heap into an array sorted by ascending distance.
+         */
+        private int[] drainAscending() {
+            final int[] sorted = new int[size];
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                sorted[i] = pop();
+            }
+            return sorted;
+        }
+    }
+}
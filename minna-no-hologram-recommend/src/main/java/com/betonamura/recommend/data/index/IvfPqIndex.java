@@ -0,0 +1,861 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import com.betonamura.recommend.data.embedding.VectorMath;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inverted-file index with product-quantized residuals (IVF-PQ), for
+ * catalogs too large to keep as float vectors.
+ *
+ * Training clusters a sample of vectors into coarse centroids with k-means,
+ * and splits the residuals to their centroid into subspaces, each with its
+ * own codebook of up to 256 codewords. An item is then stored in the list of
+ * its nearest centroid as one byte per subspace.
+ *
+ * Items are addressed by dense int rows, as in the embedding store: IDs sit
+ * in a row-to-ID array with an open-addressing ID-to-row table over it, and
+ * categories are int codes, so there are no per-item objects besides the ID
+ * strings. {@link #bytesPerItem()} is the packed footprint of an item.
+ *
+ * A search visits the nprobe lists whose centroids are nearest to the query.
+ * For each list it builds an asymmetric distance table, the distance from
+ * each subspace of the query residual to every codeword, so scoring an item
+ * is one table lookup per subspace. If a {@link VectorSource} is given, the
+ * best k x rescore factor candidates are re-scored exactly.
+ *
+ * Items added before training are kept as float vectors and searched
+ * exactly, so a bulk load should {@link #train} on a sample first and let
+ * every later insert be encoded directly. Catalogs smaller than the sample
+ * are trained by {@link #optimize()} instead. Training never runs from an
+ * insert: the codebooks are fitted and the items encoded off-lock while
+ * searches use the current state, and changes made meanwhile are replayed
+ * before the result is swapped in under a short write lock. Searches run
+ * concurrently under a read lock; inserts and removals take the write lock.
+ */
+@Slf4j
+public class IvfPqIndex implements VectorIndex {
+
+    private static final int MAX_CODEWORDS = 256;
+    private static final int MIN_TRAINING_ITEMS = 256;
+    private static final int POINTS_PER_CENTROID = 32;
+    private static final int KMEANS_ITERATIONS = 20;
+    private static final int NO_CATEGORY = -1;
+
+    private final int dimension;
+    private final int nlist;
+    private final int subquantizers;
+    private final int nprobe;
+    private final int trainingSampleSize;
+    private final int rescoreFactor;
+    private final VectorSource source;
+    private final int[] subspaceStart; // subquantizers + 1 bounds
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random(42);
+    private final RowTable rows = new RowTable();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final ThreadLocal<float[]> scratch;
+    private String[] ids = new String[16]; // by row, null if free
+    private int[] categories = new int[16]; // by row
+    private int rowCount; // rows ever allocated
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    private float[] pending; // rows x dimension until trained, then null
+    private Partition partition; // null until trained
+    private List<Consumer<Partition>> journal; // changes made while training, else null
+
+    /**
+     * @param dimension          Length of the indexed vectors
+     * @param nlist              Coarse centroids, fewer if the catalog is small
+     * @param subquantizers      Subspaces, and bytes of code per item
+     * @param nprobe             Lists visited per search, raise for recall
+     * @param trainingSampleSize Vectors sampled for training
+     * @param rescoreFactor      Candidates re-scored per result, if a source is
+     *                           given
+     * @param source             Full-precision vectors for re-scoring, or null
+     */
+    public IvfPqIndex(final int dimension, final int nlist, final int subquantizers, final int nprobe,
+            final int trainingSampleSize, final int rescoreFactor, final VectorSource source) {
+        if (subquantizers <= 0 || subquantizers > dimension) {
+            throw new IllegalArgumentException("Subquantizers must be between 1 and " + dimension);
+        }
+        this.dimension = dimension;
+        this.nlist = Math.max(1, nlist);
+        this.subquantizers = subquantizers;
+        this.nprobe = Math.max(1, nprobe);
+        this.trainingSampleSize = Math.max(MIN_TRAINING_ITEMS, trainingSampleSize);
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+        this.source = source;
+        this.subspaceStart = new int[subquantizers + 1];
+        for (int s = 0; s <= subquantizers; s++) {
+            subspaceStart[s] = s * dimension / subquantizers;
+        }
+        this.scratch = ThreadLocal.withInitial(() -> new float[dimension]);
+        this.pending = new float[ids.length * dimension];
+    }
+
+    @Override
+    public void add(final String id, final String category, final float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension);
+        }
+        final float[] normalized = VectorMath.normalize(vector.clone());
+        lock.writeLock().lock();
+        try {
+            int row = rows.get(id, ids);
+            if (row < 0) {
+                row = allocateRow();
+                ids[row] = id;
+                rows.put(row, ids);
+            }
+            categories[row] = categoryCode(category);
+            if (partition == null) {
+                System.arraycopy(normalized, 0, pending, row * dimension, dimension);
+            } else {
+                partition.put(row, normalized);
+            }
+            if (journal != null) {
+                final int changed = row;
+                journal.add(trained -> trained.put(changed, normalized));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String id) {
+        lock.writeLock().lock();
+        try {
+            final int row = rows.get(id, ids);
+            if (row < 0) {
+                return false;
+            }
+            rows.remove(id, ids);
+            ids[row] = null;
+            categories[row] = NO_CATEGORY;
+            if (partition != null) {
+                partition.remove(row);
+            }
+            if (journal != null) {
+                journal.add(trained -> trained.remove(row));
+            }
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbour> search(final float[] query, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        return searchNormalized(VectorMath.normalize(query.clone()), k, category, excludeIds, null);
+    }
+
+    @Override
+    public List<Neighbour> searchSimilar(final String id, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] query = new float[dimension];
+        lock.readLock().lock();
+        try {
+            final int row = rows.get(id, ids);
+            if (row < 0) {
+                return Collections.emptyList();
+            }
+            if (partition == null) {
+                System.arraycopy(pending, row * dimension, query, 0, dimension);
+            } else {
+                partition.decode(row, query);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Prefer the full-precision vector, if the source still has it
+        final float[] exact = new float[dimension];
+        if (source != null && source.read(id, exact)) {
+            query = exact;
+        }
+        return searchNormalized(VectorMath.normalize(query), k, category, excludeIds, id);
+    }
+
+    @Override
+    public boolean contains(final String id) {
+        lock.readLock().lock();
+        try {
+            return rows.get(id, ids) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    public boolean isTrained() {
+        lock.readLock().lock();
+        try {
+            return partition != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes stored per item once trained: the code, its row in the list, the
+     * list and position of the row, its category code, its ID reference and
+     * about two slots of the ID table. The ID strings are not counted.
+     */
+    public int bytesPerItem() {
+        return subquantizers + 7 * Integer.BYTES;
+    }
+
+    /**
+     * Train on a sample of the buffered items once there are enough of them.
+     */
+    @Override
+    public void optimize() {
+        final List<float[]> sample = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (partition != null || journal != null || rows.size < MIN_TRAINING_ITEMS) {
+                return;
+            }
+            final int step = Math.max(1, rows.size / trainingSampleSize);
+            for (int row = 0, live = 0; row < rowCount && sample.size() < trainingSampleSize; row++) {
+                if (ids[row] != null && live++ % step == 0) {
+                    sample.add(Arrays.copyOfRange(pending, row * dimension, (row + 1) * dimension));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        retrain(sample);
+    }
+
+    /**
+     * The configured sample size until the index is trained or training.
+     */
+    @Override
+    public int trainingSampleSize() {
+        lock.readLock().lock();
+        try {
+            return partition != null || journal != null ? 0 : trainingSampleSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Train the coarse centroids and codebooks on a sample of vectors, and
+     * encode the items added so far. Items encoded by an earlier training are
+     * re-encoded from their full-precision vectors if the source has them.
+     *
+     * @param sample Vectors of the indexed dimension
+     */
+    @Override
+    public void train(final List<float[]> sample) {
+        final List<float[]> vectors = new ArrayList<>(sample.size());
+        for (float[] vector : sample) {
+            if (vector != null && vector.length == dimension) {
+                vectors.add(VectorMath.normalize(vector.clone()));
+            }
+        }
+        if (vectors.isEmpty()) {
+            throw new IllegalArgumentException("No vectors of dimension " + dimension + " to train on");
+        }
+        retrain(vectors);
+    }
+
+    /**
+     * Fit a new partition off-lock, move the current items into it, and swap
+     * it in together with the changes made meanwhile.
+     */
+    private void retrain(final List<float[]> sample) {
+        final List<String> snapshotIds = new ArrayList<>();
+        final List<Integer> snapshotRows = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                log.info("IVF-PQ training already in progress, skipping");
+                return;
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if (ids[row] != null) {
+                    snapshotIds.add(ids[row]);
+                    snapshotRows.add(row);
+                }
+            }
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final long started = System.currentTimeMillis();
+        Partition trained = null;
+        try {
+            final Partition fitted = fit(sample);
+            final float[] vector = new float[dimension];
+            for (int i = 0; i < snapshotRows.size(); i++) {
+                final int row = snapshotRows.get(i);
+                if (currentVector(row, snapshotIds.get(i), vector)) {
+                    fitted.put(row, vector);
+                }
+            }
+            trained = fitted;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (trained != null) {
+                    final Partition swapped = trained;
+                    journal.forEach(change -> change.accept(swapped));
+                    partition = swapped;
+                    pending = null;
+                }
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Trained IVF-PQ index on {} vectors in {} ms: {} lists, {} subquantizers of {} codewords",
+                sample.size(), System.currentTimeMillis() - started, trained.lists, subquantizers,
+                trained.codewords);
+    }
+
+    /**
+     * Read the vector of a row for re-encoding, unless the row no longer holds
+     * the item. Removed or replaced items are left to the journal.
+     */
+    private boolean currentVector(final int row, final String id, final float[] target) {
+        lock.readLock().lock();
+        try {
+            if (!id.equals(ids[row])) {
+                return false;
+            }
+            if (partition == null) {
+                System.arraycopy(pending, row * dimension, target, 0, dimension);
+                return true;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (source != null && source.read(id, target)) {
+            VectorMath.normalize(target);
+            return true;
+        }
+        lock.readLock().lock();
+        try {
+            if (!id.equals(ids[row])) {
+                return false;
+            }
+            partition.decode(row, target);
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Partition fit(final List<float[]> sample) {
+        final List<float[]> vectors = sample(sample, trainingSampleSize);
+        final int lists = Math.max(1, Math.min(nlist, vectors.size() / POINTS_PER_CENTROID));
+        final float[] centroids = kMeans(vectors, 0, dimension, lists);
+        final List<float[]> residuals = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            final float[] residual = vector.clone();
+            final int list = nearestCentroid(centroids, lists, vector);
+            for (int i = 0; i < dimension; i++) {
+                residual[i] -= centroids[list * dimension + i];
+            }
+            residuals.add(residual);
+        }
+        final int codewords = Math.min(MAX_CODEWORDS, vectors.size());
+        final float[][] codebooks = new float[subquantizers][];
+        for (int s = 0; s < subquantizers; s++) {
+            codebooks[s] = kMeans(residuals, subspaceStart[s], subspaceStart[s + 1], codewords);
+        }
+        return new Partition(lists, codewords, centroids, codebooks);
+    }
+
+    private List<Neighbour> searchNormalized(final float[] query, final int k, final String category,
+            final Set<String> excludeIds, final String self) {
+        final int capacity = source != null ? k * rescoreFactor : k;
+        final CandidateHeap candidates = new CandidateHeap(capacity);
+        final String[] candidateIds;
+        lock.readLock().lock();
+        try {
+            final int code;
+            if (category != null) {
+                final Integer known = categoryCodes.get(category);
+                if (known == null) {
+                    return Collections.emptyList();
+                }
+                code = known;
+            } else {
+                code = NO_CATEGORY;
+            }
+            final long[] exclude = new long[(rowCount + Long.SIZE - 1) / Long.SIZE];
+            if (excludeIds != null) {
+                for (String excluded : excludeIds) {
+                    exclude(exclude, rows.get(excluded, ids));
+                }
+            }
+            if (self != null) {
+                exclude(exclude, rows.get(self, ids));
+            }
+
+            if (partition == null) {
+                // Exact over the items buffered for training
+                for (int row = 0; row < rowCount; row++) {
+                    if (ids[row] != null && accept(row, code, exclude)) {
+                        candidates.offer(row, VectorMath.dot(query, pending, row * dimension));
+                    }
+                }
+            } else {
+                partition.scan(query, code, exclude, candidates);
+            }
+            candidateIds = new String[candidates.size()];
+            for (int i = 0; i < candidates.size(); i++) {
+                candidateIds[i] = ids[candidates.entry(i)];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Re-score outside the lock: the source may page vectors in from disk
+        final float[] vector = scratch.get();
+        final List<Neighbour> result = new ArrayList<>(candidateIds.length);
+        for (int i = 0; i < candidateIds.length; i++) {
+            final double similarity = source != null && source.read(candidateIds[i], vector)
+                    ? VectorMath.cosine(query, vector)
+                    : candidates.score(i);
+            result.add(new Neighbour(candidateIds[i], similarity));
+        }
+        result.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    private boolean accept(final int row, final int category, final long[] exclude) {
+        return (category == NO_CATEGORY || categories[row] == category)
+                && (exclude[row >>> 6] & 1L << row) == 0;
+    }
+
+    private static void exclude(final long[] exclude, final int row) {
+        if (row >= 0) {
+            exclude[row >>> 6] |= 1L << row;
+        }
+    }
+
+    private int categoryCode(final String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        return categoryCodes.computeIfAbsent(category, name -> categoryCodes.size());
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == ids.length) {
+            final int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            if (pending != null) {
+                pending = Arrays.copyOf(pending, capacity * dimension);
+            }
+        }
+        return rowCount++;
+    }
+
+    private int nearestCentroid(final float[] centroids, final int lists, final float[] vector) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int list = 0; list < lists; list++) {
+            final float distance = squaredDistance(vector, 0, centroids, list * dimension, dimension);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = list;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lloyd's k-means over the components [from, to) of the vectors, seeded
+     * with distinct random vectors; empty clusters are reseeded at random.
+     *
+     * @return The centroids, packed
+     */
+    private float[] kMeans(final List<float[]> vectors, final int from, final int to, final int k) {
+        final int width = to - from;
+        final float[] means = new float[k * width];
+        final List<float[]> seeds = sample(vectors, k);
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(seeds.get(c), from, means, c * width, width);
+        }
+        final int[] assignment = new int[vectors.size()];
+        final float[] sums = new float[k * width];
+        final int[] counts = new int[k];
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS; iteration++) {
+            boolean changed = false;
+            for (int v = 0; v < vectors.size(); v++) {
+                int best = 0;
+                float bestDistance = Float.MAX_VALUE;
+                for (int c = 0; c < k; c++) {
+                    final float distance = squaredDistance(vectors.get(v), from, means, c * width, width);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = c;
+                    }
+                }
+                changed |= iteration == 0 || assignment[v] != best;
+                assignment[v] = best;
+            }
+            if (!changed) {
+                break;
+            }
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            for (int v = 0; v < vectors.size(); v++) {
+                final float[] vector = vectors.get(v);
+                final int c = assignment[v];
+                for (int i = 0; i < width; i++) {
+                    sums[c * width + i] += vector[from + i];
+                }
+                counts[c]++;
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    System.arraycopy(vectors.get(random.nextInt(vectors.size())), from, means, c * width, width);
+                    continue;
+                }
+                for (int i = 0; i < width; i++) {
+                    means[c * width + i] = sums[c * width + i] / counts[c];
+                }
+            }
+        }
+        return means;
+    }
+
+    private List<float[]> sample(final List<float[]> vectors, final int count) {
+        if (vectors.size() <= count) {
+            return vectors;
+        }
+        final List<float[]> shuffled = new ArrayList<>(vectors);
+        Collections.shuffle(shuffled, random);
+        return shuffled.subList(0, count);
+    }
+
+    private static float squaredDistance(final float[] a, final int aOffset, final float[] b, final int bOffset,
+            final int length) {
+        float distance = 0;
+        for (int i = 0; i < length; i++) {
+            final float diff = a[aOffset + i] - b[bOffset + i];
+            distance += diff * diff;
+        }
+        return distance;
+    }
+
+    /**
+     * A trained quantizer and the rows encoded with it, one inverted list per
+     * coarse centroid.
+     */
+    private final class Partition {
+        private final int lists;
+        private final int codewords;
+        private final float[] centroids; // lists x dimension
+        private final float[][] codebooks; // per subspace, codewords x subspace width
+        private final InvertedList[] invertedLists;
+        private final byte[] code = new byte[subquantizers]; // encoding scratch, one writer at a time
+        private int[] listOf = new int[0]; // by row, -1 if not encoded
+        private int[] positionOf = new int[0]; // by row
+
+        private Partition(final int lists, final int codewords, final float[] centroids, final float[][] codebooks) {
+            this.lists = lists;
+            this.codewords = codewords;
+            this.centroids = centroids;
+            this.codebooks = codebooks;
+            this.invertedLists = new InvertedList[lists];
+            for (int list = 0; list < lists; list++) {
+                invertedLists[list] = new InvertedList(subquantizers);
+            }
+        }
+
+        /**
+         * Encode a normalized vector into a row, replacing its old code.
+         */
+        private void put(final int row, final float[] vector) {
+            remove(row);
+            if (row >= listOf.length) {
+                final int capacity = Math.max(row + 1, listOf.length * 2);
+                final int from = listOf.length;
+                listOf = Arrays.copyOf(listOf, capacity);
+                positionOf = Arrays.copyOf(positionOf, capacity);
+                Arrays.fill(listOf, from, capacity, -1);
+            }
+            final int list = nearestCentroid(centroids, lists, vector);
+            for (int s = 0; s < subquantizers; s++) {
+                final int start = subspaceStart[s];
+                final int width = subspaceStart[s + 1] - start;
+                int best = 0;
+                float bestDistance = Float.MAX_VALUE;
+                for (int c = 0; c < codewords; c++) {
+                    float distance = 0;
+                    for (int i = 0; i < width; i++) {
+                        final float diff = vector[start + i] - centroids[list * dimension + start + i]
+                                - codebooks[s][c * width + i];
+                        distance += diff * diff;
+                    }
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = c;
+                    }
+                }
+                code[s] = (byte) best;
+            }
+            listOf[row] = list;
+            positionOf[row] = invertedLists[list].add(row, code);
+        }
+
+        private void remove(final int row) {
+            if (row >= listOf.length || listOf[row] < 0) {
+                return;
+            }
+            final int moved = invertedLists[listOf[row]].remove(positionOf[row]);
+            if (moved >= 0) {
+                positionOf[moved] = positionOf[row];
+            }
+            listOf[row] = -1;
+        }
+
+        private void decode(final int row, final float[] target) {
+            final int list = listOf[row];
+            final InvertedList inverted = invertedLists[list];
+            for (int s = 0; s < subquantizers; s++) {
+                final int start = subspaceStart[s];
+                final int width = subspaceStart[s + 1] - start;
+                final int codeword = inverted.codes[positionOf[row] * subquantizers + s] & 0xff;
+                for (int i = 0; i < width; i++) {
+                    target[start + i] = centroids[list * dimension + start + i] + codebooks[s][codeword * width + i];
+                }
+            }
+        }
+
+        /**
+         * Score the rows of the nprobe lists nearest to the query.
+         */
+        private void scan(final float[] query, final int category, final long[] exclude,
+                final CandidateHeap candidates) {
+            final float[] table = new float[subquantizers * codewords];
+            final float[] residual = new float[dimension];
+            for (int list : nearestCentroids(query, Math.min(nprobe, lists))) {
+                final InvertedList inverted = invertedLists[list];
+                if (inverted.size == 0) {
+                    continue;
+                }
+                for (int i = 0; i < dimension; i++) {
+                    residual[i] = query[i] - centroids[list * dimension + i];
+                }
+                distanceTable(residual, table);
+                for (int position = 0; position < inverted.size; position++) {
+                    final int row = inverted.rows[position];
+                    if (!accept(row, category, exclude)) {
+                        continue;
+                    }
+                    float distance = 0;
+                    final int codeOffset = position * subquantizers;
+                    for (int s = 0; s < subquantizers; s++) {
+                        distance += table[s * codewords + (inverted.codes[codeOffset + s] & 0xff)];
+                    }
+                    // Unit vectors: squared distance 2 - 2 cos
+                    candidates.offer(row, 1.0 - distance / 2.0);
+                }
+            }
+        }
+
+        /**
+         * Squared distance from each subspace of a residual to each codeword.
+         */
+        private void distanceTable(final float[] residual, final float[] table) {
+            for (int s = 0; s < subquantizers; s++) {
+                final int start = subspaceStart[s];
+                final int width = subspaceStart[s + 1] - start;
+                final float[] codebook = codebooks[s];
+                for (int c = 0; c < codewords; c++) {
+                    float distance = 0;
+                    for (int i = 0; i < width; i++) {
+                        final float diff = residual[start + i] - codebook[c * width + i];
+                        distance += diff * diff;
+                    }
+                    table[s * codewords + c] = distance;
+                }
+            }
+        }
+
+        private int[] nearestCentroids(final float[] vector, final int count) {
+            final CandidateHeap nearest = new CandidateHeap(count);
+            for (int list = 0; list < lists; list++) {
+                nearest.offer(list, -squaredDistance(vector, 0, centroids, list * dimension, dimension));
+            }
+            return nearest.entries();
+        }
+    }
+
+    /**
+     * The rows of one coarse centroid with their codes, packed.
+     */
+    private static final class InvertedList {
+        private final int codeSize;
+        private int[] rows = new int[16];
+        private byte[] codes;
+        private int size;
+
+        private InvertedList(final int codeSize) {
+            this.codeSize = codeSize;
+            this.codes = new byte[rows.length * codeSize];
+        }
+
+        /**
+         * @return The position of the row
+         */
+        private int add(final int row, final byte[] code) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                codes = Arrays.copyOf(codes, size * 2 * codeSize);
+            }
+            System.arraycopy(code, 0, codes, size * codeSize, codeSize);
+            rows[size] = row;
+            return size++;
+        }
+
+        /**
+         * Remove by moving the last row into the gap.
+         *
+         * @return The row moved into the position, or -1 if none
+         */
+        private int remove(final int position) {
+            final int last = --size;
+            if (position == last) {
+                return -1;
+            }
+            rows[position] = rows[last];
+            System.arraycopy(codes, last * codeSize, codes, position * codeSize, codeSize);
+            return rows[position];
+        }
+    }
+
+    /**
+     * Open-addressing map from ID to row over the row-to-ID array: one int
+     * slot per entry, at most half full, with linear probing.
+     */
+    private static final class RowTable {
+        private int[] slots = new int[32]; // row + 1, 0 if empty
+        private int size;
+
+        /**
+         * @return The row of the ID, or -1
+         */
+        private int get(final String id, final String[] ids) {
+            final int mask = slots.length - 1;
+            for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+                final int entry = slots[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (id.equals(ids[entry - 1])) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        /**
+         * Add a row whose ID is not in the table yet.
+         */
+        private void put(final int row, final String[] ids) {
+            if ((size + 1) * 2 > slots.length) {
+                final int[] old = slots;
+                slots = new int[old.length * 2];
+                for (int entry : old) {
+                    if (entry != 0) {
+                        insert(entry, ids);
+                    }
+                }
+            }
+            insert(row + 1, ids);
+            size++;
+        }
+
+        /**
+         * Remove an ID, shifting later entries of its probe run back so that
+         * lookups need no tombstones.
+         */
+        private void remove(final String id, final String[] ids) {
+            final int mask = slots.length - 1;
+            int hole = hash(id) & mask;
+            while (slots[hole] != 0 && !id.equals(ids[slots[hole] - 1])) {
+                hole = (hole + 1) & mask;
+            }
+            if (slots[hole] == 0) {
+                return;
+            }
+            slots[hole] = 0;
+            size--;
+            for (int slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                final int home = hash(ids[slots[slot] - 1]) & mask;
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    slots[hole] = slots[slot];
+                    slots[slot] = 0;
+                    hole = slot;
+                }
+            }
+        }
+
+        private void insert(final int entry, final String[] ids) {
+            final int mask = slots.length - 1;
+            int slot = hash(ids[entry - 1]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry;
+        }
+
+        private static int hash(final String id) {
+            final int hash = id.hashCode() * 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.betonamura.recommend.data.index;
+
+/**
+ * A search result of a {@link VectorIndex}.
+ */
+public final class Neighbour {
+    private final String id;
+    private final double similarity;
+
+    Neighbour(final String id, final double similarity) {
+        this.id = id;
+        this.similarity = similarity;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Cosine similarity to the query, between -1 and 1.
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+}
@@ -0,0 +1,422 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.betonamura.recommend.data.embedding.VectorMath;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exhaustive similarity index over quantized codes, with exact re-scoring.
+ *
+ * Only a compact code is kept per item: with {@link Quantization#INT8} one
+ * byte per component and a scale (4x smaller than floats), with
+ * {@link Quantization#BINARY} one sign bit per component (32x smaller). A
+ * search scores every code against the query, by int8 dot product or by
+ * Hamming distance, keeps the best k x rescore factor candidates, and
+ * re-scores those against their full-precision vectors read from a
+ * {@link VectorSource}, e.g. a memory-mapped embedding file. Candidates whose
+ * vector is unavailable keep their estimated similarity.
+ *
+ * {@link #optimize()} measures recall@10 against exact search on a sample
+ * of items and raises the rescore factor until the recall is within the
+ * configured tolerance.
+ *
+ * Searches run concurrently under a read lock; inserts and removals take the
+ * write lock.
+ */
+@Slf4j
+public class QuantizedIndex implements VectorIndex {
+
+    /**
+     * How vectors are compressed.
+     */
+    public enum Quantization {
+        INT8, BINARY
+    }
+
+    private static final int MAX_RESCORE_FACTOR = 64;
+    private static final int CALIBRATION_K = 10;
+    private static final int CALIBRATION_QUERIES = 32;
+
+    private final int dimension;
+    private final int words; // longs per binary code
+    private final Quantization quantization;
+    private final VectorSource source;
+    private final double recallTolerance;
+    private volatile int rescoreFactor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rows = new HashMap<>();
+    private final ThreadLocal<float[]> scratch;
+    private String[] ids = new String[64];
+    private String[] categories = new String[64];
+    private byte[] codes; // INT8: rows x dimension
+    private float[] scales; // INT8: one per row
+    private long[] bits; // BINARY: rows x words
+    private int rowCount;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    /**
+     * @param dimension       Length of the indexed vectors
+     * @param quantization    How codes are stored
+     * @param rescoreFactor   Candidates re-scored per result, at least 1
+     * @param recallTolerance Recall@10 loss accepted by {@link #optimize()}
+     * @param source          Full-precision vectors for re-scoring
+     */
+    public QuantizedIndex(final int dimension, final Quantization quantization, final int rescoreFactor,
+            final double recallTolerance, final VectorSource source) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+        this.words = (dimension + Long.SIZE - 1) / Long.SIZE;
+        this.quantization = quantization;
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+        this.recallTolerance = recallTolerance;
+        this.source = source;
+        this.scratch = ThreadLocal.withInitial(() -> new float[dimension]);
+        if (quantization == Quantization.INT8) {
+            codes = new byte[ids.length * dimension];
+            scales = new float[ids.length];
+        } else {
+            bits = new long[ids.length * words];
+        }
+    }
+
+    @Override
+    public void add(final String id, final String category, final float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension);
+        }
+        final float[] normalized = VectorMath.normalize(vector.clone());
+        lock.writeLock().lock();
+        try {
+            final Integer existing = rows.get(id);
+            final int row = existing != null ? existing : allocateRow();
+            if (quantization == Quantization.INT8) {
+                scales[row] = quantize(normalized, codes, row * dimension);
+            } else {
+                binarize(normalized, bits, row * words);
+            }
+            ids[row] = id;
+            categories[row] = category;
+            rows.put(id, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String id) {
+        lock.writeLock().lock();
+        try {
+            final Integer row = rows.remove(id);
+            if (row == null) {
+                return false;
+            }
+            ids[row] = null;
+            categories[row] = null;
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbour> search(final float[] query, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        return searchNormalized(VectorMath.normalize(query.clone()), k, category, excludeIds, null,
+                rescoreFactor);
+    }
+
+    @Override
+    public List<Neighbour> searchSimilar(final String id, final int k, final String category,
+            final Set<String> excludeIds) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] query = new float[dimension];
+        lock.readLock().lock();
+        try {
+            // The source may know content that is not indexed here
+            final Integer row = rows.get(id);
+            if (row == null) {
+                return Collections.emptyList();
+            }
+            decode(row, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Prefer the full-precision vector, if the source still has it
+        final float[] exact = new float[dimension];
+        if (source.read(id, exact)) {
+            query = exact;
+        }
+        return searchNormalized(VectorMath.normalize(query), k, category, excludeIds, id, rescoreFactor);
+    }
+
+    @Override
+    public boolean contains(final String id) {
+        lock.readLock().lock();
+        try {
+            return rows.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    public int getRescoreFactor() {
+        return rescoreFactor;
+    }
+
+    /**
+     * Bytes of code stored per item.
+     */
+    public int bytesPerItem() {
+        return quantization == Quantization.INT8 ? dimension + Float.BYTES : words * Long.BYTES;
+    }
+
+    /**
+     * Raise the rescore factor until recall@10 on a sample of items, against
+     * exact search over the full-precision vectors, is within the tolerance.
+     */
+    @Override
+    public void optimize() {
+        final List<String> sample = new ArrayList<>();
+        final List<String> all = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            all.addAll(rows.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (all.size() <= CALIBRATION_K) {
+            return;
+        }
+        final int step = Math.max(1, all.size() / CALIBRATION_QUERIES);
+        for (int i = 0; i < all.size() && sample.size() < CALIBRATION_QUERIES; i += step) {
+            sample.add(all.get(i));
+        }
+
+        final List<float[]> queries = new ArrayList<>();
+        final List<Set<String>> expected = new ArrayList<>();
+        for (String id : sample) {
+            final float[] query = new float[dimension];
+            if (source.read(id, query)) {
+                VectorMath.normalize(query);
+                queries.add(query);
+                expected.add(exactTopK(query, all));
+            }
+        }
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        int factor = rescoreFactor;
+        double recall = recall(queries, expected, factor);
+        while (recall < 1.0 - recallTolerance && factor < MAX_RESCORE_FACTOR) {
+            factor *= 2;
+            recall = recall(queries, expected, factor);
+        }
+        rescoreFactor = Math.min(factor, MAX_RESCORE_FACTOR);
+        log.info("Quantized index of {} items ({} bytes each): recall@{} {} with rescore factor {}",
+                all.size(), bytesPerItem(), CALIBRATION_K, String.format("%.3f", recall), rescoreFactor);
+    }
+
+    private double recall(final List<float[]> queries, final List<Set<String>> expected, final int factor) {
+        int found = 0;
+        int total = 0;
+        for (int q = 0; q < queries.size(); q++) {
+            for (Neighbour match : searchNormalized(queries.get(q), CALIBRATION_K, null, null, null, factor)) {
+                if (expected.get(q).contains(match.getId())) {
+                    found++;
+                }
+            }
+            total += expected.get(q).size();
+        }
+        return total == 0 ? 1.0 : (double) found / total;
+    }
+
+    private Set<String> exactTopK(final float[] query, final List<String> all) {
+        final float[] vector = new float[dimension];
+        final CandidateHeap heap = new CandidateHeap(CALIBRATION_K);
+        final String[] candidates = all.toArray(new String[0]);
+        for (int i = 0; i < candidates.length; i++) {
+            if (source.read(candidates[i], vector)) {
+                heap.offer(i, VectorMath.cosine(query, vector));
+            }
+        }
+        final Set<String> result = new HashSet<>();
+        for (int i = 0; i < heap.size(); i++) {
+            result.add(candidates[heap.entry(i)]);
+        }
+        return result;
+    }
+
+    private List<Neighbour> searchNormalized(final float[] query, final int k, final String category,
+            final Set<String> excludeIds, final String self, final int factor) {
+        final CandidateHeap candidates = new CandidateHeap(k * factor);
+        final String[] candidateIds;
+        lock.readLock().lock();
+        try {
+            if (quantization == Quantization.INT8) {
+                final byte[] queryCodes = new byte[dimension];
+                final float queryScale = quantize(query, queryCodes, 0);
+                for (int row = 0; row < rowCount; row++) {
+                    if (accept(row, category, excludeIds, self)) {
+                        candidates.offer(row, queryScale * scales[row] * dot(queryCodes, codes, row * dimension));
+                    }
+                }
+            } else {
+                final long[] queryBits = new long[words];
+                binarize(query, queryBits, 0);
+                for (int row = 0; row < rowCount; row++) {
+                    if (accept(row, category, excludeIds, self)) {
+                        candidates.offer(row, estimateFromHamming(hamming(queryBits, bits, row * words)));
+                    }
+                }
+            }
+            candidateIds = new String[candidates.size()];
+            for (int i = 0; i < candidates.size(); i++) {
+                candidateIds[i] = ids[candidates.entry(i)];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Re-score outside the lock: the source may page vectors in from disk
+        final float[] vector = scratch.get();
+        final List<Neighbour> result = new ArrayList<>(candidateIds.length);
+        for (int i = 0; i < candidateIds.length; i++) {
+            final double similarity = source.read(candidateIds[i], vector)
+                    ? VectorMath.cosine(query, vector)
+                    : candidates.score(i);
+            result.add(new Neighbour(candidateIds[i], similarity));
+        }
+        result.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    private boolean accept(final int row, final String category, final Set<String> excludeIds, final String self) {
+        final String id = ids[row];
+        return id != null
+                && (category == null || category.equals(categories[row]))
+                && (excludeIds == null || !excludeIds.contains(id))
+                && !id.equals(self);
+    }
+
+    private void decode(final int row, final float[] target) {
+        if (quantization == Quantization.INT8) {
+            final float scale = scales[row];
+            for (int i = 0; i < dimension; i++) {
+                target[i] = codes[row * dimension + i] * scale;
+            }
+        } else {
+            for (int i = 0; i < dimension; i++) {
+                target[i] = (bits[row * words + i / Long.SIZE] >>> (i % Long.SIZE) & 1L) != 0 ? 1f : -1f;
+            }
+        }
+    }
+
+    /**
+     * Scale a vector into signed bytes; returns the scale to multiply back.
+     */
+    private static float quantize(final float[] vector, final byte[] target, final int offset) {
+        float max = 0;
+        for (float value : vector) {
+            max = Math.max(max, Math.abs(value));
+        }
+        final float scale = max > 0 ? max / 127 : 1;
+        for (int i = 0; i < vector.length; i++) {
+            target[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    private void binarize(final float[] vector, final long[] target, final int offset) {
+        Arrays.fill(target, offset, offset + words, 0L);
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0) {
+                target[offset + i / Long.SIZE] |= 1L << (i % Long.SIZE);
+            }
+        }
+    }
+
+    private int dot(final byte[] query, final byte[] matrix, final int offset) {
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * matrix[offset + i];
+        }
+        return sum;
+    }
+
+    private int hamming(final long[] query, final long[] matrix, final int offset) {
+        int distance = 0;
+        for (int i = 0; i < words; i++) {
+            distance += Long.bitCount(query[i] ^ matrix[offset + i]);
+        }
+        return distance;
+    }
+
+    /**
+     * Cosine similarity estimated from the fraction of differing sign bits,
+     * as for random-hyperplane hashing.
+     */
+    private double estimateFromHamming(final int distance) {
+        return Math.cos(Math.PI * distance / dimension);
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == ids.length) {
+            final int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            if (quantization == Quantization.INT8) {
+                codes = Arrays.copyOf(codes, capacity * dimension);
+                scales = Arrays.copyOf(scales, capacity);
+            } else {
+                bits = Arrays.copyOf(bits, capacity * words);
+            }
+        }
+        return rowCount++;
+    }
+}
@@ -0,0 +1,88 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A similarity index over embedding vectors, ranked by cosine similarity.
+ *
+ * Implementations are thread-safe. Vectors may be passed unnormalized.
+ */
+public interface VectorIndex {
+
+    /**
+     * Insert an item, replacing any previous vector for the same ID.
+     *
+     * @param id       The item ID
+     * @param category The item category, may be null
+     * @param vector   The embedding, of the index dimension
+     */
+    void add(String id, String category, float[] vector);
+
+    /**
+     * Remove an item. Unknown IDs are ignored.
+     *
+     * @param id The item ID
+     * @return true if the item was indexed
+     */
+    boolean remove(String id);
+
+    /**
+     * Find the items most similar to a query vector.
+     *
+     * @param query      The query embedding
+     * @param k          Maximum number of results
+     * @param category   Only return items of this category, or null for any
+     * @param excludeIds IDs never to return, may be null
+     * @return Matches by descending similarity
+     */
+    List<Neighbour> search(float[] query, int k, String category, Set<String> excludeIds);
+
+    /**
+     * Find the items most similar to an indexed item, excluding the item itself.
+     *
+     * @param id         The indexed item ID
+     * @param k          Maximum number of results
+     * @param category   Only return items of this category, or null for any
+     * @param excludeIds IDs never to return, may be null
+     * @return Matches by descending similarity, empty if the item is not indexed
+     */
+    List<Neighbour> searchSimilar(String id, int k, String category, Set<String> excludeIds);
+
+    /**
+     * Whether an item is indexed.
+     */
+    boolean contains(String id);
+
+    /**
+     * Number of live items.
+     */
+    int size();
+
+    int getDimension();
+
+    /**
+     * Number of vectors the index wants to be trained on before a bulk load,
+     * or 0 if it needs no training or is already trained. Until trained, such
+     * an index keeps its items in a costlier form.
+     */
+    default int trainingSampleSize() {
+        return 0;
+    }
+
+    /**
+     * Train the index on a sample of vectors, so that items added afterwards
+     * are stored in their trained form straight away.
+     *
+     * @param sample Vectors of the index dimension, may be unnormalized
+     */
+    default void train(List<float[]> sample) {
+    }
+
+    /**
+     * Adapt the index to its data, e.g. retrain or recalibrate it. Called
+     * after a bulk load; searches keep working meanwhile.
+     */
+    default void optimize() {
+    }
+}
@@ -0,0 +1,17 @@
+package com.betonamura.recommend.data.index;
+
+/**
+ * Where an index reads full-precision vectors it does not keep itself.
+ */
+@FunctionalInterface
+public interface VectorSource {
+
+    /**
+     * Read the vector of an item.
+     *
+     * @param id     The item ID
+     * @param target Buffer of the index dimension, receives the vector
+     * @return false if the vector is not available
+     */
+    boolean read(String id, float[] target);
+}
@@ -0,0 +1,140 @@
+package com.betonamura.recommend.data.text;
+
+import java.text.Normalizer;
+
+/**
+ * Splits text into normalized words, writing into a reusable {@link Tokens}
+ * buffer.
+ *
+ * Normalization is Unicode NFKC, so full-width letters and digits match
+ * their ASCII forms, followed by lowercasing. Words are runs of letters,
+ * digits and combining marks; every Han, Hiragana or Katakana character is a
+ * word of its own, as those scripts are written without spaces. Everything
+ * else separates words and is dropped. Output is truncated to the maximum
+ * length in words.
+ *
+ * Apart from the buffer growing, tokenizing allocates nothing. The one
+ * exception is non-ASCII text that is not already NFKC normalized, which is
+ * normalized into a new string first. A tokenizer is immutable and can be
+ * shared between threads.
+ */
+public final class Tokenizer {
+
+    private final int maxLength;
+
+    /**
+     * @param maxLength Maximum number of words
+     */
+    public Tokenizer(final int maxLength) {
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("Max length must be positive: " + maxLength);
+        }
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Split a text into at most max-length normalized words.
+     *
+     * @return The number of words
+     */
+    public int split(final CharSequence text, final Tokens tokens) {
+        tokens.clear();
+        splitWords(normalized(text), tokens, maxLength);
+        return tokens.wordCount();
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Normalize a single word the way {@link #split} normalizes the words of
+     * a text: NFKC, then lower case per code point.
+     */
+    public static String normalizeWord(final CharSequence word) {
+        final CharSequence text = normalized(word);
+        final StringBuilder lower = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); ) {
+            final int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            lower.appendCodePoint(Character.toLowerCase(codePoint));
+        }
+        return lower.toString();
+    }
+
+    private static CharSequence normalized(final CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return Normalizer.isNormalized(text, Normalizer.Form.NFKC)
+                        ? text
+                        : Normalizer.normalize(text, Normalizer.Form.NFKC);
+            }
+        }
+        return text;
+    }
+
+    private static void splitWords(final CharSequence text, final Tokens tokens, final int maxWords) {
+        int wordStart = -1;
+        for (int i = 0; i < text.length() && tokens.wordCount() < maxWords; ) {
+            final int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+
+            if (isSingleCharWord(codePoint)) {
+                if (wordStart >= 0) {
+                    tokens.addWord(wordStart, tokens.length());
+                    wordStart = -1;
+                    if (tokens.wordCount() == maxWords) {
+                        break;
+                    }
+                }
+                final int start = tokens.length();
+                appendLowerCase(codePoint, tokens);
+                tokens.addWord(start, tokens.length());
+            } else if (isWordChar(codePoint)) {
+                if (wordStart < 0) {
+                    wordStart = tokens.length();
+                }
+                appendLowerCase(codePoint, tokens);
+            } else if (wordStart >= 0) {
+                tokens.addWord(wordStart, tokens.length());
+                wordStart = -1;
+            }
+        }
+        if (wordStart >= 0) {
+            if (tokens.wordCount() < maxWords) {
+                tokens.addWord(wordStart, tokens.length());
+            } else {
+                tokens.truncate(wordStart);
+            }
+        }
+    }
+
+    private static boolean isWordChar(final int codePoint) {
+        if (Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        final int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static boolean isSingleCharWord(final int codePoint) {
+        if (codePoint < 0x2e80) {
+            return false; // fast path below the CJK blocks
+        }
+        if (Character.isIdeographic(codePoint)) {
+            return true;
+        }
+        final Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static void appendLowerCase(final int codePoint, final Tokens tokens) {
+        final int lower = Character.toLowerCase(codePoint);
+        if (Character.isBmpCodePoint(lower)) {
+            tokens.append((char) lower);
+        } else {
+            tokens.append(Character.highSurrogate(lower));
+            tokens.append(Character.lowSurrogate(lower));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.betonamura.recommend.data.text;
+
+import java.util.Arrays;
+
+/**
+ * Reusable output of a {@link Tokenizer}: the normalized words as spans of
+ * one char buffer.
+ *
+ * Buffers grow as needed and are kept between uses, so tokenizing into the
+ * same instance allocates nothing once it has seen a text of similar size.
+ * An instance is not thread-safe; keep one per thread.
+ */
+public final class Tokens {
+
+    private char[] chars = new char[256];
+    private int length;
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int wordCount;
+
+    /**
+     * The normalized words, see {@link #wordStart(int)} and {@link #wordEnd(int)}.
+     */
+    public char[] chars() {
+        return chars;
+    }
+
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Start of a word in {@link #chars()}.
+     */
+    public int wordStart(final int word) {
+        return starts[word];
+    }
+
+    /**
+     * End of a word in {@link #chars()}, exclusive.
+     */
+    public int wordEnd(final int word) {
+        return ends[word];
+    }
+
+    /**
+     * Copy a word into a new string, for logging and tests.
+     */
+    public String word(final int word) {
+        return new String(chars, starts[word], ends[word] - starts[word]);
+    }
+
+    void clear() {
+        length = 0;
+        wordCount = 0;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void append(final char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    void truncate(final int newLength) {
+        length = newLength;
+    }
+
+    void addWord(final int start, final int end) {
+        if (wordCount == starts.length) {
+            starts = Arrays.copyOf(starts, wordCount * 2);
+            ends = Arrays.copyOf(ends, wordCount * 2);
+        }
+        starts[wordCount] = start;
+        ends[wordCount] = end;
+        wordCount++;
+    }
+}
@@ -1,11 +1,14 @@
 package com.betonamura.recommend.domain.embedding;
 
+import com.betonamura.recommend.data.embedding.VectorMath;
+
 import lombok.Builder;
 import lombok.Data;
 
 /**
  * Represents an embedding vector for content (video, DIY, etc.)
  * These embeddings are used to calculate similarity between items.
+ * The vector is stored L2-normalized, so similarity is a dot product.
  */
 @Data
 @Builder
@@ -15,32 +18,34 @@ public class ContentEmbedding {
     private float[] vector;
     private long timestamp; // when this embedding was created
 
+    /**
+     * Set the vector; a normalized copy is stored.
+     */
+    public void setVector(float[] vector) {
+        this.vector = normalizedCopy(vector);
+    }
+
     /**
      * Calculate cosine similarity with another embedding
      * 
      * @param other The other embedding to compare with
-     * @return Similarity score between 0 and 1
+     * @return Similarity score between -1 and 1
      */
     public double calculateSimilarity(ContentEmbedding other) {
-        if (this.vector.length != other.vector.length) {
-            throw new IllegalArgumentException("Embedding dimensions don't match");
-        }
-
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+        return VectorMath.dot(this.vector, other.vector);
+    }
 
-        for (int i = 0; i < this.vector.length; i++) {
-            dotProduct += this.vector[i] * other.vector[i];
-            norm1 += this.vector[i] * this.vector[i];
-            norm2 += other.vector[i] * other.vector[i];
-        }
+    private static float[] normalizedCopy(float[] vector) {
+        return vector != null ? VectorMath.normalize(vector.clone()) : null;
+    }
 
-        // Prevent division by zero
-        if (norm1 <= 0.0 || norm2 <= 0.0) {
-            return 0.0;
+    public static class ContentEmbeddingBuilder {
+        /**
+         * Set the vector; a normalized copy is stored.
+         */
+        public ContentEmbeddingBuilder vector(float[] vector) {
+            this.vector = normalizedCopy(vector);
+            return this;
         }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
     }
 }
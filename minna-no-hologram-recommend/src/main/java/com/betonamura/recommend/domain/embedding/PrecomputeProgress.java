@@ -0,0 +1,18 @@
+package com.betonamura.recommend.domain.embedding;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress of the current or last embedding precomputation
+ */
+@Data
+@Builder
+public class PrecomputeProgress {
+    private boolean running;
+    private int total; // content items to embed
+    private int completed; // items stored, including reused and failed ones
+    private int reused; // items taken from the persisted embedding file
+    private int failed;
+    private long elapsedMillis;
+}
@@ -14,16 +14,22 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import com.betonamura.recommend.controller.BatchRecommendationRequest;
+import com.betonamura.recommend.controller.BatchRecommendationResponse;
 import com.betonamura.recommend.controller.RecommendationRequest;
 import com.betonamura.recommend.controller.RecommendationResponse;
 import com.betonamura.recommend.data.DataProvider;
 import com.betonamura.recommend.data.UserInteractionData;
+import com.betonamura.recommend.domain.common.ContentCard;
 import com.betonamura.recommend.domain.diy.DIYMetadata;
 import com.betonamura.recommend.domain.diy.DiyCard;
 import com.betonamura.recommend.domain.tag.Tag;
 import com.betonamura.recommend.domain.video.VideoCard;
 import com.betonamura.recommend.domain.video.VideoMetadata;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -36,6 +42,10 @@ public class RecommendationRepositoryImpl {
     private static final String CATEGORY_VIDEO = "video";
     private static final String CATEGORY_DIY = "diy";
     private static final String CONTEXT_CURRENT_VIDEO = "currentVideo";
+    private static final String ITEM_REQUIRED_MSG = "Item cannot be null";
+
+    // Batch items are validated here, one by one, rather than as part of the request body
+    private static final Validator ITEM_VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
 
     private final DataProvider dataProvider;
     private final UserInteractionData userInteractionData;
@@ -58,10 +68,85 @@ public class RecommendationRepositoryImpl {
         log.info("Generating recommendations for category: {}, current ID: {}",
                 request.getCategoryId(), request.getCurrentId());
 
+        return RecommendationResponse.builder()
+                .content(recommend(request, new Lookups(Collections.emptyMap(), request.getLimit())))
+                .build();
+    }
+
+    /**
+     * Answer many recommendation requests in one pass.
+     * Lookups are shared across items: each current item is looked up once,
+     * each DIY category is listed once, and the SLM is asked once per current
+     * video with the largest limit requested for it.
+     * An item that cannot be answered gets an error instead of failing the batch.
+     *
+     * @param request BatchRecommendationRequest containing the items
+     * @return BatchRecommendationResponse with one result per item, in order
+     */
+    public BatchRecommendationResponse getBatchRecommendations(final BatchRecommendationRequest request) {
+        log.info("Generating batch recommendations for {} items", request.getItems().size());
+
+        final List<String> errors = new ArrayList<>(request.getItems().size());
+        final Map<String, Integer> maxLimits = new HashMap<>();
+        int maxLimit = 0;
+        for (final RecommendationRequest item : request.getItems()) {
+            final String error = validate(item);
+            errors.add(error);
+            if (error == null) {
+                maxLimits.merge(String.valueOf(item.getCurrentId()), item.getLimit(), Math::max);
+                maxLimit = Math.max(maxLimit, item.getLimit());
+            }
+        }
+        final Lookups lookups = new Lookups(maxLimits, maxLimit);
+
+        final List<BatchRecommendationResponse.Result> results = new ArrayList<>(request.getItems().size());
+        for (int i = 0; i < request.getItems().size(); i++) {
+            final RecommendationRequest item = request.getItems().get(i);
+            final BatchRecommendationResponse.Result.ResultBuilder result = BatchRecommendationResponse.Result
+                    .builder();
+            if (errors.get(i) != null) {
+                if (item != null) {
+                    result.categoryId(item.getCategoryId()).currentId(item.getCurrentId());
+                }
+                results.add(result.content(Collections.emptyList()).error(errors.get(i)).build());
+                continue;
+            }
+            result.categoryId(item.getCategoryId()).currentId(item.getCurrentId());
+            try {
+                result.content(recommend(item, lookups));
+            } catch (IllegalArgumentException e) {
+                result.content(Collections.emptyList()).error(e.getMessage());
+            }
+            results.add(result.build());
+        }
+
+        return BatchRecommendationResponse.builder()
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Check one batch item against the constraints of a single request.
+     *
+     * @param item the batch item
+     * @return the first violation message, or null if the item is valid
+     */
+    private static String validate(final RecommendationRequest item) {
+        if (item == null) {
+            return ITEM_REQUIRED_MSG;
+        }
+        return ITEM_VALIDATOR.validate(item).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<? extends ContentCard> recommend(final RecommendationRequest request, final Lookups lookups) {
         if (CATEGORY_VIDEO.equalsIgnoreCase(request.getCategoryId())) {
-            return getVideoRecommendations(request, request.getLimit());
+            return getVideoRecommendations(request, request.getLimit(), lookups);
         } else if (CATEGORY_DIY.equalsIgnoreCase(request.getCategoryId())) {
-            return getDiyRecommendations(request, request.getLimit());
+            return getDiyRecommendations(request, request.getLimit(), lookups);
         } else {
             throw new IllegalArgumentException(
                     "Invalid category ID. Must be '" + CATEGORY_VIDEO + "' or '" + CATEGORY_DIY + "'");
@@ -76,28 +161,26 @@ public class RecommendationRepositoryImpl {
      * @param request RecommendationRequest containing user, category, and current
      *                video ID
      * @param limit   Maximum number of recommendations to return
-     * @return RecommendationResponse containing a list of recommended VideoCard
-     *         objects
+     * @param lookups Lookups shared with the other items of the request
+     * @return List of recommended VideoCard objects
      */
-    private RecommendationResponse getVideoRecommendations(final RecommendationRequest request, final int limit) {
-        final Optional<VideoMetadata> currentVideoOpt = dataProvider.getVideoById(request.getCurrentId());
+    private List<VideoCard> getVideoRecommendations(final RecommendationRequest request, final int limit,
+            final Lookups lookups) {
+        final Optional<VideoMetadata> currentVideoOpt = lookups.video(request.getCurrentId());
 
         if (currentVideoOpt.isPresent()) {
             final VideoMetadata currentVideo = currentVideoOpt.get();
 
-            // Prepare context for the SLM
-            final Map<String, Object> context = new HashMap<>();
-            context.put(CONTEXT_CURRENT_VIDEO, currentVideo);
-
             // Get recommended video IDs from SLM service
-            final Set<String> excludeVideoIds = new HashSet<>(Arrays.asList(request.getCurrentId()));
-            final List<String> recommendedVideoIds = slmRepository.getRecommendations(
-                    context, excludeVideoIds, request.getLimit());
+            final List<String> recommendedVideoIds = lookups.similarVideoIds(currentVideo);
 
             // Convert video IDs to VideoCard objects
             final List<VideoCard> relatedContent = new ArrayList<>();
             for (final String videoId : recommendedVideoIds) {
-                final Optional<VideoMetadata> videoOpt = dataProvider.getVideoById(videoId);
+                if (relatedContent.size() >= limit) {
+                    break;
+                }
+                final Optional<VideoMetadata> videoOpt = lookups.video(videoId);
                 if (videoOpt.isPresent()) {
                     final VideoMetadata video = videoOpt.get();
                     final VideoCard videoCard = convertToVideoCard(video,
@@ -106,23 +189,16 @@ public class RecommendationRepositoryImpl {
                 }
             }
 
-            return RecommendationResponse.builder()
-                    .content(relatedContent)
-                    .build();
+            return relatedContent;
         } else {
             // Current video not found - return popular videos
-            final List<String> popularVideos = userInteractionData.findTrendingVideoIds(request.getLimit());
-            final List<VideoCard> relatedContent = popularVideos.stream()
-                    .map(videoId -> dataProvider.getVideoById(videoId))
+            return lookups.trendingVideoIds().stream()
+                    .map(lookups::video)
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .map(video -> convertToVideoCard(video, 0.5))
                     .limit(limit)
                     .collect(Collectors.toList());
-
-            return RecommendationResponse.builder()
-                    .content(relatedContent)
-                    .build();
         }
     }
 
@@ -135,40 +211,83 @@ public class RecommendationRepositoryImpl {
      * @param request RecommendationRequest containing user, category, and current
      *                DIY ID
      * @param limit   Maximum number of recommendations to return
-     * @return RecommendationResponse containing a list of recommended DiyCard
-     *         objects
+     * @param lookups Lookups shared with the other items of the request
+     * @return List of recommended DiyCard objects
      */
-    private RecommendationResponse getDiyRecommendations(final RecommendationRequest request, final int limit) {
+    private List<DiyCard> getDiyRecommendations(final RecommendationRequest request, final int limit,
+            final Lookups lookups) {
 
         // Get the current DIY metadata
-        final Optional<DIYMetadata> currentDiyOpt = dataProvider.getDIYById(request.getCurrentId());
+        final Optional<DIYMetadata> currentDiyOpt = lookups.diy(request.getCurrentId());
 
         if (currentDiyOpt.isPresent()) {
             final DIYMetadata currentDiy = currentDiyOpt.get();
 
             // Get related DIYs in the same category
-            final List<DIYMetadata> relatedDIYs = dataProvider.getDIYsByCategory(currentDiy.getCategoryId());
-            final List<DiyCard> relatedContent = relatedDIYs.stream()
+            final List<DIYMetadata> relatedDIYs = lookups.diysByCategory(currentDiy.getCategoryId());
+            return relatedDIYs.stream()
                     .filter(diy -> !diy.getDiyId().equals(request.getCurrentId()))
                     .map(diy -> convertToDiyCard(diy, 0.8))
                     .limit(limit)
                     .collect(Collectors.toList());
-
-            return RecommendationResponse.builder()
-                    .content(relatedContent)
-                    .build();
         } else {
             // Current DIY not found - return random DIYs
             final List<DIYMetadata> popularDIYs = new ArrayList<>(dataProvider.getAllDIYs());
             Collections.shuffle(popularDIYs);
-            final List<DiyCard> relatedContent = popularDIYs.stream()
+            return popularDIYs.stream()
                     .map(diy -> convertToDiyCard(diy, 0.5))
                     .limit(limit)
                     .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Memoized data and SLM lookups for one request, so items of a batch that
+     * refer to the same content share the work.
+     */
+    private final class Lookups {
+        private final Map<String, Integer> maxLimits;
+        private final int maxLimit;
+        private final Map<String, Optional<VideoMetadata>> videos = new HashMap<>();
+        private final Map<String, Optional<DIYMetadata>> diys = new HashMap<>();
+        private final Map<String, List<DIYMetadata>> diysByCategory = new HashMap<>();
+        private final Map<String, List<String>> similarVideoIds = new HashMap<>();
+        private List<String> trendingVideoIds;
+
+        private Lookups(final Map<String, Integer> maxLimits, final int maxLimit) {
+            this.maxLimits = maxLimits;
+            this.maxLimit = maxLimit;
+        }
 
-            return RecommendationResponse.builder()
-                    .content(relatedContent)
-                    .build();
+        private Optional<VideoMetadata> video(final String videoId) {
+            return videos.computeIfAbsent(String.valueOf(videoId), k -> dataProvider.getVideoById(videoId));
+        }
+
+        private Optional<DIYMetadata> diy(final String diyId) {
+            return diys.computeIfAbsent(String.valueOf(diyId), k -> dataProvider.getDIYById(diyId));
+        }
+
+        private List<DIYMetadata> diysByCategory(final String categoryId) {
+            return diysByCategory.computeIfAbsent(categoryId, dataProvider::getDIYsByCategory);
+        }
+
+        private List<String> similarVideoIds(final VideoMetadata currentVideo) {
+            return similarVideoIds.computeIfAbsent(currentVideo.getVideoId(), currentId -> {
+                // Prepare context for the SLM
+                final Map<String, Object> context = new HashMap<>();
+                context.put(CONTEXT_CURRENT_VIDEO, currentVideo);
+
+                final Set<String> excludeVideoIds = new HashSet<>(Arrays.asList(currentId));
+                return slmRepository.getRecommendations(context, excludeVideoIds,
+                        maxLimits.getOrDefault(currentId, maxLimit));
+            });
+        }
+
+        private List<String> trendingVideoIds() {
+            if (trendingVideoIds == null) {
+                trendingVideoIds = userInteractionData.findTrendingVideoIds(maxLimit);
+            }
+            return trendingVideoIds;
         }
     }
 
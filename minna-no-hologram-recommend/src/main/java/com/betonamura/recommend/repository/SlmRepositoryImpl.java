@@ -2,6 +2,7 @@ package com.betonamura.recommend.repository;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -14,6 +15,8 @@ import org.springframework.stereotype.Service;
 import com.betonamura.recommend.config.RecommendationProperties;
 import com.betonamura.recommend.data.DataProvider;
 import com.betonamura.recommend.data.UserHistoryData;
+import com.betonamura.recommend.data.index.Neighbour;
+import com.betonamura.recommend.data.index.VectorIndex;
 import com.betonamura.recommend.domain.user.UserHistory;
 import com.betonamura.recommend.domain.video.VideoMetadata;
 
@@ -31,13 +34,21 @@ public class SlmRepositoryImpl implements SlmRepository {
     private final RecommendationProperties properties;
     private final DataProvider dataProvider;
     private final UserHistoryData userHistoryData;
+    private final VectorIndex videoEmbeddingIndex; // null when no index is available
 
-    @Autowired
     public SlmRepositoryImpl(final RecommendationProperties properties,
             final DataProvider dataProvider, final UserHistoryData userHistoryData) {
+        this(properties, dataProvider, userHistoryData, null);
+    }
+
+    @Autowired
+    public SlmRepositoryImpl(final RecommendationProperties properties,
+            final DataProvider dataProvider, final UserHistoryData userHistoryData,
+            final VectorIndex videoEmbeddingIndex) {
         this.properties = properties;
         this.dataProvider = dataProvider;
         this.userHistoryData = userHistoryData;
+        this.videoEmbeddingIndex = videoEmbeddingIndex;
     }
 
     @PostConstruct
@@ -65,15 +76,13 @@ public class SlmRepositoryImpl implements SlmRepository {
 
             List<String> recommendedVideoIds = new ArrayList<>();
 
-            // TODO: Use SLM for content-based recommendations
-            // 1. Generate embeddings for current content/user profile
-            // 2. Find similar content using vector similarity
-            // 3. Return most similar items
+            // TODO: Use SLM for user profile based recommendations
+            // 1. Generate embeddings for the user profile
+            // 2. Find similar content using the embedding index
 
             if (context.containsKey("currentVideo")) {
-                // Simple content-based recommendations for now
                 VideoMetadata currentVideo = (VideoMetadata) context.get("currentVideo");
-                recommendedVideoIds = getContentBasedRecommendations(currentVideo, excludeVideoIds);
+                recommendedVideoIds = getContentBasedRecommendations(currentVideo, excludeVideoIds, limit);
             } else if (context.containsKey("userId")) {
                 // Simple user history-based recommendations for now
                 String userId = (String) context.get("userId");
@@ -105,20 +114,36 @@ public class SlmRepositoryImpl implements SlmRepository {
     }
 
     /**
-     * Get content-based recommendations using simple category matching
-     * TODO: Replace with SLM-based similarity in future
+     * Get content-based recommendations from the embedding index, topped up
+     * with videos from the same category when the index has too few matches
+     * (e.g. embeddings are not computed yet)
      */
-    private List<String> getContentBasedRecommendations(VideoMetadata currentVideo, Set<String> excludeVideoIds) {
+    private List<String> getContentBasedRecommendations(VideoMetadata currentVideo, Set<String> excludeVideoIds,
+            int limit) {
         log.debug("Generating content-based recommendations for video: {}", currentVideo.getVideoId());
 
-        // Simple approach: Get videos from same category
-        List<VideoMetadata> similarVideos = dataProvider.getVideosByCategory(currentVideo.getCategoryId());
+        Set<String> recommended = new LinkedHashSet<>();
+        if (videoEmbeddingIndex != null) {
+            double minScore = properties.getMinSimilarityScore() != null ? properties.getMinSimilarityScore() : 0.0;
+            for (Neighbour neighbour : videoEmbeddingIndex.searchSimilar(
+                    currentVideo.getVideoId(), limit, null, excludeVideoIds)) {
+                if (neighbour.getSimilarity() >= minScore) {
+                    recommended.add(neighbour.getId());
+                }
+            }
+        }
+        if (recommended.size() >= limit) {
+            return new ArrayList<>(recommended);
+        }
 
-        return similarVideos.stream()
+        // Fall back to videos from the same category
+        dataProvider.getVideosByCategory(currentVideo.getCategoryId()).stream()
                 .filter(video -> !video.getVideoId().equals(currentVideo.getVideoId()))
                 .filter(video -> !excludeVideoIds.contains(video.getVideoId()))
                 .map(VideoMetadata::getVideoId)
-                .collect(Collectors.toList());
+                .forEach(recommended::add);
+
+        return new ArrayList<>(recommended);
     }
 
     /**
@@ -1,7 +1,23 @@
 package com.betonamura.recommend.service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
 
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -9,8 +25,12 @@ import org.springframework.stereotype.Service;
 import com.betonamura.recommend.config.EmbeddingCacheService;
 import com.betonamura.recommend.config.RecommendationProperties;
 import com.betonamura.recommend.data.DataProvider;
+import com.betonamura.recommend.data.embedding.EmbeddingFile;
+import com.betonamura.recommend.data.embedding.EmbeddingStore;
+import com.betonamura.recommend.data.index.VectorIndex;
+import com.betonamura.recommend.domain.common.ContentType;
 import com.betonamura.recommend.domain.diy.DIYMetadata;
-import com.betonamura.recommend.domain.embedding.ContentEmbedding;
+import com.betonamura.recommend.domain.embedding.PrecomputeProgress;
 import com.betonamura.recommend.domain.video.VideoMetadata;
 
 import jakarta.annotation.PostConstruct;
@@ -19,22 +39,52 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for precomputing and managing content embeddings
+ *
+ * Embeddings are persisted to a memory-mapped {@link EmbeddingFile} under the
+ * model cache directory. After a restart they are reused as long as the model
+ * and the content they were computed from are unchanged, so only new or
+ * edited content goes through the model again.
+ *
+ * Embeddings missing on the request path go through the
+ * {@link InferenceBatcher}, so concurrent misses share model calls.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ContentEmbeddingService {
 
+    private static final String EMBEDDING_FILE = "embeddings.bin";
+    private static final int MAX_COPY_ATTEMPTS = 3;
+
     private final ModelService modelService;
     private final DataProvider dataProvider;
     private final RecommendationProperties properties;
     private final EmbeddingCacheService embeddingCache;
+    private final VectorIndex videoEmbeddingIndex;
+    private final InferenceBatcher inferenceBatcher;
+
+    private final ReentrantLock precomputeLock = new ReentrantLock();
+    private final Progress progress = new Progress();
+    private volatile EmbeddingFile persisted;
 
     @PostConstruct
     public void init() {
+        if (!modelService.isFitted()) {
+            // First start: fit before anything is embedded, the model name may
+            // depend on it. Later starts reuse the fit so the file stays valid.
+            List<String> descriptions = new ArrayList<>();
+            dataProvider.getAllVideos().forEach(video -> descriptions.add(modelService.generateContentDescription(video)));
+            dataProvider.getAllDIYs().forEach(diy -> descriptions.add(modelService.generateContentDescription(diy)));
+            modelService.fit(descriptions);
+        }
+
+        // Mapping the file is cheap: rows are only paged in when read
+        persisted = EmbeddingFile.open(embeddingFilePath(), modelService.getModelName(), dimension());
+
         if (properties.getPrecomputeEmbeddings()) {
-            // Don't block startup - precompute embeddings asynchronously
-            CompletableFuture.runAsync(this::precomputeAllEmbeddings)
+            // Don't block startup - index from the file and embed only what
+            // changed since it was written, asynchronously
+            CompletableFuture.runAsync(this::refreshEmbeddings)
                     .exceptionally(ex -> {
                         log.error("Error precomputing embeddings", ex);
                         return null;
@@ -43,136 +93,535 @@ public class ContentEmbeddingService {
     }
 
     /**
-     * Precompute embeddings for all content in the system
+     * Precompute embeddings for all content in the system, reusing persisted
+     * embeddings of unchanged content, and persist the result
+     *
+     * The model is refitted on the current catalog first. If that changes its
+     * statistics, the model name changes and everything is embedded again.
+     *
+     * Every item is loaded into the cache and the similarity index. See
+     * {@link #refreshEmbeddings()} to only apply changes, which is what runs
+     * at startup.
      */
     @Async
     public void precomputeAllEmbeddings() {
+        run(false);
+    }
+
+    /**
+     * Bring embeddings up to date with the catalog: only new or changed
+     * content is embedded, deleted content is dropped from the cache and the
+     * index, and unchanged content is left alone. A refresh costs model calls
+     * in proportion to the churn, not to the catalog size.
+     *
+     * Content is compared by the fingerprint of its description and the model
+     * name, so switching models recomputes everything. Persisted videos missing
+     * from the index are indexed straight from the file, and the file is only
+     * rewritten when something changed.
+     */
+    @Async
+    public void refreshEmbeddings() {
+        run(true);
+    }
+
+    /**
+     * Runs as a pipeline: content is described and fingerprinted, persisted
+     * embeddings with a matching fingerprint are reused, the rest is grouped
+     * into batches of the configured batch size and embedded on one worker
+     * per core, and the calling thread stores the results. At most two batches
+     * per worker are in flight, so memory stays bounded whatever the catalog
+     * size. An index that needs training is trained on a sample before it
+     * fills up, so it never holds the whole catalog in full precision.
+     */
+    private void run(boolean incremental) {
+        if (!precomputeLock.tryLock()) {
+            log.info("Embedding precomputation already in progress, skipping");
+            return;
+        }
+        EmbeddingFile.Writer writer = null;
+        ExecutorService workers = null;
         try {
-            log.info("Starting precomputation of content embeddings");
+            String mode = incremental ? "refresh" : "precomputation";
+            log.info("Starting {} of content embeddings", mode);
+            EmbeddingFile previous = persisted;
 
-            // Process videos
+            // Describe
             List<VideoMetadata> videos = dataProvider.getAllVideos();
-            log.info("Precomputing embeddings for {} videos", videos.size());
-
+            List<DIYMetadata> diys = dataProvider.getAllDIYs();
+            List<PendingEmbedding> items = new ArrayList<>(videos.size() + diys.size());
             for (VideoMetadata video : videos) {
-                try {
-                    String contentDescription = modelService.generateContentDescription(video);
-                    float[] embedding = modelService.generateEmbedding(contentDescription);
-
-                    ContentEmbedding contentEmbedding = ContentEmbedding.builder()
-                            .contentId(video.getVideoId())
-                            .contentType("video")
-                            .vector(embedding)
-                            .timestamp(System.currentTimeMillis())
-                            .build();
-
-                    embeddingCache.put("video:" + video.getVideoId(), contentEmbedding);
-                } catch (Exception e) {
-                    log.error("Error generating embedding for video {}", video.getVideoId(), e);
-                }
+                items.add(new PendingEmbedding(ContentType.VIDEO, video.getVideoId(), video.getCategoryId(),
+                        modelService.generateContentDescription(video)));
             }
+            for (DIYMetadata diy : diys) {
+                items.add(new PendingEmbedding(ContentType.DIY, diy.getDiyId(), null,
+                        modelService.generateContentDescription(diy)));
+            }
+            if (!incremental) {
+                // Only an explicit full rebuild refits the model
+                List<String> descriptions = new ArrayList<>(items.size());
+                items.forEach(item -> descriptions.add(item.contentDescription));
+                modelService.fit(descriptions);
+            }
+            String modelName = modelService.getModelName();
 
-            // Process DIYs
-            List<DIYMetadata> diys = dataProvider.getAllDIYs();
-            log.info("Precomputing embeddings for {} DIYs", diys.size());
+            // Split into unchanged and new or changed content
+            List<PendingEmbedding> unchanged = new ArrayList<>();
+            List<PendingEmbedding> changed = new ArrayList<>();
+            Map<ContentType, Set<String>> live = new EnumMap<>(ContentType.class);
+            for (PendingEmbedding item : items) {
+                item.fingerprint = EmbeddingFile.fingerprint(modelName, item.contentDescription);
+                live.computeIfAbsent(item.contentType, type -> new HashSet<>()).add(item.contentId);
+                item.previousRow = previous.find(item.contentType, item.contentId, item.fingerprint);
+                (item.previousRow >= 0 ? unchanged : changed).add(item);
+            }
 
-            for (DIYMetadata diy : diys) {
-                try {
-                    // TODO: Implement DIY description generation
-                    StringBuilder contentDescription = new StringBuilder();
-                    contentDescription.append("Title: ").append(diy.getTitle()).append(". ");
-                    if (diy.getDescription() != null) {
-                        contentDescription.append("Description: ").append(diy.getDescription()).append(". ");
-                    }
-                    if (diy.getTags() != null) {
-                        contentDescription.append("Tags: ").append(diy.getTags().replace(",", ", ")).append(". ");
+            // An index that needs training is trained before the bulk load, so
+            // items go in encoded instead of piling up in full precision: on
+            // persisted embeddings if there are enough, else on the first batches
+            int trainingSampleSize = videoEmbeddingIndex.trainingSampleSize();
+            List<float[]> trainingSample = trainIfReady(
+                    trainingSampleSize > 0 ? persistedSample(previous, unchanged, trainingSampleSize) : null,
+                    trainingSampleSize);
+
+            int indexedFromFile = 0;
+            if (incremental) {
+                for (PendingEmbedding item : unchanged) {
+                    if (item.contentType == ContentType.VIDEO && !videoEmbeddingIndex.contains(item.contentId)) {
+                        // The process was never warmed up: index from the file, no model call needed
+                        videoEmbeddingIndex.add(item.contentId, item.categoryId,
+                                previous.read(item.previousRow, new float[previous.getDimension()]));
+                        indexedFromFile++;
                     }
+                }
+            }
+            int removed = removeDeleted(previous, live);
+            log.info("Embedding {} for {} videos and {} DIYs: {} unchanged, {} new or changed, {} deleted",
+                    mode, videos.size(), diys.size(), unchanged.size(), changed.size(), removed);
+            boolean upToDate = changed.isEmpty() && removed == 0;
+            if (incremental && upToDate) {
+                if (indexedFromFile > 0) {
+                    videoEmbeddingIndex.optimize();
+                }
+                log.info("Content embeddings are up to date ({} indexed from the file)", indexedFromFile);
+                return;
+            }
 
-                    float[] embedding = modelService.generateEmbedding(contentDescription.toString());
+            progress.start(incremental ? changed.size() : items.size());
+            // The file already holds exactly the current content unless something changed
+            writer = upToDate ? null : openWriter();
+            float[] buffer = new float[previous.getDimension()];
+            for (PendingEmbedding item : unchanged) {
+                if (incremental) {
+                    // Already in the cache and the index, only carried over to the new file
+                    if (writer != null) {
+                        writer.append(item.contentType, item.contentId, item.fingerprint,
+                                previous.read(item.previousRow, buffer));
+                    }
+                } else {
+                    item.embedding = previous.read(item.previousRow, new float[previous.getDimension()]);
+                    progress.reused.incrementAndGet();
+                    store(item, writer);
+                }
+            }
 
-                    ContentEmbedding contentEmbedding = ContentEmbedding.builder()
-                            .contentId(diy.getDiyId())
-                            .contentType("diy")
-                            .vector(embedding)
-                            .timestamp(System.currentTimeMillis())
-                            .build();
+            // Batch the rest
+            int batchSize = Math.max(1, properties.getModel().getBatchSize());
+            List<List<PendingEmbedding>> batches = new ArrayList<>();
+            for (int from = 0; from < changed.size(); from += batchSize) {
+                batches.add(changed.subList(from, Math.min(changed.size(), from + batchSize)));
+            }
 
-                    embeddingCache.put("diy:" + diy.getDiyId(), contentEmbedding);
-                } catch (Exception e) {
-                    log.error("Error generating embedding for DIY {}", diy.getDiyId(), e);
+            // Embed in parallel, store on this thread
+            int threads = Runtime.getRuntime().availableProcessors();
+            workers = Executors.newFixedThreadPool(threads, daemonThreads("embedding-precompute-"));
+            CompletionService<List<PendingEmbedding>> completion = new ExecutorCompletionService<>(workers);
+            int maxInFlight = threads * 2;
+            int submitted = 0;
+            int inFlight = 0;
+            while (submitted < batches.size() || inFlight > 0) {
+                if (submitted < batches.size() && inFlight < maxInFlight) {
+                    List<PendingEmbedding> next = batches.get(submitted++);
+                    completion.submit(() -> embedBatch(next));
+                    inFlight++;
+                    continue;
+                }
+                List<PendingEmbedding> embedded = completion.take().get();
+                inFlight--;
+                for (PendingEmbedding item : embedded) {
+                    if (trainingSample != null && item.contentType == ContentType.VIDEO && item.embedding != null) {
+                        trainingSample.add(item.embedding);
+                    }
+                    store(item, writer);
                 }
+                trainingSample = trainIfReady(trainingSample, trainingSampleSize);
             }
 
-            log.info("Completed precomputation of content embeddings. Cache size: {}", embeddingCache.size());
+            closeWriter(writer);
+            writer = null;
+            videoEmbeddingIndex.optimize();
+            log.info("Completed {} of content embeddings in {} ms ({} reused, {} failed). Cache size: {}",
+                    mode, progress.elapsedMillis(), progress.reused.get(), progress.failed.get(),
+                    embeddingCache.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Embedding precomputation interrupted");
+            abortWriter(writer);
         } catch (Exception e) {
             log.error("Error during embedding precomputation", e);
+            abortWriter(writer);
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            progress.finish();
+            precomputeLock.unlock();
+        }
+    }
+
+    /**
+     * Sample the persisted embeddings of unchanged videos, evenly over the
+     * catalog, for training the index
+     *
+     * @return Up to the given number of vectors
+     */
+    private List<float[]> persistedSample(EmbeddingFile previous, List<PendingEmbedding> unchanged, int size) {
+        List<PendingEmbedding> videos = new ArrayList<>();
+        for (PendingEmbedding item : unchanged) {
+            if (item.contentType == ContentType.VIDEO) {
+                videos.add(item);
+            }
+        }
+        int step = Math.max(1, videos.size() / size);
+        List<float[]> sample = new ArrayList<>(Math.min(size, videos.size()));
+        for (int i = 0; i < videos.size() && sample.size() < size; i += step) {
+            sample.add(previous.read(videos.get(i).previousRow, new float[previous.getDimension()]));
         }
+        return sample;
+    }
+
+    /**
+     * Train the index once the sample is complete. Catalogs smaller than the
+     * sample are left to {@link VectorIndex#optimize()} at the end of the run.
+     *
+     * @return The sample to keep collecting into, or null once trained
+     */
+    private List<float[]> trainIfReady(List<float[]> sample, int size) {
+        if (sample == null || sample.size() < size) {
+            return sample;
+        }
+        log.info("Training the video embedding index on {} embeddings", sample.size());
+        videoEmbeddingIndex.train(sample);
+        return null;
+    }
+
+    /**
+     * Drop the embeddings of persisted content that is no longer in the
+     * catalog from the cache and the index
+     *
+     * @return The number of deleted items
+     */
+    private int removeDeleted(EmbeddingFile previous, Map<ContentType, Set<String>> live) {
+        int removed = 0;
+        for (ContentType contentType : ContentType.values()) {
+            Set<String> current = live.getOrDefault(contentType, Set.of());
+            for (String contentId : previous.ids(contentType)) {
+                if (!current.contains(contentId)) {
+                    embeddingCache.remove(contentType, contentId);
+                    if (contentType == ContentType.VIDEO) {
+                        videoEmbeddingIndex.remove(contentId);
+                    }
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Get the progress of the current or last precomputation
+     */
+    public PrecomputeProgress getPrecomputeProgress() {
+        return progress.snapshot();
     }
 
     /**
      * Get or create an embedding for a video
+     *
+     * @param target Buffer of the embedding dimension, receives the embedding
+     * @return The target buffer
+     */
+    public float[] getVideoEmbedding(VideoMetadata video, float[] target) {
+        try {
+            return copyCached(ContentType.VIDEO, video.getVideoId(), target,
+                    () -> embeddingCache.getOrLoad(ContentType.VIDEO, video.getVideoId(), () -> {
+                        String contentDescription = modelService.generateContentDescription(video);
+                        float[] vector = load(ContentType.VIDEO, video.getVideoId(), contentDescription);
+                        // Reloads after eviction or expiry must not re-insert: for HNSW
+                        // every add tombstones a node. Edits are re-indexed by refresh.
+                        if (!videoEmbeddingIndex.contains(video.getVideoId())) {
+                            videoEmbeddingIndex.add(video.getVideoId(), video.getCategoryId(), vector);
+                        }
+                        return vector;
+                    }));
+        } catch (Exception e) {
+            log.error("Error generating embedding for video {}", video.getVideoId(), e);
+            throw new RuntimeException("Failed to generate embedding", e);
+        }
+    }
+
+    /**
+     * Get or create an embedding for a DIY
+     *
+     * @param target Buffer of the embedding dimension, receives the embedding
+     * @return The target buffer
+     */
+    public float[] getDIYEmbedding(DIYMetadata diy, float[] target) {
+        try {
+            return copyCached(ContentType.DIY, diy.getDiyId(), target,
+                    () -> embeddingCache.getOrLoad(ContentType.DIY, diy.getDiyId(), () -> {
+                        String contentDescription = modelService.generateContentDescription(diy);
+                        return load(ContentType.DIY, diy.getDiyId(), contentDescription);
+                    }));
+        } catch (Exception e) {
+            log.error("Error generating embedding for DIY {}", diy.getDiyId(), e);
+            throw new RuntimeException("Failed to generate embedding", e);
+        }
+    }
+
+    /**
+     * Copy a cached embedding out of its store. Rows are reused once evicted,
+     * so the copy only counts if the row still holds the same content after
+     * it; otherwise the embedding is loaded again.
      */
-    public ContentEmbedding getVideoEmbedding(VideoMetadata video) {
-        String key = "video:" + video.getVideoId();
-        ContentEmbedding embedding = embeddingCache.get(key);
+    private float[] copyCached(ContentType contentType, String contentId, float[] target, IntSupplier rowLoader) {
+        EmbeddingStore store = embeddingCache.getStore(contentType);
+        for (int attempt = 0; attempt < MAX_COPY_ATTEMPTS; attempt++) {
+            int row = rowLoader.getAsInt();
+            store.copyTo(row, target);
+            if (contentId.equals(store.idAt(row))) {
+                return target;
+            }
+        }
+        throw new IllegalStateException("Embedding of " + contentId + " was evicted while being read");
+    }
 
-        if (embedding == null) {
-            try {
-                String contentDescription = modelService.generateContentDescription(video);
-                float[] vector = modelService.generateEmbedding(contentDescription);
+    /**
+     * Read a full-precision embedding without computing it, from the cache or
+     * else from the persisted file. The file is only used if its row was
+     * computed from the current content, so an edit not yet persisted never
+     * yields the old embedding.
+     *
+     * @param target Buffer of the embedding dimension
+     * @return false if neither has the current content
+     */
+    public boolean readEmbedding(ContentType contentType, String contentId, float[] target) {
+        EmbeddingStore store = embeddingCache.getStore(contentType);
+        int row = store.rowOf(contentId);
+        if (row >= 0) {
+            store.copyTo(row, target);
+            if (contentId.equals(store.idAt(row))) {
+                return true; // not evicted and reused while copying
+            }
+        }
+        String contentDescription = describe(contentType, contentId);
+        if (contentDescription == null) {
+            return false; // deleted
+        }
+        EmbeddingFile file = persisted;
+        row = file.find(contentType, contentId,
+                EmbeddingFile.fingerprint(modelService.getModelName(), contentDescription));
+        if (row < 0) {
+            return false;
+        }
+        file.read(row, target);
+        return true;
+    }
 
-                embedding = ContentEmbedding.builder()
-                        .contentId(video.getVideoId())
-                        .contentType("video")
-                        .vector(vector)
-                        .timestamp(System.currentTimeMillis())
-                        .build();
+    /**
+     * @return The description of the content in the catalog, or null if it
+     *         is not there
+     */
+    private String describe(ContentType contentType, String contentId) {
+        if (contentType == ContentType.VIDEO) {
+            return dataProvider.getVideoById(contentId).map(modelService::generateContentDescription).orElse(null);
+        }
+        return dataProvider.getDIYById(contentId).map(modelService::generateContentDescription).orElse(null);
+    }
 
-                embeddingCache.put(key, embedding);
-            } catch (Exception e) {
-                log.error("Error generating embedding for video {}", video.getVideoId(), e);
-                throw new RuntimeException("Failed to generate embedding", e);
+    /**
+     * Read an embedding from the persisted file, or compute it if the file has
+     * none for this content. Computed embeddings are batched with concurrent
+     * requests.
+     */
+    private float[] load(ContentType contentType, String contentId, String contentDescription) {
+        EmbeddingFile file = persisted;
+        int row = file.find(contentType, contentId,
+                EmbeddingFile.fingerprint(modelService.getModelName(), contentDescription));
+        if (row >= 0) {
+            return file.read(row, new float[file.getDimension()]);
+        }
+        return inferenceBatcher.submit(contentDescription).join();
+    }
+
+    /**
+     * Embed one batch with a single model call. A failed batch is returned
+     * without embeddings, so the items are counted as failed.
+     */
+    private List<PendingEmbedding> embedBatch(List<PendingEmbedding> batch) {
+        try {
+            List<String> texts = new ArrayList<>(batch.size());
+            for (PendingEmbedding item : batch) {
+                texts.add(item.contentDescription);
+            }
+            List<float[]> embeddings = modelService.generateEmbeddings(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).embedding = embeddings.get(i);
+            }
+        } catch (Exception e) {
+            log.error("Error generating embeddings for a batch of {} items", batch.size(), e);
+        }
+        return batch;
+    }
+
+    /**
+     * Store an embedded item in the cache, the index and the new file
+     */
+    private void store(PendingEmbedding item, EmbeddingFile.Writer writer) throws IOException {
+        if (item.embedding == null) {
+            progress.failed.incrementAndGet();
+        } else {
+            embeddingCache.put(item.contentType, item.contentId, item.embedding);
+            if (item.contentType == ContentType.VIDEO) {
+                videoEmbeddingIndex.add(item.contentId, item.categoryId, item.embedding);
+            }
+            if (writer != null) {
+                writer.append(item.contentType, item.contentId, item.fingerprint, item.embedding);
             }
+            // The items outlive their batch, the vectors need not
+            item.embedding = null;
+        }
+        progress.complete();
+    }
+
+    private EmbeddingFile.Writer openWriter() {
+        try {
+            return EmbeddingFile.writer(embeddingFilePath(), modelService.getModelName(), dimension());
+        } catch (IOException e) {
+            log.warn("Embeddings will not be persisted: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void closeWriter(EmbeddingFile.Writer writer) {
+        if (writer == null) {
+            return;
         }
+        try {
+            writer.close();
+            persisted = EmbeddingFile.open(embeddingFilePath(), modelService.getModelName(), dimension());
+        } catch (IOException e) {
+            log.warn("Failed to persist embeddings: {}", e.getMessage());
+        }
+    }
 
-        return embedding;
+    private void abortWriter(EmbeddingFile.Writer writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.abort();
+        } catch (IOException e) {
+            log.warn("Failed to discard partial embedding file: {}", e.getMessage());
+        }
+    }
+
+    private Path embeddingFilePath() {
+        return Paths.get(properties.getModel().getCacheDir(), EMBEDDING_FILE);
+    }
+
+    private int dimension() {
+        return properties.getModel().getEmbeddingDimension();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     /**
-     * Get or create an embedding for a DIY
+     * A content item on its way through the precomputation pipeline
      */
-    public ContentEmbedding getDIYEmbedding(DIYMetadata diy) {
-        String key = "diy:" + diy.getDiyId();
-        ContentEmbedding embedding = embeddingCache.get(key);
-
-        if (embedding == null) {
-            try {
-                // TODO: Implement DIY description generation
-                StringBuilder contentDescription = new StringBuilder();
-                contentDescription.append("Title: ").append(diy.getTitle()).append(". ");
-                if (diy.getDescription() != null) {
-                    contentDescription.append("Description: ").append(diy.getDescription()).append(". ");
-                }
-                if (diy.getTags() != null) {
-                    contentDescription.append("Tags: ").append(diy.getTags().replace(",", ", ")).append(". ");
-                }
+    private static final class PendingEmbedding {
+        private final ContentType contentType;
+        private final String contentId;
+        private final String categoryId;
+        private final String contentDescription;
+        private long fingerprint;
+        private int previousRow;
+        private float[] embedding;
 
-                float[] vector = modelService.generateEmbedding(contentDescription.toString());
+        private PendingEmbedding(ContentType contentType, String contentId, String categoryId,
+                String contentDescription) {
+            this.contentType = contentType;
+            this.contentId = contentId;
+            this.categoryId = categoryId;
+            this.contentDescription = contentDescription;
+        }
+    }
 
-                embedding = ContentEmbedding.builder()
-                        .contentId(diy.getDiyId())
-                        .contentType("diy")
-                        .vector(vector)
-                        .timestamp(System.currentTimeMillis())
-                        .build();
+    /**
+     * Counters of the running precomputation, logged every 10%
+     */
+    private static final class Progress {
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger reused = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile boolean running;
+        private volatile int total;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+
+        private void start(int total) {
+            this.total = total;
+            completed.set(0);
+            reused.set(0);
+            failed.set(0);
+            startedAt = System.currentTimeMillis();
+            running = true;
+        }
 
-                embeddingCache.put(key, embedding);
-            } catch (Exception e) {
-                log.error("Error generating embedding for DIY {}", diy.getDiyId(), e);
-                throw new RuntimeException("Failed to generate embedding", e);
+        private void complete() {
+            int done = completed.incrementAndGet();
+            int step = Math.max(1, total / 10);
+            if (done % step == 0 && done < total) {
+                log.info("Embedding precomputation progress: {}/{} ({} reused, {} failed)",
+                        done, total, reused.get(), failed.get());
             }
         }
 
-        return embedding;
+        private void finish() {
+            finishedAt = System.currentTimeMillis();
+            running = false;
+        }
+
+        private long elapsedMillis() {
+            return (running ? System.currentTimeMillis() : finishedAt) - startedAt;
+        }
+
+        private PrecomputeProgress snapshot() {
+            return PrecomputeProgress.builder()
+                    .running(running)
+                    .total(total)
+                    .completed(completed.get())
+                    .reused(reused.get())
+                    .failed(failed.get())
+                    .elapsedMillis(startedAt == 0 ? 0 : elapsedMillis())
+                    .build();
+        }
     }
 }
@@ -0,0 +1,275 @@
+package com.betonamura.recommend.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.embedding.VectorMath;
+import com.betonamura.recommend.data.text.Tokenizer;
+import com.betonamura.recommend.data.text.Tokens;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A local embedding model: TF-IDF weighted word unigrams, word bigrams and
+ * character trigrams, feature-hashed into the embedding dimension.
+ *
+ * Text is split into at most max-length normalized words by the shared
+ * {@link Tokenizer}. Each word contributes itself, the pair with the previous
+ * word, and its character trigrams with word boundary marks. Every feature is
+ * hashed to a bucket and a sign, so the vector needs no vocabulary; signed
+ * hashing keeps collisions from adding up.
+ *
+ * Inverse document frequencies are learned from the catalog by
+ * {@link #fit(List)} and bucketed into a fixed table. Before a fit every
+ * feature weighs 1. The model name carries a digest of the table, so
+ * embeddings persisted under different statistics are not reused. The table
+ * is saved under the model cache directory and restored on startup, so the
+ * model name only changes when the model is explicitly refitted.
+ *
+ * Words and features go into per-thread scratch buffers, so apart from the
+ * returned vector embedding a text allocates nothing. No network or native
+ * code is involved.
+ */
+@Slf4j
+public class HashingModelProvider implements ModelProvider {
+
+    private static final int IDF_BITS = 18;
+    private static final int IDF_MAGIC = 0x46444948; // "HIDF"
+    private static final long UNIGRAM = 0x9e3779b97f4a7c15L;
+    private static final long BIGRAM = 0xc2b2ae3d27d4eb4fL;
+    private static final long TRIGRAM = 0x165667b19e3779f9L;
+    private static final int BOUNDARY = 0x10000; // outside the char range
+
+    private final RecommendationProperties properties;
+    private final Tokenizer tokenizer;
+    private final ThreadLocal<Tokens> tokens = ThreadLocal.withInitial(Tokens::new);
+    private final ThreadLocal<long[]> scratch = ThreadLocal.withInitial(() -> new long[256]);
+    private volatile Weights weights;
+
+    public HashingModelProvider(RecommendationProperties properties) {
+        this.properties = properties;
+        this.tokenizer = new Tokenizer(properties.getModel().getMaxLength());
+        this.weights = new Weights(null, baseName());
+    }
+
+    @Override
+    public void initialize() {
+        log.info("Initializing hashing model provider with dimension: {}", getEmbeddingDimension());
+        Weights restored = load();
+        if (restored != null) {
+            weights = restored;
+            log.info("Restored hashing model fit: {}", restored.modelName);
+        }
+    }
+
+    /**
+     * Learn inverse document frequencies from the documents and save them.
+     * Features found in every document get no weight.
+     */
+    @Override
+    public void fit(List<String> documents) {
+        int[] documentFrequency = new int[1 << IDF_BITS];
+        int[] lastDocument = new int[1 << IDF_BITS];
+        Tokens words = tokens.get();
+        for (int d = 0; d < documents.size(); d++) {
+            tokenizer.split(documents.get(d), words);
+            long[] features = scratchFor(words);
+            int count = features(words, features);
+            for (int i = 0; i < count; i++) {
+                int bucket = idfBucket(features[i]);
+                if (lastDocument[bucket] != d + 1) {
+                    lastDocument[bucket] = d + 1;
+                    documentFrequency[bucket]++;
+                }
+            }
+        }
+
+        float[] idf = new float[1 << IDF_BITS];
+        long digest = 0xcbf29ce484222325L;
+        for (int bucket = 0; bucket < idf.length; bucket++) {
+            idf[bucket] = (float) Math.log((1.0 + documents.size()) / (1.0 + documentFrequency[bucket]));
+            digest = (digest ^ documentFrequency[bucket]) * 0x100000001b3L;
+        }
+        digest = (digest ^ documents.size()) * 0x100000001b3L;
+        weights = new Weights(idf, baseName() + "-" + Long.toHexString(digest));
+        log.info("Fitted hashing model on {} documents: {}", documents.size(), weights.modelName);
+        save(weights);
+    }
+
+    @Override
+    public boolean isFitted() {
+        return weights.idf != null;
+    }
+
+    @Override
+    public float[] generateEmbedding(String text) {
+        int dimension = getEmbeddingDimension();
+        float[] embedding = new float[dimension];
+        float[] idf = weights.idf;
+
+        Tokens words = tokens.get();
+        tokenizer.split(text, words);
+        long[] features = scratchFor(words);
+        int count = features(words, features);
+        for (int i = 0; i < count; i++) {
+            long feature = features[i];
+            float weight = idf != null ? idf[idfBucket(feature)] : 1f;
+            int bucket = (int) Long.remainderUnsigned(feature, dimension);
+            // Independent bit for the sign, so colliding features tend to cancel
+            embedding[bucket] += (feature & (1L << 62)) == 0 ? weight : -weight;
+        }
+        VectorMath.normalize(embedding);
+        return embedding;
+    }
+
+    @Override
+    public String getModelName() {
+        return weights.modelName;
+    }
+
+    @Override
+    public int getEmbeddingDimension() {
+        return properties.getModel().getEmbeddingDimension();
+    }
+
+    private String baseName() {
+        return "hashing-tfidf-" + getEmbeddingDimension();
+    }
+
+    private Path idfPath() {
+        return Paths.get(properties.getModel().getCacheDir(), baseName() + ".idf");
+    }
+
+    /**
+     * Write the table next to the persisted embeddings, replacing the old one
+     * only once it is complete
+     */
+    private void save(Weights fitted) {
+        Path path = idfPath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(IDF_MAGIC);
+                out.writeInt(IDF_BITS);
+                out.writeUTF(fitted.modelName);
+                for (float weight : fitted.idf) {
+                    out.writeFloat(weight);
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Hashing model fit will not be persisted: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The saved table, or null if there is none or it is unreadable
+     */
+    private Weights load() {
+        Path path = idfPath();
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != IDF_MAGIC || in.readInt() != IDF_BITS) {
+                log.warn("Ignoring IDF table {} of another format", path);
+                return null;
+            }
+            String modelName = in.readUTF();
+            float[] idf = new float[1 << IDF_BITS];
+            for (int bucket = 0; bucket < idf.length; bucket++) {
+                idf[bucket] = in.readFloat();
+            }
+            return new Weights(idf, modelName);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable IDF table {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hash the features of the words into a buffer of at least 3 slots per
+     * char.
+     *
+     * @return The number of features
+     */
+    static int features(Tokens words, long[] out) {
+        char[] chars = words.chars();
+        int count = 0;
+        long previousWord = 0;
+        for (int w = 0; w < words.wordCount(); w++) {
+            int start = words.wordStart(w);
+            int end = words.wordEnd(w);
+            long word = 0xcbf29ce484222325L;
+            int first = BOUNDARY;
+            int second = chars[start];
+            word = (word ^ chars[start]) * 0x100000001b3L;
+            for (int i = start + 1; i < end; i++) {
+                out[count++] = trigram(first, second, chars[i]);
+                word = (word ^ chars[i]) * 0x100000001b3L;
+                first = second;
+                second = chars[i];
+            }
+            out[count++] = trigram(first, second, BOUNDARY);
+            out[count++] = mix(word ^ UNIGRAM);
+            if (w > 0) {
+                out[count++] = mix((previousWord * 31 + word) ^ BIGRAM);
+            }
+            previousWord = word;
+        }
+        return count;
+    }
+
+    private long[] scratchFor(Tokens words) {
+        long[] buffer = scratch.get();
+        int chars = words.wordCount() == 0 ? 0 : words.wordEnd(words.wordCount() - 1);
+        int needed = 3 * chars;
+        if (buffer.length < needed) {
+            buffer = new long[Math.max(needed, buffer.length * 2)];
+            scratch.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static long trigram(int a, int b, int c) {
+        return mix(((long) a << 34 | (long) b << 17 | c) ^ TRIGRAM);
+    }
+
+    private static int idfBucket(long feature) {
+        return (int) (feature >>> (64 - IDF_BITS));
+    }
+
+    /**
+     * The splitmix64 finalizer, spreading every input bit over the hash
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Weights {
+        private final float[] idf; // null until fitted
+        private final String modelName;
+
+        private Weights(float[] idf, String modelName) {
+            this.idf = idf;
+            this.modelName = modelName;
+        }
+    }
+}
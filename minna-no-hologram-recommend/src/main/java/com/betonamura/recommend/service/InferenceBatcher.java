@@ -0,0 +1,203 @@
+package com.betonamura.recommend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects concurrent embedding requests into batches, so a burst of cache
+ * misses costs a few model calls instead of one call per text.
+ *
+ * A dispatcher thread waits for the first request, then keeps collecting
+ * until the batch is full or the first request has waited the maximum wait,
+ * and hands the batch to a worker. While every worker is busy the dispatcher
+ * holds the batch and keeps filling it, so batches grow with the load. A
+ * request therefore waits at most the maximum wait plus the time for a worker
+ * to free up before its batch is sent to the model.
+ */
+@Slf4j
+public class InferenceBatcher implements AutoCloseable {
+
+    private final Function<List<String>, List<float[]>> model;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Semaphore idleWorkers;
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    /**
+     * @param model         Embeds a batch of texts, one vector per text in order
+     * @param maxBatchSize  Most texts sent to the model in one call
+     * @param maxWaitMillis Longest a request waits for its batch to fill
+     * @param concurrency   Number of batches run at the same time
+     */
+    public InferenceBatcher(final Function<List<String>, List<float[]>> model, final int maxBatchSize,
+            final long maxWaitMillis, final int concurrency) {
+        if (maxBatchSize <= 0 || maxWaitMillis < 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("Batch size and concurrency must be positive, max wait not negative");
+        }
+        this.model = model;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.idleWorkers = new Semaphore(concurrency);
+        final AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "inference-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, "inference-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queue a text for embedding.
+     *
+     * @param text The text to embed
+     * @return Completes with the embedding, or exceptionally if the model call
+     *         fails or the batcher is closed
+     */
+    public CompletableFuture<float[]> submit(final String text) {
+        final Request request = new Request(text);
+        if (closed) {
+            request.future.completeExceptionally(new RejectedExecutionException("Inference batcher is closed"));
+            return request.future;
+        }
+        queue.add(request);
+        if (closed && queue.remove(request)) {
+            // Closed while queuing: nothing will dispatch it anymore
+            request.future.completeExceptionally(new RejectedExecutionException("Inference batcher is closed"));
+        }
+        return request.future;
+    }
+
+    /**
+     * Number of requests waiting to be batched.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Stop batching. Requests not yet sent to the model fail; batches already
+     * running complete.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failAll(drain(), new RejectedExecutionException("Inference batcher is closed"));
+        workers.shutdown();
+    }
+
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                final long deadline = batch.get(0).enqueuedAt + maxWaitNanos;
+                fill(batch, deadline);
+
+                // Keep filling while every worker is busy
+                while (!idleWorkers.tryAcquire()) {
+                    if (batch.size() < maxBatchSize) {
+                        final Request next = queue.poll(1, TimeUnit.MILLISECONDS);
+                        if (next != null) {
+                            batch.add(next);
+                        }
+                    } else {
+                        idleWorkers.acquire();
+                        break;
+                    }
+                }
+                final List<Request> ready = batch;
+                batch = new ArrayList<>(maxBatchSize);
+                try {
+                    workers.execute(() -> run(ready));
+                } catch (RejectedExecutionException e) {
+                    idleWorkers.release();
+                    failAll(ready, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            failAll(batch, new RejectedExecutionException("Inference batcher is closed"));
+        }
+    }
+
+    private void fill(final List<Request> batch, final long deadline) throws InterruptedException {
+        while (batch.size() < maxBatchSize) {
+            // Take what is already queued without waiting
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            final Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void run(final List<Request> batch) {
+        try {
+            final List<String> texts = new ArrayList<>(batch.size());
+            for (Request request : batch) {
+                texts.add(request.text);
+            }
+            final List<float[]> embeddings = model.apply(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(embeddings.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.error("Error generating embeddings for a batch of {} texts", batch.size(), e);
+            failAll(batch, e);
+        } finally {
+            idleWorkers.release();
+        }
+    }
+
+    private List<Request> drain() {
+        final List<Request> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        return remaining;
+    }
+
+    private static void failAll(final List<Request> requests, final Throwable cause) {
+        for (Request request : requests) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    private static final class Request {
+        private final String text;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<float[]> future = new CompletableFuture<>();
+
+        private Request(final String text) {
+            this.text = text;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.betonamura.recommend.service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.betonamura.recommend.config.RecommendationProperties;
 
 import jakarta.annotation.PostConstruct;
@@ -24,16 +27,18 @@ public class MockModelProvider implements ModelProvider {
 
     @Override
     public float[] generateEmbedding(String text) {
-        int dimension = properties.getModel().getEmbeddingDimension();
-        float[] embedding = new float[dimension];
+        return embed(text, properties.getModel().getEmbeddingDimension());
+    }
 
-        // Generate deterministic pseudo-embeddings based on text hash
-        int hash = text.hashCode();
-        for (int i = 0; i < dimension; i++) {
-            embedding[i] = (float) Math.sin(i * 0.1 + hash * 0.01);
+    @Override
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        // One call per batch, like a real model: settings are read once
+        int dimension = properties.getModel().getEmbeddingDimension();
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            embeddings.add(embed(text, dimension));
         }
-
-        return embedding;
+        return embeddings;
     }
 
     @Override
@@ -45,4 +50,16 @@ public class MockModelProvider implements ModelProvider {
     public int getEmbeddingDimension() {
         return properties.getModel().getEmbeddingDimension();
     }
+
+    private static float[] embed(String text, int dimension) {
+        float[] embedding = new float[dimension];
+
+        // Generate deterministic pseudo-embeddings based on text hash
+        int hash = text.hashCode();
+        for (int i = 0; i < dimension; i++) {
+            embedding[i] = (float) Math.sin(i * 0.1 + hash * 0.01);
+        }
+
+        return embedding;
+    }
 }
@@ -1,5 +1,8 @@
 package com.betonamura.recommend.service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Interface for different model providers (HuggingFace, OpenAI, etc.)
  */
@@ -17,6 +20,42 @@ public interface ModelProvider {
      */
     float[] generateEmbedding(String text);
 
+    /**
+     * Generate text embeddings for a batch of texts in one model call.
+     * Providers should override this: batching amortizes per-call overhead
+     * and lets the model run the texts in parallel.
+     *
+     * @param texts Input texts
+     * @return One embedding vector per text, in the same order
+     */
+    default List<float[]> generateEmbeddings(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            embeddings.add(generateEmbedding(text));
+        }
+        return embeddings;
+    }
+
+    /**
+     * Learn corpus statistics, e.g. term weights, from the catalog. Called
+     * with the description of every content item at first startup and on an
+     * explicit full rebuild; models without such statistics ignore it. A
+     * provider whose embeddings depend on the fit must reflect it in its
+     * model name, and should keep the fit across restarts.
+     *
+     * @param documents Content descriptions
+     */
+    default void fit(List<String> documents) {
+    }
+
+    /**
+     * Whether the corpus statistics are in place, fitted or restored from an
+     * earlier fit. Models without statistics always are.
+     */
+    default boolean isFitted() {
+        return true;
+    }
+
     /**
      * Get the model name
      */
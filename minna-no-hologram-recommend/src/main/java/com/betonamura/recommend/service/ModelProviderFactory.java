@@ -1,10 +1,15 @@
 package com.betonamura.recommend.service;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.embedding.WordVectorTable;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +43,10 @@ public class ModelProviderFactory {
                 return createOpenAIProvider();
             case "tensorflow":
                 return createTensorFlowProvider();
+            case "hashing":
+                return createHashingProvider();
+            case "word-vectors":
+                return createWordVectorProvider();
             case "mock":
             default:
                 return createMockProvider();
@@ -49,7 +58,7 @@ public class ModelProviderFactory {
             log.info("Creating HuggingFace model provider with model: {}", properties.getModel().getName());
 
             // TODO: Create and configure actual provider when implementations are ready
-            return new MockModelProvider(properties);
+            return createHashingProvider();
         } catch (Exception e) {
             log.error("Failed to create HuggingFace provider", e);
             // Fallback to mock provider
@@ -67,7 +76,7 @@ public class ModelProviderFactory {
 
             log.info("Creating OpenAI model provider");
             // TODO: Create and configure actual provider when implementations are ready
-            return new MockModelProvider(properties);
+            return createHashingProvider();
         } catch (Exception e) {
             log.error("Failed to create OpenAI provider", e);
             // Fallback to mock provider
@@ -79,7 +88,7 @@ public class ModelProviderFactory {
         try {
             log.info("Creating TensorFlow model provider");
             // TODO: Create and configure actual provider when implementations are ready
-            return new MockModelProvider(properties);
+            return createHashingProvider();
         } catch (Exception e) {
             log.error("Failed to create TensorFlow provider", e);
             // Fallback to mock provider
@@ -87,6 +96,37 @@ public class ModelProviderFactory {
         }
     }
 
+    private ModelProvider createWordVectorProvider() {
+        try {
+            RecommendationProperties.ModelConfig model = properties.getModel();
+            Path table = Paths.get(model.getCacheDir(), model.getWordVectors());
+            if (!Files.exists(table)) {
+                String baseName = table.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+                Path text = table.resolveSibling(baseName + ".txt");
+                log.info("Converting word vectors from {} to {}", text, table);
+                WordVectorTable.convert(text, table,
+                        WordVectorTable.Encoding.valueOf(model.getWordVectorEncoding().toUpperCase()));
+            }
+
+            WordVectorTable vectors = WordVectorTable.open(table);
+            if (vectors.getDimension() != model.getEmbeddingDimension()) {
+                throw new IllegalStateException("Word vectors have dimension " + vectors.getDimension()
+                        + " but the embedding dimension is " + model.getEmbeddingDimension());
+            }
+            log.info("Creating word-vector model provider from {}", table);
+            return new WordVectorModelProvider(properties, vectors);
+        } catch (Exception e) {
+            log.error("Failed to create word-vector provider", e);
+            // Fallback to the local hashing provider
+            return createHashingProvider();
+        }
+    }
+
+    private ModelProvider createHashingProvider() {
+        log.info("Creating hashing model provider");
+        return new HashingModelProvider(properties);
+    }
+
     private ModelProvider createMockProvider() {
         log.info("Creating mock model provider");
         return new MockModelProvider(properties);
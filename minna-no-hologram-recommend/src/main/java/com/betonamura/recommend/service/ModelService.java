@@ -11,6 +11,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.embedding.VectorMath;
+import com.betonamura.recommend.domain.diy.DIYMetadata;
 import com.betonamura.recommend.domain.video.VideoMetadata;
 
 import jakarta.annotation.PostConstruct;
@@ -53,45 +55,72 @@ public class ModelService {
         }
     }
 
+    /**
+     * Get the name of the model producing the embeddings
+     */
+    public String getModelName() {
+        return modelProvider.getModelName();
+    }
+
     /**
      * Generate embeddings for content text
      *
      * @param text The text to generate embeddings for
-     * @return A vector of float values representing the text embedding
+     * @return A vector of float values representing the text embedding,
+     *         L2-normalized
      */
     public float[] generateEmbedding(String text) {
         log.debug("Generating embedding for text length: {}", text.length());
-        return modelProvider.generateEmbedding(text);
+        return VectorMath.normalize(modelProvider.generateEmbedding(text));
+    }
+
+    /**
+     * Let the model learn corpus statistics from the content descriptions
+     *
+     * @param descriptions The description of every content item
+     */
+    public void fit(List<String> descriptions) {
+        modelProvider.fit(descriptions);
+    }
+
+    /**
+     * Whether the model has its corpus statistics, so it needs no fit
+     */
+    public boolean isFitted() {
+        return modelProvider.isFitted();
+    }
+
+    /**
+     * Generate embeddings for a batch of content texts in one model call
+     *
+     * @param texts The texts to generate embeddings for
+     * @return One L2-normalized embedding vector per text, in the same order
+     */
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        log.debug("Generating embeddings for a batch of {} texts", texts.size());
+        List<float[]> embeddings = modelProvider.generateEmbeddings(texts);
+        if (embeddings.size() != texts.size()) {
+            throw new IllegalStateException("Model returned " + embeddings.size()
+                    + " embeddings for " + texts.size() + " texts");
+        }
+        embeddings.forEach(VectorMath::normalize);
+        return embeddings;
     }
 
     /**
-     * Calculate cosine similarity between two embedding vectors
+     * Calculate cosine similarity between two embeddings generated by this
+     * service. They are normalized, so this is their dot product; use
+     * {@link VectorMath#cosine} for vectors that are not.
      *
      * @param embedding1 First embedding vector
      * @param embedding2 Second embedding vector
-     * @return Similarity score between 0 and 1
+     * @return Similarity score between -1 and 1
      */
     public double calculateSimilarity(float[] embedding1, float[] embedding2) {
         if (embedding1.length != embedding2.length) {
             throw new IllegalArgumentException("Embedding dimensions do not match");
         }
-
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < embedding1.length; i++) {
-            dotProduct += embedding1[i] * embedding2[i];
-            norm1 += embedding1[i] * embedding1[i];
-            norm2 += embedding2[i] * embedding2[i];
-        }
-
-        // Prevent division by zero
-        if (norm1 <= 0.0 || norm2 <= 0.0) {
-            return 0.0;
-        }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return VectorMath.dot(embedding1, embedding2);
     }
 
     /**
@@ -115,6 +144,27 @@ public class ModelService {
         return sb.toString();
     }
 
+    /**
+     * Generate content description for embedding generation
+     *
+     * @param diyMetadata The DIY metadata
+     * @return A string representation suitable for embedding
+     */
+    public String generateContentDescription(DIYMetadata diyMetadata) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Title: ").append(diyMetadata.getTitle()).append(". ");
+
+        if (diyMetadata.getDescription() != null) {
+            sb.append("Description: ").append(diyMetadata.getDescription()).append(". ");
+        }
+
+        if (diyMetadata.getTags() != null) {
+            sb.append("Tags: ").append(diyMetadata.getTags().replace(",", ", ")).append(". ");
+        }
+
+        return sb.toString();
+    }
+
     /**
      * Generate a user profile description based on watch history
      * 
@@ -0,0 +1,71 @@
+package com.betonamura.recommend.service;
+
+import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.embedding.VectorMath;
+import com.betonamura.recommend.data.embedding.WordVectorTable;
+import com.betonamura.recommend.data.text.Tokenizer;
+import com.betonamura.recommend.data.text.Tokens;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A model embedding text as the average of static word vectors, e.g. GloVe
+ * or fastText, read from a memory-mapped {@link WordVectorTable}.
+ *
+ * Text is split into at most max-length normalized words by the shared
+ * {@link Tokenizer}; words not in the vocabulary are skipped. Words are
+ * looked up straight from a per-thread buffer, so apart from the returned
+ * vector embedding a text allocates nothing.
+ */
+@Slf4j
+public class WordVectorModelProvider implements ModelProvider {
+
+    private final WordVectorTable table;
+    private final Tokenizer tokenizer;
+    private final ThreadLocal<Tokens> tokens = ThreadLocal.withInitial(Tokens::new);
+
+    public WordVectorModelProvider(RecommendationProperties properties, WordVectorTable table) {
+        this.table = table;
+        this.tokenizer = new Tokenizer(properties.getModel().getMaxLength());
+    }
+
+    @Override
+    public void initialize() {
+        log.info("Initializing word-vector model provider with {} words of dimension {}",
+                table.getVocabularySize(), table.getDimension());
+    }
+
+    @Override
+    public float[] generateEmbedding(String text) {
+        float[] embedding = new float[table.getDimension()];
+        Tokens words = tokens.get();
+        tokenizer.split(text, words);
+        int pooled = 0;
+        for (int w = 0; w < words.wordCount(); w++) {
+            int row = table.find(words.chars(), words.wordStart(w), words.wordEnd(w) - words.wordStart(w));
+            if (row >= 0) {
+                table.addTo(row, embedding);
+                pooled++;
+            }
+        }
+
+        if (pooled > 0) {
+            float scale = 1f / pooled;
+            for (int i = 0; i < embedding.length; i++) {
+                embedding[i] *= scale;
+            }
+        }
+        // Similarity is cosine, so the average is normalized like any embedding
+        return VectorMath.normalize(embedding);
+    }
+
+    @Override
+    public String getModelName() {
+        return "word-vectors-" + Long.toHexString(table.getChecksum());
+    }
+
+    @Override
+    public int getEmbeddingDimension() {
+        return table.getDimension();
+    }
+}
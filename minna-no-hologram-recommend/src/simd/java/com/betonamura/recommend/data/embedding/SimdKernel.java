@@ -0,0 +1,83 @@
+package com.betonamura.recommend.data.embedding;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel on the JDK Vector API, using the widest SIMD registers of the CPU.
+ * Only loaded when the jdk.incubator.vector module is present at runtime.
+ */
+final class SimdKernel implements VectorKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(final float[] a, final int aOffset, final float[] b, final int bOffset, final int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (final int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            final FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            final FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            sum = va.fma(vb, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    /**
+     * Scores four rows per pass, so each slice of the query is loaded once for
+     * four rows and the four sums pipeline independently.
+     */
+    @Override
+    public void dotRows(final float[] query, final float[] matrix, final int firstRow, final int rows,
+            final float[] scores) {
+        final int dimension = query.length;
+        final int bound = SPECIES.loopBound(dimension);
+        int r = 0;
+        for (; r + 4 <= rows; r += 4) {
+            final int o0 = (firstRow + r) * dimension;
+            final int o1 = o0 + dimension;
+            final int o2 = o1 + dimension;
+            final int o3 = o2 + dimension;
+            FloatVector s0 = FloatVector.zero(SPECIES);
+            FloatVector s1 = FloatVector.zero(SPECIES);
+            FloatVector s2 = FloatVector.zero(SPECIES);
+            FloatVector s3 = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < bound; i += SPECIES.length()) {
+                final FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+                s0 = q.fma(FloatVector.fromArray(SPECIES, matrix, o0 + i), s0);
+                s1 = q.fma(FloatVector.fromArray(SPECIES, matrix, o1 + i), s1);
+                s2 = q.fma(FloatVector.fromArray(SPECIES, matrix, o2 + i), s2);
+                s3 = q.fma(FloatVector.fromArray(SPECIES, matrix, o3 + i), s3);
+            }
+            float d0 = s0.reduceLanes(VectorOperators.ADD);
+            float d1 = s1.reduceLanes(VectorOperators.ADD);
+            float d2 = s2.reduceLanes(VectorOperators.ADD);
+            float d3 = s3.reduceLanes(VectorOperators.ADD);
+            for (; i < dimension; i++) {
+                final float q = query[i];
+                d0 += q * matrix[o0 + i];
+                d1 += q * matrix[o1 + i];
+                d2 += q * matrix[o2 + i];
+                d3 += q * matrix[o3 + i];
+            }
+            scores[r] = d0;
+            scores[r + 1] = d1;
+            scores[r + 2] = d2;
+            scores[r + 3] = d3;
+        }
+        for (; r < rows; r++) {
+            scores[r] = dot(query, 0, matrix, (firstRow + r) * dimension, dimension);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
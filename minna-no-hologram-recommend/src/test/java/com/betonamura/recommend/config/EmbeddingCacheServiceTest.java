@@ -0,0 +1,76 @@
+package com.betonamura.recommend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.betonamura.recommend.domain.common.ContentType;
+
+class EmbeddingCacheServiceTest {
+
+    private static EmbeddingCacheService cache() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getModel().setEmbeddingDimension(2);
+        return new EmbeddingCacheService(properties);
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        EmbeddingCacheService cache = cache();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> rows = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                rows.add(callers.submit(() -> cache.getOrLoad(ContentType.VIDEO, "v1", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new float[] { 1, 0 };
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            int first = rows.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Integer> row : rows) {
+                assertEquals(first, row.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(first, cache.getRow(ContentType.VIDEO, "v1"));
+            assertEquals(1, loads.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedLoadIsNotRetriedWithinTtl() {
+        EmbeddingCacheService cache = cache();
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> cache.getOrLoad(ContentType.DIY, "d1", () -> {
+                loads.incrementAndGet();
+                throw new IllegalStateException("model down");
+            }));
+        }
+        assertEquals(1, loads.get());
+
+        // Other items are unaffected
+        assertEquals(cache.getOrLoad(ContentType.DIY, "d2", () -> new float[] { 0, 1 }),
+                cache.getRow(ContentType.DIY, "d2"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.betonamura.recommend.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AppendLogTest {
+
+    @Test
+    void testSnapshotIsFixedAtCallTime() {
+        AppendLog<Integer> log = new AppendLog<>();
+        for (int i = 0; i < 100; i++) {
+            log.append(i);
+        }
+        List<Integer> snapshot = log.snapshot();
+        log.append(100);
+
+        assertEquals(100, snapshot.size());
+        assertEquals(99, snapshot.get(99));
+        assertEquals(101, log.size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(0));
+    }
+
+    @Test
+    void testConcurrentAppendsAreAllKept() throws Exception {
+        AppendLog<Integer> log = new AppendLog<>();
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * perThread;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    log.append(offset + i);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Set<Integer> seen = new HashSet<>(log.snapshot());
+        assertEquals(threads * perThread, log.size());
+        assertEquals(threads * perThread, seen.size());
+    }
+}
@@ -0,0 +1,62 @@
+package com.betonamura.recommend.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TrendingCounterTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void testRecentEventsOutweighOldOnes() {
+        TrendingCounter counter = new TrendingCounter(10, Duration.ofDays(1), START);
+
+        // Three watches ten days ago against two watches today
+        for (int i = 0; i < 3; i++) {
+            counter.record("old", START);
+        }
+        counter.record("new", START.plus(Duration.ofDays(10)));
+        counter.record("new", START.plus(Duration.ofDays(10)));
+
+        assertEquals(List.of("new", "old"), counter.top(10));
+    }
+
+    @Test
+    void testKeepsOnlyTopK() {
+        TrendingCounter counter = new TrendingCounter(2, Duration.ofDays(1), START);
+        counter.record("a", START);
+        counter.record("b", START);
+        counter.record("b", START);
+        counter.record("c", START);
+        counter.record("c", START);
+        counter.record("c", START);
+
+        assertEquals(List.of("c", "b"), counter.top(5));
+        assertEquals(List.of("c"), counter.top(1));
+    }
+
+    @Test
+    void testRankingFollowsLaterEvents() {
+        TrendingCounter counter = new TrendingCounter(3, Duration.ofDays(1), START);
+        for (String id : List.of("a", "b", "c", "d")) {
+            counter.record(id, START);
+        }
+        assertEquals(3, counter.top(5).size());
+
+        // Items already in the top-K move up as their scores grow
+        for (int i = 0; i < 3; i++) {
+            counter.record("e", START.plus(Duration.ofHours(1)));
+        }
+        counter.record("f", START.plus(Duration.ofHours(2)));
+        counter.record("f", START.plus(Duration.ofHours(2)));
+        assertEquals(List.of("e", "f"), counter.top(2));
+        counter.record("f", START.plus(Duration.ofHours(3)));
+        counter.record("f", START.plus(Duration.ofHours(3)));
+        assertEquals(List.of("f", "e"), counter.top(2));
+    }
+}
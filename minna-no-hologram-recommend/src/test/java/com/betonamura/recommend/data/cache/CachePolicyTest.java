@@ -0,0 +1,80 @@
+package com.betonamura.recommend.data.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class CachePolicyTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Test
+    void testFrequentKeysSurviveAScan() {
+        CachePolicy<String> policy = new CachePolicy<>(100, HOUR, 0);
+        Set<String> cached = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            write(policy, cached, "hot" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                policy.recordHit("hot" + i);
+            }
+        }
+
+        // A long run of one-off keys must not flush the hot ones
+        for (int i = 0; i < 1000; i++) {
+            write(policy, cached, "scan" + i);
+        }
+
+        assertEquals(100, policy.size());
+        assertEquals(100, cached.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(cached.contains("hot" + i), "hot" + i + " was evicted");
+        }
+    }
+
+    @Test
+    void testNewestKeyIsNeverEvicted() {
+        CachePolicy<String> policy = new CachePolicy<>(1, HOUR, 0);
+        Set<String> cached = new HashSet<>();
+        write(policy, cached, "a");
+        write(policy, cached, "b");
+        assertEquals(Set.of("b"), cached);
+    }
+
+    @Test
+    void testEntriesExpireOnTheTimerWheel() {
+        CachePolicy<String> policy = new CachePolicy<>(100, HOUR, 0);
+        policy.recordWrite("early", 0, key -> {
+        });
+        policy.recordWrite("late", 30 * 60 * 1000L, key -> {
+        });
+        policy.recordWrite("rewritten", 0, key -> {
+        });
+        policy.recordWrite("rewritten", 50 * 60 * 1000L, key -> {
+        });
+
+        List<String> expired = new ArrayList<>();
+        policy.expire(HOUR + 10_000, expired::add);
+        assertEquals(List.of("early"), expired);
+
+        policy.expire(90 * 60 * 1000L + 10_000, expired::add);
+        assertEquals(List.of("early", "late"), expired);
+
+        assertFalse(policy.remove("early"));
+        assertTrue(policy.remove("rewritten"));
+        assertEquals(0, policy.size());
+    }
+
+    private static void write(CachePolicy<String> policy, Set<String> cached, String key) {
+        cached.add(key);
+        policy.recordWrite(key, 0, cached::remove);
+    }
+}
@@ -0,0 +1,60 @@
+package com.betonamura.recommend.data.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.betonamura.recommend.domain.common.ContentType;
+
+class EmbeddingFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTrip() throws Exception {
+        Path path = tempDir.resolve("embeddings.bin");
+        long hash = EmbeddingFile.fingerprint("mock-model", "Title: Hologram basics.");
+        try (EmbeddingFile.Writer writer = EmbeddingFile.writer(path, "mock-model", 3)) {
+            writer.append(ContentType.VIDEO, "1", hash, new float[] { 1, 2, 3 });
+            writer.append(ContentType.DIY, "1", hash, new float[] { 4, 5, 6 });
+        }
+
+        EmbeddingFile file = EmbeddingFile.open(path, "mock-model", 3);
+        assertEquals(2, file.size());
+        int row = file.find(ContentType.DIY, "1", hash);
+        assertArrayEquals(new float[] { 4, 5, 6 }, file.read(row, new float[3]));
+
+        // Changed content or unknown IDs are not reused
+        assertEquals(-1, file.find(ContentType.VIDEO, "1", hash + 1));
+        assertEquals(-1, file.find(ContentType.VIDEO, "2", hash));
+        assertEquals(Set.of("1"), file.ids(ContentType.VIDEO));
+    }
+
+    @Test
+    void testFingerprintCoversModelAndText() {
+        long fingerprint = EmbeddingFile.fingerprint("model-a", "text");
+        assertEquals(fingerprint, EmbeddingFile.fingerprint("model-a", "text"));
+        assertNotEquals(fingerprint, EmbeddingFile.fingerprint("model-b", "text"));
+        assertNotEquals(fingerprint, EmbeddingFile.fingerprint("model-a", "text!"));
+        assertNotEquals(EmbeddingFile.fingerprint("ab", "c"), EmbeddingFile.fingerprint("a", "bc"));
+    }
+
+    @Test
+    void testOtherModelOrDimensionIsIgnored() throws Exception {
+        Path path = tempDir.resolve("embeddings.bin");
+        try (EmbeddingFile.Writer writer = EmbeddingFile.writer(path, "mock-model", 2)) {
+            writer.append(ContentType.VIDEO, "1", 7L, new float[] { 1, 2 });
+        }
+
+        assertEquals(0, EmbeddingFile.open(path, "other-model", 2).size());
+        assertEquals(0, EmbeddingFile.open(path, "mock-model", 3).size());
+        assertEquals(0, EmbeddingFile.open(tempDir.resolve("missing.bin"), "mock-model", 2).size());
+    }
+}
@@ -0,0 +1,45 @@
+package com.betonamura.recommend.data.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class EmbeddingStoreTest {
+
+    @Test
+    void testRowsSurviveGrowthAndAreReused() {
+        EmbeddingStore store = new EmbeddingStore(3, 1);
+        for (int i = 0; i < 100; i++) {
+            store.put("c" + i, new float[] { i, 0, 0 }, i);
+        }
+        assertEquals(100, store.size());
+        int row = store.rowOf("c42");
+        // Stored normalized
+        assertArrayEquals(new float[] { 1, 0, 0 }, store.copyTo(row, new float[3]));
+        assertEquals(42, store.timestampAt(row));
+
+        store.remove("c42");
+        assertEquals(-1, store.rowOf("c42"));
+        assertNull(store.idAt(row));
+        assertEquals(row, store.put("new", new float[] { 1, 0, 0 }, 0));
+        assertEquals(100, store.rowLimit());
+    }
+
+    @Test
+    void testSimilarity() {
+        EmbeddingStore store = new EmbeddingStore(2, 4);
+        int a = store.put("a", new float[] { 3, 4 }, 0);
+        int b = store.put("b", new float[] { 6, 8 }, 0);
+        int c = store.put("c", new float[] { -4, 3 }, 0);
+
+        assertEquals(1.0, store.cosine(a, b), 1e-6);
+        assertEquals(0.0, store.cosine(a, c), 1e-6);
+        assertEquals(0.6, store.dot(a, new float[] { 1, 0 }), 1e-6);
+
+        float[] scores = new float[3];
+        store.dotRows(new float[] { 0, 1 }, 0, 3, scores);
+        assertArrayEquals(new float[] { 0.8f, 0.8f, 0.6f }, scores, 1e-6f);
+    }
+}
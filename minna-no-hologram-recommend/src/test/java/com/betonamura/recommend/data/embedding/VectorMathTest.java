@@ -0,0 +1,61 @@
+package com.betonamura.recommend.data.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class VectorMathTest {
+
+    @Test
+    void testKernelMatchesScalarLoop() {
+        Random random = new Random(3);
+        ScalarKernel scalar = new ScalarKernel();
+        // Odd lengths exercise the tail after the SIMD lanes
+        for (int length : new int[] { 1, 7, 31, 384, 385 }) {
+            float[] a = randomVector(random, length);
+            float[] b = randomVector(random, length);
+            double expected = 0;
+            for (int i = 0; i < length; i++) {
+                expected += a[i] * b[i];
+            }
+            assertEquals(expected, VectorMath.dot(a, b), 1e-3);
+            assertEquals(expected, scalar.dot(a, 0, b, 0, length), 1e-3);
+        }
+    }
+
+    @Test
+    void testDotRowsScoresEveryRow() {
+        Random random = new Random(5);
+        // Row counts not a multiple of four exercise the single-row tail
+        for (int dimension : new int[] { 19, 64 }) {
+            float[] matrix = randomVector(random, dimension * 12);
+            float[] query = randomVector(random, dimension);
+            float[] scores = new float[7];
+
+            VectorMath.dotRows(query, matrix, 3, 7, scores);
+            for (int r = 0; r < 7; r++) {
+                assertEquals(VectorMath.dot(query, matrix, (3 + r) * dimension), scores[r], 1e-4);
+            }
+        }
+    }
+
+    @Test
+    void testNormalizedVectorsGiveCosine() {
+        float[] a = { 3, 4 };
+        float[] b = { 4, 3 };
+        double cosine = VectorMath.cosine(a, b);
+        assertEquals(0.96, cosine, 1e-6);
+        assertEquals(cosine, VectorMath.dot(VectorMath.normalize(a), VectorMath.normalize(b)), 1e-6);
+        assertEquals(0.0, VectorMath.cosine(new float[2], b));
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,90 @@
+package com.betonamura.recommend.data.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WordVectorTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testHalfFloatConversion() {
+        for (float value : new float[] { 0f, 1f, -2.5f, 0.1f, 65504f, 1e-6f, -1e-7f }) {
+            float decoded = WordVectorTable.halfToFloat(WordVectorTable.floatToHalf(value));
+            assertEquals(value, decoded, Math.abs(value) * 1e-3 + 6e-8);
+        }
+        assertEquals(Float.POSITIVE_INFINITY, WordVectorTable.halfToFloat(WordVectorTable.floatToHalf(1e6f)));
+        // Rounds to nearest, ties to even
+        assertEquals(1f, WordVectorTable.halfToFloat(WordVectorTable.floatToHalf(1f + 0x1p-11f)));
+    }
+
+    @Test
+    void testLookupAndRowsPerEncoding() throws Exception {
+        for (WordVectorTable.Encoding encoding : WordVectorTable.Encoding.values()) {
+            Path path = tempDir.resolve(encoding + ".bin");
+            try (WordVectorTable.Writer writer = WordVectorTable.writer(path, 3, encoding)) {
+                for (int i = 0; i < 100; i++) {
+                    writer.add("word" + i, new float[] { i, -i / 2f, 1 });
+                }
+                writer.add("word7", new float[] { 0, 0, 0 }); // duplicate, ignored
+            }
+
+            WordVectorTable table = WordVectorTable.open(path);
+            assertEquals(100, table.getVocabularySize());
+            assertEquals(encoding, table.getEncoding());
+            int row = table.find("word42");
+            assertEquals("word42", table.wordAt(row));
+            assertEquals(-1, table.find("word100"));
+            assertEquals(row, table.find("xword42x".toCharArray(), 1, 6));
+
+            float[] sum = new float[3];
+            table.addTo(table.find("word7"), sum);
+            table.addTo(table.find("word7"), sum);
+            assertArrayEquals(new float[] { 14, -7, 2 }, sum, 0.1f);
+        }
+    }
+
+    @Test
+    void testWordsAreNormalizedLikeTokens() throws Exception {
+        Path path = tempDir.resolve("normalized.bin");
+        try (WordVectorTable.Writer writer = WordVectorTable.writer(path, 2, WordVectorTable.Encoding.FP16)) {
+            writer.add("Hologram", new float[] { 1, 0 });
+            writer.add("hologram", new float[] { 0, 1 }); // same word once normalized, ignored
+            writer.add("ＬＡＳＥＲ", new float[] { 0, 1 }); // fullwidth
+        }
+
+        WordVectorTable table = WordVectorTable.open(path);
+        assertEquals(2, table.getVocabularySize());
+        assertEquals(-1, table.find("Hologram"));
+        float[] hologram = new float[2];
+        table.addTo(table.find("hologram"), hologram);
+        assertArrayEquals(new float[] { 1, 0 }, hologram);
+        assertEquals("laser", table.wordAt(table.find("laser")));
+    }
+
+    @Test
+    void testConvertFromText() throws Exception {
+        Path text = tempDir.resolve("vectors.txt");
+        Files.writeString(text, "2 3\nholo 0.5 0.25 -1\ngram 1 0 0\n");
+        Path path = tempDir.resolve("vectors.bin");
+        WordVectorTable.convert(text, path, WordVectorTable.Encoding.FP16);
+
+        WordVectorTable table = WordVectorTable.open(path);
+        assertEquals(3, table.getDimension());
+        float[] holo = new float[3];
+        table.addTo(table.find("holo"), holo);
+        assertArrayEquals(new float[] { 0.5f, 0.25f, -1 }, holo);
+
+        Files.writeString(text, "holo 0.5 0.25 -1\ngram 1 0 1\n");
+        WordVectorTable.convert(text, path, WordVectorTable.Encoding.FP16);
+        assertNotEquals(table.getChecksum(), WordVectorTable.open(path).getChecksum());
+    }
+}
@@ -0,0 +1,69 @@
+package com.betonamura.recommend.data.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static com.betonamura.recommend.data.index.IndexFixtures.bruteForce;
+import static com.betonamura.recommend.data.index.IndexFixtures.number;
+import static com.betonamura.recommend.data.index.IndexFixtures.randomVector;
+import static com.betonamura.recommend.data.index.IndexFixtures.randomVectors;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class ExactIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int BLOCK_ROWS = 64;
+
+    @Test
+    void testMatchesBruteForceAroundBlockBoundaries() {
+        Random random = new Random(7);
+        // One row short of a block, exactly one, one over, and many blocks
+        for (int count : new int[] { BLOCK_ROWS - 1, BLOCK_ROWS, BLOCK_ROWS + 1, 2 * BLOCK_ROWS + 1, 5000 }) {
+            Map<String, float[]> vectors = randomVectors(random, count, DIMENSION);
+            ExactIndex index = new ExactIndex(DIMENSION, BLOCK_ROWS, 4);
+            vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+            for (int q = 0; q < 5; q++) {
+                float[] query = randomVector(random, DIMENSION);
+                // k above the block size, so the merged heaps must hold more than one block
+                for (int k : new int[] { 10, BLOCK_ROWS + 36 }) {
+                    assertEquals(bruteForce(vectors, query, k, id -> true), ids(index.search(query, k, null, null)),
+                            count + " rows, k " + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMasksAcrossBlocksAndFreedRows() {
+        Random random = new Random(11);
+        Map<String, float[]> vectors = randomVectors(random, 300, DIMENSION);
+        ExactIndex index = new ExactIndex(DIMENSION, BLOCK_ROWS, 2);
+        // Music only on the rows either side of each block boundary
+        Set<Integer> boundaries = Set.of(0, 63, 64, 127, 128, 191, 192, 255, 256, 299);
+        vectors.forEach((id, vector) -> index.add(id, boundaries.contains(number(id)) ? "music" : "sports",
+                vector));
+
+        // v64 leaves a hole in its block, v63 is excluded
+        index.remove("v64");
+        List<String> music = ids(index.search(vectors.get("v128"), 20, "music", Set.of("v63")));
+        assertEquals(bruteForce(vectors, vectors.get("v128"), 20,
+                id -> boundaries.contains(number(id)) && !id.equals("v64") && !id.equals("v63")), music);
+
+        // The freed row is reused, under the new item's category only
+        float[] added = randomVector(random, DIMENSION);
+        index.add("x", "sports", added);
+        assertEquals(9, index.search(added, 20, "music", null).size());
+        assertEquals("x", index.search(added, 1, "sports", null).get(0).getId());
+    }
+
+    private static List<String> ids(List<Neighbour> neighbours) {
+        return neighbours.stream().map(Neighbour::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.betonamura.recommend.data.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static com.betonamura.recommend.data.index.IndexFixtures.number;
+import static com.betonamura.recommend.data.index.IndexFixtures.randomVector;
+import static com.betonamura.recommend.data.index.IndexFixtures.randomVectors;
+import static com.betonamura.recommend.data.index.IndexFixtures.recall;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void testRecallAgainstBruteForce() {
+        Random random = new Random(7);
+        Map<String, float[]> vectors = randomVectors(random, 2000, DIMENSION);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 200, 64);
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+        double recall = recall(index, vectors, queries(random, 50), 10);
+        assertTrue(recall >= 0.9, "recall was " + recall);
+    }
+
+    @Test
+    void testReAddTombstonesTheOldNode() {
+        Random random = new Random(11);
+        Map<String, float[]> vectors = randomVectors(random, 200, DIMENSION);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 100, 50);
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+        float[] moved = randomVector(random, DIMENSION);
+        index.add("v5", null, moved);
+
+        // The old node stays in the graph until a rebuild, but is never returned
+        assertEquals(201, index.nodeCount());
+        assertEquals(200, index.size());
+        assertEquals("v5", index.search(moved, 1, null, null).get(0).getId());
+        assertNotEquals("v5", index.search(vectors.get("v5"), 1, null, null).get(0).getId());
+    }
+
+    @Test
+    void testOptimizeRebuildsOnceAFifthIsDeleted() {
+        Random random = new Random(13);
+        Map<String, float[]> vectors = randomVectors(random, 500, DIMENSION);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 100, 50);
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+        // 18% deleted: not worth a rebuild yet
+        for (int i = 0; i < 90; i++) {
+            index.remove("v" + i);
+        }
+        index.optimize();
+        assertEquals(500, index.nodeCount());
+
+        // 22% deleted, including the re-added nodes' old copies
+        for (int i = 90; i < 100; i++) {
+            index.remove("v" + i);
+        }
+        for (int i = 100; i < 110; i++) {
+            index.add("v" + i, null, vectors.get("v" + i));
+        }
+        assertEquals(510, index.nodeCount());
+        index.optimize();
+
+        assertEquals(400, index.nodeCount());
+        assertEquals(400, index.size());
+        assertFalse(index.contains("v0"));
+
+        // The rebuilt graph still answers like the old one
+        Map<String, float[]> live = new LinkedHashMap<>(vectors);
+        live.keySet().removeIf(id -> number(id) < 100);
+        double recall = recall(index, live, queries(random, 30), 10);
+        assertTrue(recall >= 0.9, "recall after rebuild was " + recall);
+    }
+
+    private static List<float[]> queries(Random random, int count) {
+        List<float[]> queries = new ArrayList<>();
+        for (int q = 0; q < count; q++) {
+            queries.add(randomVector(random, DIMENSION));
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,105 @@
+package com.betonamura.recommend.data.index;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.betonamura.recommend.data.embedding.VectorMath;
+
+/**
+ * Vectors, sources and exact answers shared by the index tests. Vectors are
+ * keyed "v0", "v1", ... in insertion order.
+ */
+final class IndexFixtures {
+
+    private IndexFixtures() {
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    static Map<String, float[]> randomVectors(Random random, int count, int dimension) {
+        Map<String, float[]> vectors = new LinkedHashMap<>();
+        for (int v = 0; v < count; v++) {
+            vectors.put("v" + v, randomVector(random, dimension));
+        }
+        return vectors;
+    }
+
+    /**
+     * Vectors scattered around a few topics, as content embeddings are.
+     */
+    static Map<String, float[]> clusteredVectors(Random random, int count, int dimension) {
+        float[][] topics = new float[20][];
+        for (int t = 0; t < topics.length; t++) {
+            topics[t] = randomVector(random, dimension);
+        }
+        Map<String, float[]> vectors = new LinkedHashMap<>();
+        for (int v = 0; v < count; v++) {
+            float[] topic = topics[random.nextInt(topics.length)];
+            float[] vector = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = topic[i] + (float) (random.nextGaussian() * 0.5);
+            }
+            vectors.put("v" + v, vector);
+        }
+        return vectors;
+    }
+
+    /**
+     * The number in an ID of the fixture vectors.
+     */
+    static int number(String id) {
+        return Integer.parseInt(id.substring(1));
+    }
+
+    /**
+     * The exact top k of the vectors passing the filter, most similar first.
+     */
+    static List<String> bruteForce(Map<String, float[]> vectors, float[] query, int k, Predicate<String> filter) {
+        return vectors.keySet().stream()
+                .filter(filter)
+                .sorted(Comparator.comparingDouble(id -> -VectorMath.cosine(vectors.get(id), query)))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    static Set<String> bruteForce(Map<String, float[]> vectors, float[] query, int k) {
+        return Set.copyOf(bruteForce(vectors, query, k, id -> true));
+    }
+
+    /**
+     * Share of the exact top k found by the index, over the queries.
+     */
+    static double recall(VectorIndex index, Map<String, float[]> vectors, List<float[]> queries, int k) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<String> expected = bruteForce(vectors, query, k);
+            found += (int) index.search(query, k, null, null).stream()
+                    .filter(n -> expected.contains(n.getId()))
+                    .count();
+        }
+        return found / (queries.size() * (double) k);
+    }
+
+    static VectorSource source(Map<String, float[]> vectors) {
+        return (id, target) -> {
+            float[] vector = vectors.get(id);
+            if (vector == null) {
+                return false;
+            }
+            System.arraycopy(vector, 0, target, 0, vector.length);
+            return true;
+        };
+    }
+}
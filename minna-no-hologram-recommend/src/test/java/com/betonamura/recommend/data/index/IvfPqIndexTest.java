@@ -0,0 +1,143 @@
+package com.betonamura.recommend.data.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static com.betonamura.recommend.data.index.IndexFixtures.bruteForce;
+import static com.betonamura.recommend.data.index.IndexFixtures.clusteredVectors;
+import static com.betonamura.recommend.data.index.IndexFixtures.number;
+import static com.betonamura.recommend.data.index.IndexFixtures.source;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class IvfPqIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void testRecallAgainstBruteForce() {
+        Random random = new Random(7);
+        Map<String, float[]> vectors = clusteredVectors(random, 3000, DIMENSION);
+        IvfPqIndex index = new IvfPqIndex(DIMENSION, 32, 8, 8, 100_000, 1, null);
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+        index.optimize();
+        assertTrue(index.isTrained());
+        assertEquals(8 + 28, index.bytesPerItem());
+
+        double approximate = recall(index, vectors, new Random(5));
+        assertTrue(approximate >= 0.5, "recall was " + approximate);
+
+        // Exact re-scoring of a wider candidate set
+        IvfPqIndex rescored = new IvfPqIndex(DIMENSION, 32, 8, 8, 100_000, 8, source(vectors));
+        vectors.forEach((id, vector) -> rescored.add(id, null, vector));
+        rescored.optimize();
+        double recall = recall(rescored, vectors, new Random(5));
+        assertTrue(recall >= 0.9, "recall was " + recall);
+    }
+
+    @Test
+    void testMoreProbesFindMoreNeighbours() {
+        Random random = new Random(13);
+        Map<String, float[]> vectors = clusteredVectors(random, 3000, DIMENSION);
+        List<float[]> sample = new ArrayList<>(vectors.values());
+
+        // Same sample and seed, so every index fits the same lists
+        double single = 0;
+        double previous = 0;
+        for (int nprobe : new int[] { 1, 4, 32 }) {
+            IvfPqIndex index = new IvfPqIndex(DIMENSION, 32, 8, nprobe, 100_000, 8, source(vectors));
+            index.train(sample);
+            vectors.forEach((id, vector) -> index.add(id, null, vector));
+            double recall = recall(index, vectors, new Random(5));
+            assertTrue(recall >= previous, "nprobe " + nprobe + " recall was " + recall);
+            single = nprobe == 1 ? recall : single;
+            previous = recall;
+        }
+        // Every list probed: only the codes limit the candidates
+        assertTrue(previous >= 0.95 && previous > single,
+                "recall went from " + single + " with one list to " + previous + " with all");
+    }
+
+    @Test
+    void testExactUntilTrained() {
+        Random random = new Random(3);
+        Map<String, float[]> vectors = clusteredVectors(random, 1000, DIMENSION);
+        IvfPqIndex index = new IvfPqIndex(DIMENSION, 16, 8, 1, 256, 1, null);
+
+        // Too few to train on
+        vectors.entrySet().stream().limit(200).forEach(e -> index.add(e.getKey(), null, e.getValue()));
+        index.optimize();
+        assertFalse(index.isTrained());
+
+        // Far past the training sample size, inserts still never train
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+        assertFalse(index.isTrained());
+        assertEquals(256, index.trainingSampleSize());
+        for (String id : List.of("v0", "v500", "v999")) {
+            float[] query = vectors.get(id);
+            assertEquals(bruteForce(vectors, query, 10, other -> true), ids(index.search(query, 10, null, null)));
+        }
+
+        index.optimize();
+        assertTrue(index.isTrained());
+        assertEquals(0, index.trainingSampleSize());
+        assertEquals(1000, index.size());
+        assertEquals(10, index.searchSimilar("v999", 10, null, null).size());
+    }
+
+    @Test
+    void testTrainsOnASampleThenEncodesInserts() {
+        Random random = new Random(11);
+        Map<String, float[]> vectors = clusteredVectors(random, 1500, DIMENSION);
+        List<float[]> sample = vectors.values().stream().limit(500).collect(Collectors.toList());
+        IvfPqIndex index = new IvfPqIndex(DIMENSION, 16, 8, 16, 100_000, 4, source(vectors));
+        index.train(sample);
+        assertTrue(index.isTrained());
+        assertEquals(0, index.size());
+
+        // Inserts after training are encoded into the lists, categories and all
+        vectors.forEach((id, vector) -> index.add(id, number(id) % 2 == 0 ? "music" : "sports", vector));
+        assertEquals(1500, index.size());
+        List<Neighbour> music = index.searchSimilar("v10", 10, "music", Set.of("v12"));
+        assertEquals(10, music.size());
+        for (Neighbour neighbour : music) {
+            assertTrue(number(neighbour.getId()) % 2 == 0);
+            assertFalse(neighbour.getId().equals("v10") || neighbour.getId().equals("v12"));
+        }
+
+        // A removed item is gone from its list, and re-added into one
+        assertTrue(index.remove("v1001"));
+        assertFalse(ids(index.search(vectors.get("v1001"), 20, null, null)).contains("v1001"));
+        index.add("v1001", "sports", vectors.get("v1001"));
+        assertEquals("v1001", index.search(vectors.get("v1001"), 1, null, null).get(0).getId());
+        assertEquals(1500, index.size());
+    }
+
+    /**
+     * Recall for queries near indexed vectors.
+     */
+    private static double recall(IvfPqIndex index, Map<String, float[]> vectors, Random random) {
+        List<String> ids = new ArrayList<>(vectors.keySet());
+        List<float[]> queries = new ArrayList<>();
+        for (int q = 0; q < 50; q++) {
+            float[] query = vectors.get(ids.get(random.nextInt(ids.size()))).clone();
+            for (int i = 0; i < DIMENSION; i++) {
+                query[i] += (float) (random.nextGaussian() * 0.1);
+            }
+            queries.add(query);
+        }
+        return IndexFixtures.recall(index, vectors, queries, 10);
+    }
+
+    private static List<String> ids(List<Neighbour> neighbours) {
+        return neighbours.stream().map(Neighbour::getId).collect(Collectors.toList());
+    }
+}
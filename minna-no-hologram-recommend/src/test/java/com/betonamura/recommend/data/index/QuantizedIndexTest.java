@@ -0,0 +1,101 @@
+package com.betonamura.recommend.data.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static com.betonamura.recommend.data.index.IndexFixtures.randomVector;
+import static com.betonamura.recommend.data.index.IndexFixtures.randomVectors;
+import static com.betonamura.recommend.data.index.IndexFixtures.source;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.betonamura.recommend.data.index.QuantizedIndex.Quantization;
+
+class QuantizedIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    @Test
+    void testInt8RecallAgainstBruteForce() {
+        Random random = new Random(7);
+        Map<String, float[]> vectors = randomVectors(random, 2000, DIMENSION);
+        QuantizedIndex index = new QuantizedIndex(DIMENSION, Quantization.INT8, 2, 0.05, source(vectors));
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+        assertTrue(recall(index, vectors, random) >= 0.95);
+        assertEquals(DIMENSION + 4, index.bytesPerItem());
+    }
+
+    @Test
+    void testOptimizeDoublesRescoreFactorUntilRecallIsMet() {
+        Random random = new Random(13);
+        Map<String, float[]> vectors = randomVectors(random, 2000, DIMENSION);
+        QuantizedIndex loose = binaryIndex(vectors, 0.05);
+        assertEquals(8, loose.bytesPerItem());
+        double before = recall(loose, vectors, new Random(5));
+
+        loose.optimize();
+
+        int factor = loose.getRescoreFactor();
+        assertTrue(factor > 1 && Integer.bitCount(factor) == 1, "rescore factor was " + factor);
+        double after = recall(loose, vectors, new Random(5));
+        assertTrue(after > before && after >= 0.85, "recall went from " + before + " to " + after);
+
+        // A tighter tolerance needs at least as many candidates
+        QuantizedIndex strict = binaryIndex(vectors, 0.0);
+        strict.optimize();
+        assertTrue(strict.getRescoreFactor() >= factor);
+
+        // An unreachable target stops at the cap
+        QuantizedIndex unreachable = binaryIndex(vectors, -1.0);
+        unreachable.optimize();
+        assertEquals(64, unreachable.getRescoreFactor());
+    }
+
+    @Test
+    void testOptimizeNeverLowersTheRescoreFactor() {
+        Random random = new Random(17);
+        Map<String, float[]> vectors = randomVectors(random, 500, DIMENSION);
+        QuantizedIndex index = new QuantizedIndex(DIMENSION, Quantization.INT8, 8, 0.05, source(vectors));
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+        index.optimize();
+        assertEquals(8, index.getRescoreFactor());
+    }
+
+    @Test
+    void testRanksByCodesWithoutFullPrecisionVectors() {
+        Random random = new Random(11);
+        Map<String, float[]> vectors = randomVectors(random, 500, DIMENSION);
+        QuantizedIndex index = new QuantizedIndex(DIMENSION, Quantization.INT8, 1, 0.05, (id, target) -> false);
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+
+        // Nothing to calibrate against, so the factor stays
+        index.optimize();
+        assertEquals(1, index.getRescoreFactor());
+
+        // Int8 codes alone still rank a vector's own code first
+        for (String id : List.of("v0", "v123", "v499")) {
+            assertEquals(id, index.search(vectors.get(id), 1, null, null).get(0).getId());
+        }
+    }
+
+    private static QuantizedIndex binaryIndex(Map<String, float[]> vectors, double tolerance) {
+        QuantizedIndex index = new QuantizedIndex(DIMENSION, Quantization.BINARY, 1, tolerance, source(vectors));
+        vectors.forEach((id, vector) -> index.add(id, null, vector));
+        return index;
+    }
+
+    private static double recall(QuantizedIndex index, Map<String, float[]> vectors, Random random) {
+        List<float[]> queries = new ArrayList<>();
+        for (int q = 0; q < 50; q++) {
+            queries.add(randomVector(random, DIMENSION));
+        }
+        return IndexFixtures.recall(index, vectors, queries, 10);
+    }
+}
@@ -0,0 +1,33 @@
+package com.betonamura.recommend.data.text;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TokenizerTest {
+
+    private static String[] words(Tokens tokens) {
+        String[] words = new String[tokens.wordCount()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = tokens.word(i);
+        }
+        return words;
+    }
+
+    @Test
+    void testSplitNormalizesAndTruncates() {
+        Tokenizer tokenizer = new Tokenizer(4);
+        Tokens tokens = new Tokens();
+
+        tokenizer.split("Title: Make a HOLOGRAM pyramid. Tags: diy", tokens);
+        assertArrayEquals(new String[] { "title", "make", "a", "hologram" }, words(tokens));
+
+        // Full-width forms fold to ASCII, CJK characters are words of their own
+        tokenizer.split("ＤＩＹ ホロ映像", tokens);
+        assertArrayEquals(new String[] { "diy", "ホ", "ロ", "映" }, words(tokens));
+
+        // Accents stay, as combining marks, on the word
+        tokenizer.split("Café", tokens);
+        assertArrayEquals(new String[] { "café" }, words(tokens));
+    }
+}
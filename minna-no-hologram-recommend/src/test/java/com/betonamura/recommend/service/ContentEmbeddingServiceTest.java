@@ -0,0 +1,342 @@
+package com.betonamura.recommend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.betonamura.recommend.config.EmbeddingCacheService;
+import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.DataProvider;
+import com.betonamura.recommend.data.index.HnswIndex;
+import com.betonamura.recommend.data.index.IvfPqIndex;
+import com.betonamura.recommend.data.index.VectorIndex;
+import com.betonamura.recommend.domain.common.ContentType;
+import com.betonamura.recommend.domain.diy.DIYMetadata;
+import com.betonamura.recommend.domain.embedding.PrecomputeProgress;
+import com.betonamura.recommend.domain.video.VideoMetadata;
+
+class ContentEmbeddingServiceTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private final AtomicInteger embeddedTexts = new AtomicInteger();
+    private final List<Integer> modelBatches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger maxBatchesAhead = new AtomicInteger();
+    private volatile String failingText;
+    private volatile ContentEmbeddingService current;
+    private final List<InferenceBatcher> batchers = new ArrayList<>();
+    private RecommendationProperties properties;
+    private DataProvider dataProvider;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RecommendationProperties();
+        properties.setPrecomputeEmbeddings(false);
+        properties.getModel().setEmbeddingDimension(8);
+        properties.getModel().setBatchSize(2);
+        properties.getModel().setCacheDir(cacheDir.toString());
+        dataProvider = new DataProvider();
+        dataProvider.reload(List.of(video("v1", "Hologram basics"), video("v2", "Light fields")),
+                List.of(diy("d1", "Pepper's ghost")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchers.forEach(InferenceBatcher::close);
+    }
+
+    @Test
+    void testRefreshOnlyEmbedsChurn() {
+        ContentEmbeddingService service = service(new HnswIndex(8, 8, 50, 20));
+        service.precomputeAllEmbeddings();
+        assertEquals(3, embeddedTexts.get());
+
+        // Nothing changed
+        service.refreshEmbeddings();
+        assertEquals(3, embeddedTexts.get());
+
+        // v1 edited, v2 deleted, v3 added
+        dataProvider.reload(List.of(video("v1", "Hologram basics, revised"), video("v3", "Volumetric displays")),
+                List.of(diy("d1", "Pepper's ghost")));
+        service.refreshEmbeddings();
+        assertEquals(5, embeddedTexts.get());
+        assertEquals(0, service.getPrecomputeProgress().getFailed());
+    }
+
+    @Test
+    void testRefreshDropsDeletedContent() {
+        HnswIndex index = new HnswIndex(8, 8, 50, 20);
+        EmbeddingCacheService cache = new EmbeddingCacheService(properties);
+        ContentEmbeddingService service = service(cache, index);
+        service.precomputeAllEmbeddings();
+        assertTrue(index.contains("v2"));
+
+        dataProvider.reload(List.of(video("v1", "Hologram basics")), List.of());
+        service.refreshEmbeddings();
+        assertFalse(index.contains("v2"));
+        assertTrue(index.contains("v1"));
+        assertEquals(-1, cache.getStore(ContentType.VIDEO).rowOf("v2"));
+        assertEquals(-1, cache.getStore(ContentType.DIY).rowOf("d1"));
+    }
+
+    @Test
+    void testRestartReusesPersistedEmbeddings() {
+        service(new HnswIndex(8, 8, 50, 20)).precomputeAllEmbeddings();
+        assertEquals(3, embeddedTexts.get());
+
+        ContentEmbeddingService restarted = service(new HnswIndex(8, 8, 50, 20));
+        restarted.precomputeAllEmbeddings();
+        assertEquals(3, embeddedTexts.get());
+        assertEquals(3, restarted.getPrecomputeProgress().getReused());
+    }
+
+    @Test
+    void testRestartIndexesFromFileWithoutRewriting() throws IOException {
+        service(new HnswIndex(8, 8, 50, 20)).precomputeAllEmbeddings();
+        Path file = cacheDir.resolve("embeddings.bin");
+        FileTime written = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file, written);
+
+        HnswIndex index = new HnswIndex(8, 8, 50, 20);
+        ContentEmbeddingService restarted = service(index);
+        restarted.refreshEmbeddings();
+        assertTrue(index.contains("v1"));
+        assertTrue(index.contains("v2"));
+        restarted.precomputeAllEmbeddings();
+        assertEquals(3, embeddedTexts.get());
+        assertEquals(written, Files.getLastModifiedTime(file));
+    }
+
+    @Test
+    void testFileFallbackSkipsEditedContent() {
+        service(new HnswIndex(8, 8, 50, 20)).precomputeAllEmbeddings();
+        dataProvider.reload(List.of(video("v1", "Hologram basics, revised"), video("v2", "Light fields")),
+                List.of(diy("d1", "Pepper's ghost")));
+
+        // Not warmed up, so reads go to the file
+        ContentEmbeddingService restarted = service(new HnswIndex(8, 8, 50, 20));
+        assertFalse(restarted.readEmbedding(ContentType.VIDEO, "v1", new float[8]));
+        assertTrue(restarted.readEmbedding(ContentType.VIDEO, "v2", new float[8]));
+        assertTrue(restarted.readEmbedding(ContentType.DIY, "d1", new float[8]));
+    }
+
+    @Test
+    void testOnDemandEmbeddingIsCopiedOut() {
+        HnswIndex index = new HnswIndex(8, 8, 50, 20);
+        ContentEmbeddingService service = service(index);
+        VideoMetadata v1 = dataProvider.getVideoById("v1").orElseThrow();
+
+        float[] embedding = service.getVideoEmbedding(v1, new float[8]);
+        assertEquals(1, embeddedTexts.get());
+        assertTrue(index.contains("v1"));
+
+        float[] read = new float[8];
+        assertTrue(service.readEmbedding(ContentType.VIDEO, "v1", read));
+        assertArrayEquals(embedding, read);
+        service.getVideoEmbedding(v1, new float[8]);
+        assertEquals(1, embeddedTexts.get());
+    }
+
+    @Test
+    void testCacheReloadDoesNotReindex() {
+        AtomicInteger adds = new AtomicInteger();
+        HnswIndex index = new HnswIndex(8, 8, 50, 20) {
+            @Override
+            public void add(String id, String category, float[] vector) {
+                adds.incrementAndGet();
+                super.add(id, category, vector);
+            }
+        };
+        EmbeddingCacheService cache = new EmbeddingCacheService(properties);
+        ContentEmbeddingService service = service(cache, index);
+        VideoMetadata v1 = dataProvider.getVideoById("v1").orElseThrow();
+
+        service.getVideoEmbedding(v1, new float[8]);
+        cache.remove(ContentType.VIDEO, "v1");
+        service.getVideoEmbedding(v1, new float[8]);
+        assertEquals(1, adds.get());
+        assertTrue(index.contains("v1"));
+    }
+
+    @Test
+    void testPrecomputeEmbedsInBatchesAndSkipsFailedBatch() {
+        dataProvider.reload(videos(5), List.of());
+        failingText = "Video 1";
+        HnswIndex index = new HnswIndex(8, 8, 50, 20);
+        ContentEmbeddingService service = service(index);
+        service.precomputeAllEmbeddings();
+
+        // One model call per batch of at most two
+        assertEquals(3, modelBatches.size());
+        assertTrue(modelBatches.stream().allMatch(size -> size <= 2));
+        assertEquals(5, modelBatches.stream().mapToInt(Integer::intValue).sum());
+
+        // The batch holding the failing text is counted and skipped, the rest is stored
+        PrecomputeProgress progress = service.getPrecomputeProgress();
+        assertFalse(progress.isRunning());
+        assertEquals(5, progress.getTotal());
+        assertEquals(5, progress.getCompleted());
+        assertEquals(2, progress.getFailed());
+        assertEquals(0, progress.getReused());
+        assertFalse(index.contains("v0"));
+        assertFalse(index.contains("v1"));
+        assertTrue(index.contains("v2") && index.contains("v3") && index.contains("v4"));
+
+        // The failed items are embedded on the next refresh
+        failingText = null;
+        service.refreshEmbeddings();
+        assertEquals(2, service.getPrecomputeProgress().getTotal());
+        assertEquals(0, service.getPrecomputeProgress().getFailed());
+        assertTrue(index.contains("v0") && index.contains("v1"));
+    }
+
+    @Test
+    void testPrecomputeBoundsBatchesInFlight() {
+        dataProvider.reload(videos(24), List.of());
+        // Storing is slower than embedding, so unbounded workers would run far ahead
+        HnswIndex index = new HnswIndex(8, 8, 50, 20) {
+            @Override
+            public void add(String id, String category, float[] vector) {
+                sleep(2);
+                super.add(id, category, vector);
+            }
+        };
+        ContentEmbeddingService service = service(index);
+        service.precomputeAllEmbeddings();
+
+        assertEquals(12, modelBatches.size());
+        assertEquals(24, service.getPrecomputeProgress().getCompleted());
+        // Two batches per worker, plus the one being stored
+        assertTrue(maxBatchesAhead.get() <= 2 * Runtime.getRuntime().availableProcessors() + 1,
+                "batches ahead of the store step: " + maxBatchesAhead.get());
+    }
+
+    @Test
+    void testIndexIsTrainedBeforeTheBulkLoad() {
+        dataProvider.reload(videos(600), List.of());
+        AtomicInteger bufferedAdds = new AtomicInteger();
+        IvfPqIndex index = bufferingIvfPq(bufferedAdds);
+        service(index).precomputeAllEmbeddings();
+        // Trained as soon as the first batches filled the sample, the rest went in encoded
+        assertTrue(index.isTrained());
+        assertEquals(256, bufferedAdds.get());
+
+        // After a restart the persisted embeddings are enough to train on
+        bufferedAdds.set(0);
+        IvfPqIndex restartedIndex = bufferingIvfPq(bufferedAdds);
+        service(restartedIndex).refreshEmbeddings();
+        assertEquals(0, bufferedAdds.get());
+        assertTrue(restartedIndex.isTrained());
+        assertEquals(600, restartedIndex.size());
+        assertEquals(600, embeddedTexts.get());
+    }
+
+    /**
+     * An IVF-PQ index with a 256 vector sample, counting the items added
+     * before it was trained.
+     */
+    private static IvfPqIndex bufferingIvfPq(AtomicInteger bufferedAdds) {
+        return new IvfPqIndex(8, 4, 4, 2, 256, 1, null) {
+            @Override
+            public void add(String id, String category, float[] vector) {
+                if (!isTrained()) {
+                    bufferedAdds.incrementAndGet();
+                }
+                super.add(id, category, vector);
+            }
+        };
+    }
+
+    private ContentEmbeddingService service(VectorIndex index) {
+        return service(new EmbeddingCacheService(properties), index);
+    }
+
+    private ContentEmbeddingService service(EmbeddingCacheService cache, VectorIndex index) {
+        MockModelProvider mock = new MockModelProvider(properties);
+        ModelService modelService = new ModelService(properties, new ModelProvider() {
+            @Override
+            public void initialize() {
+            }
+
+            @Override
+            public float[] generateEmbedding(String text) {
+                embeddedTexts.incrementAndGet();
+                return mock.generateEmbedding(text);
+            }
+
+            @Override
+            public List<float[]> generateEmbeddings(List<String> texts) {
+                modelBatches.add(texts.size());
+                ContentEmbeddingService running = current;
+                if (running != null) {
+                    int stored = running.getPrecomputeProgress().getCompleted()
+                            / properties.getModel().getBatchSize();
+                    maxBatchesAhead.accumulateAndGet(modelBatches.size() - stored, Math::max);
+                }
+                String failing = failingText;
+                if (failing != null && texts.stream().anyMatch(text -> text.contains(failing))) {
+                    throw new IllegalStateException("Model failed");
+                }
+                embeddedTexts.addAndGet(texts.size());
+                return mock.generateEmbeddings(texts);
+            }
+
+            @Override
+            public String getModelName() {
+                return mock.getModelName();
+            }
+
+            @Override
+            public int getEmbeddingDimension() {
+                return mock.getEmbeddingDimension();
+            }
+        });
+        InferenceBatcher batcher = new InferenceBatcher(modelService::generateEmbeddings, 2, 1, 1);
+        batchers.add(batcher);
+        ContentEmbeddingService service = new ContentEmbeddingService(modelService, dataProvider, properties,
+                cache, index, batcher);
+        service.init();
+        current = service;
+        return service;
+    }
+
+    private static List<VideoMetadata> videos(int count) {
+        List<VideoMetadata> videos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            videos.add(video("v" + i, "Video " + i));
+        }
+        return videos;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static VideoMetadata video(String id, String title) {
+        return VideoMetadata.builder().videoId(id).title(title).categoryId("c1").build();
+    }
+
+    private static DIYMetadata diy(String id, String title) {
+        return DIYMetadata.builder().diyId(id).title(title).categoryId("c1").build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.betonamura.recommend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.embedding.VectorMath;
+import com.betonamura.recommend.data.text.Tokenizer;
+import com.betonamura.recommend.data.text.Tokens;
+
+class HashingModelProviderTest {
+
+    private static final List<String> CATALOG = List.of(
+            "Title: Make a hologram pyramid. Tags: hologram, pyramid, diy.",
+            "Title: Hologram pyramid from a CD case. Tags: hologram, pyramid, recycling.",
+            "Title: Baking sourdough bread. Tags: cooking, bread.",
+            "Title: Laser safety basics. Tags: laser, safety.");
+
+    @TempDir
+    Path cacheDir;
+
+    private HashingModelProvider provider() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getModel().setEmbeddingDimension(256);
+        properties.getModel().setCacheDir(cacheDir.toString());
+        return new HashingModelProvider(properties);
+    }
+
+    @Test
+    void testSimilarTextsScoreHigher() {
+        HashingModelProvider provider = provider();
+        provider.fit(CATALOG);
+        float[] pyramid = provider.generateEmbedding(CATALOG.get(0));
+        float[] cdCase = provider.generateEmbedding(CATALOG.get(1));
+        float[] bread = provider.generateEmbedding(CATALOG.get(2));
+
+        assertEquals(1.0, VectorMath.dot(pyramid, pyramid), 1e-5);
+        assertTrue(VectorMath.dot(pyramid, cdCase) > VectorMath.dot(pyramid, bread) + 0.2);
+    }
+
+    @Test
+    void testEmbeddingsAreDeterministicAndFitChangesModelName() {
+        HashingModelProvider provider = provider();
+        String unfitted = provider.getModelName();
+        float[] before = provider.generateEmbedding("Hologram bread");
+
+        provider.fit(CATALOG);
+        assertNotEquals(unfitted, provider.getModelName());
+        float[] after = provider.generateEmbedding("Hologram bread");
+        assertTrue(VectorMath.dot(before, after) < 1.0 - 1e-3);
+
+        HashingModelProvider other = provider();
+        other.fit(CATALOG);
+        assertEquals(provider.getModelName(), other.getModelName());
+        assertEquals(1.0, VectorMath.dot(after, other.generateEmbedding("Hologram bread")), 1e-5);
+    }
+
+    @Test
+    void testFitIsRestoredAfterRestart() {
+        HashingModelProvider provider = provider();
+        provider.initialize();
+        assertFalse(provider.isFitted());
+        provider.fit(CATALOG);
+        float[] fitted = provider.generateEmbedding("Hologram bread");
+
+        HashingModelProvider restarted = provider();
+        restarted.initialize();
+        assertTrue(restarted.isFitted());
+        assertEquals(provider.getModelName(), restarted.getModelName());
+        assertEquals(1.0, VectorMath.dot(fitted, restarted.generateEmbedding("Hologram bread")), 1e-5);
+    }
+
+    @Test
+    void testFeaturesCoverWordsPairsAndTrigrams() {
+        Tokenizer tokenizer = new Tokenizer(16);
+        Tokens words = new Tokens();
+        long[] features = new long[9];
+        tokenizer.split("ab c!", words);
+        // "ab": trigrams ^ab, ab$ and the word; "c": trigram ^c$, the word and the pair
+        assertEquals(6, HashingModelProvider.features(words, features));
+        long first = features[0];
+
+        // Case and punctuation do not matter
+        tokenizer.split("AB, C", words);
+        assertEquals(6, HashingModelProvider.features(words, features));
+        assertEquals(first, features[0]);
+    }
+}
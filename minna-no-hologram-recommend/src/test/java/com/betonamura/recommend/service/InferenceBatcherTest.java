@@ -0,0 +1,70 @@
+package com.betonamura.recommend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class InferenceBatcherTest {
+
+    private static List<float[]> lengths(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>();
+        for (String text : texts) {
+            embeddings.add(new float[] { text.length() });
+        }
+        return embeddings;
+    }
+
+    @Test
+    void testConcurrentRequestsShareModelCalls() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (InferenceBatcher batcher = new InferenceBatcher(texts -> {
+            calls.incrementAndGet();
+            return lengths(texts);
+        }, 8, 50, 1)) {
+            List<CompletableFuture<float[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(batcher.submit("x".repeat(i)));
+            }
+            for (int i = 0; i < 32; i++) {
+                assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS)[0]);
+            }
+            assertTrue(calls.get() <= 8, "Expected batched calls but got " + calls.get());
+        }
+    }
+
+    @Test
+    void testLoneRequestIsSentAfterMaxWait() throws Exception {
+        try (InferenceBatcher batcher = new InferenceBatcher(InferenceBatcherTest::lengths, 16, 20, 1)) {
+            long start = System.nanoTime();
+            assertEquals(3, batcher.submit("abc").get(5, TimeUnit.SECONDS)[0]);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        }
+    }
+
+    @Test
+    void testFailedBatchFailsItsRequests() {
+        try (InferenceBatcher batcher = new InferenceBatcher(texts -> {
+            throw new IllegalStateException("model down");
+        }, 4, 1, 1)) {
+            CompletableFuture<float[]> future = batcher.submit("abc");
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    void testRequestsAfterCloseAreRejected() {
+        InferenceBatcher batcher = new InferenceBatcher(InferenceBatcherTest::lengths, 4, 1, 1);
+        batcher.close();
+        assertThrows(CompletionException.class, () -> batcher.submit("abc").join());
+    }
+}
@@ -1,11 +1,15 @@
 package com.betonamura.recommend.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
@@ -20,6 +24,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.betonamura.recommend.controller.BatchRecommendationRequest;
+import com.betonamura.recommend.controller.BatchRecommendationResponse;
 import com.betonamura.recommend.controller.RecommendationRequest;
 import com.betonamura.recommend.controller.RecommendationResponse;
 import com.betonamura.recommend.data.DataProvider;
@@ -35,6 +41,9 @@ import com.betonamura.recommend.domain.video.VideoMetadata;
 import com.betonamura.recommend.repository.RecommendationRepositoryImpl;
 import com.betonamura.recommend.repository.SlmRepository;
 
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
 @ExtendWith(MockitoExtension.class)
 public class RecommendationServiceTest {
 
@@ -200,6 +209,57 @@ public class RecommendationServiceTest {
                 });
         }
 
+        @Test
+        void testGetBatchRecommendationsSharesLookups() {
+                // Two rails for the same video with different limits, plus an invalid item
+                BatchRecommendationRequest request = new BatchRecommendationRequest(null, List.of(
+                                new RecommendationRequest(null, "video", "video1", 1),
+                                new RecommendationRequest(null, "video", "video1", 2),
+                                new RecommendationRequest(null, "unknown", "video1", 2)));
+
+                when(dataProvider.getVideoById("video1")).thenReturn(Optional.of(mockVideos.get(0)));
+                when(dataProvider.getVideoById("video2")).thenReturn(Optional.of(mockVideos.get(1)));
+                when(slmService.getRecommendations(anyMap(), anySet(), anyInt()))
+                                .thenReturn(List.of("video2", "video2"));
+
+                BatchRecommendationResponse result = recommendationService.getBatchRecommendations(request);
+
+                // Results keep the request order and each limit is honored
+                assertEquals(3, result.getResults().size());
+                assertEquals(1, result.getResults().get(0).getContent().size());
+                assertEquals(2, result.getResults().get(1).getContent().size());
+                assertNotNull(result.getResults().get(2).getError());
+
+                // The SLM and the data provider are asked once for the shared video
+                verify(slmService, times(1)).getRecommendations(anyMap(), anySet(), anyInt());
+                verify(dataProvider, times(1)).getVideoById("video1");
+        }
+
+        @Test
+        void testInvalidBatchItemGetsAnErrorEntry() {
+                BatchRecommendationRequest request = new BatchRecommendationRequest(null, List.of(
+                                new RecommendationRequest(null, "video", "video1", 60),
+                                new RecommendationRequest(null, "video", "video1", null),
+                                new RecommendationRequest(null, "video", "video1", 1)));
+
+                when(dataProvider.getVideoById("video1")).thenReturn(Optional.of(mockVideos.get(0)));
+                when(dataProvider.getVideoById("video2")).thenReturn(Optional.of(mockVideos.get(1)));
+                when(slmService.getRecommendations(anyMap(), anySet(), anyInt())).thenReturn(List.of("video2"));
+
+                // The request body itself is valid, only its items are not
+                try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+                        assertTrue(factory.getValidator().validate(request).isEmpty());
+                }
+
+                BatchRecommendationResponse result = recommendationService.getBatchRecommendations(request);
+
+                assertEquals(3, result.getResults().size());
+                assertEquals("Limit cannot exceed 50", result.getResults().get(0).getError());
+                assertEquals("Limit is required", result.getResults().get(1).getError());
+                assertNull(result.getResults().get(2).getError());
+                assertEquals(1, result.getResults().get(2).getContent().size());
+        }
+
         // TODO: Implement feedback recording in the future
         /*
          * @Test
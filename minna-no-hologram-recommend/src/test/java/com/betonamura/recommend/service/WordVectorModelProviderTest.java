@@ -0,0 +1,36 @@
+package com.betonamura.recommend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.betonamura.recommend.config.RecommendationProperties;
+import com.betonamura.recommend.data.embedding.WordVectorTable;
+
+class WordVectorModelProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAveragesKnownWordsWithinMaxLength() throws Exception {
+        Path path = tempDir.resolve("word-vectors.bin");
+        try (WordVectorTable.Writer writer = WordVectorTable.writer(path, 2, WordVectorTable.Encoding.FP16)) {
+            writer.add("hologram", new float[] { 1, 0 });
+            writer.add("pyramid", new float[] { 0, 1 });
+        }
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getModel().setMaxLength(4);
+        WordVectorModelProvider provider = new WordVectorModelProvider(properties, WordVectorTable.open(path));
+
+        float half = (float) Math.sqrt(0.5);
+        // Case and unknown words do not matter
+        assertArrayEquals(new float[] { half, half }, provider.generateEmbedding("A HOLOGRAM, a Pyramid!"), 1e-6f);
+        // Words past max-length are not pooled
+        assertArrayEquals(new float[] { 1, 0 }, provider.generateEmbedding("hologram a b c pyramid"), 1e-6f);
+        assertArrayEquals(new float[] { 0, 0 }, provider.generateEmbedding("nothing known"), 0f);
+    }
+}